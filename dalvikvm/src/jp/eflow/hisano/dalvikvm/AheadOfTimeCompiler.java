@@ -0,0 +1,242 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm;
+
+import java.io.*;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.zip.*;
+
+// Compile all methods of a dex file into a jar of the classes generated by CodeGenerator, to be loaded by VirtualMachine#load without the warmup.
+// The jar has the classes and a metadata entry which maps them to the methods, the entry points and the string constants.
+public final class AheadOfTimeCompiler {
+	private static final String METADATA_ENTRY_NAME = "META-INF/dalvikvm/precompiled-methods";
+	private static final int METADATA_VERSION = 3;
+
+	private static final int SIGNATURE_OFFSET = 12;
+	private static final int SIGNATURE_LENGTH = 20;
+
+	private AheadOfTimeCompiler() {
+	}
+
+	public static void main(final String[] args) throws IOException {
+		if (args.length != 2) {
+			System.out.println("Usage: java jp.eflow.hisano.dalvikvm.AheadOfTimeCompiler <dex file> <jar file>");
+			return;
+		}
+		InputStream in = new FileInputStream(args[0]);
+		byte[] jarFileContent;
+		try {
+			jarFileContent = compile(readFully(in));
+		} finally {
+			in.close();
+		}
+		OutputStream out = new FileOutputStream(args[1]);
+		try {
+			out.write(jarFileContent);
+		} finally {
+			out.close();
+		}
+	}
+
+	public static byte[] compile(final byte[] dexFileContent) throws IOException {
+		// The classes are read without initializing them
+		VirtualMachine vm = new VirtualMachine();
+		vm.load(dexFileContent);
+
+		ByteArrayOutputStream metadataBytes = new ByteArrayOutputStream();
+		DataOutputStream metadata = new DataOutputStream(metadataBytes);
+		ByteArrayOutputStream jarFileContent = new ByteArrayOutputStream();
+		ZipOutputStream jar = new ZipOutputStream(jarFileContent);
+
+		int methodCount = 0;
+		ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+		DataOutputStream methods = new DataOutputStream(methodBytes);
+		for (Enumeration e = vm.systemClassLoader.getClasses(); e.hasMoreElements();) {
+			Clazz clazz = (Clazz)e.nextElement();
+			// Verified without initializing it
+			clazz.link();
+			if (clazz.verifyError != null) {
+				continue;
+			}
+			Method[][] methodGroups = { clazz.directMethods, clazz.virtualMethods };
+			for (int i = 0; i < methodGroups.length; i++) {
+				if (methodGroups[i] == null) {
+					continue;
+				}
+				for (int j = 0; j < methodGroups[i].length; j++) {
+					Method method = methodGroups[i][j];
+					if (method.opcodes == null) {
+						continue;
+					}
+					String className = CodeGenerator.PACKAGE_NAME + "Precompiled" + methodCount;
+					CodeGenerator generator = new CodeGenerator(method);
+					byte[] classFile = generator.generate(className);
+					if (classFile == null) {
+						continue;
+					}
+					int[] stringIndexes = toStringIndexes(method, generator.getConstants());
+					if (stringIndexes == null) {
+						continue;
+					}
+
+					jar.putNextEntry(new ZipEntry(className + ".class"));
+					jar.write(classFile);
+					jar.closeEntry();
+
+					methods.writeUTF(clazz.name);
+					methods.writeBoolean(i == 0);
+					methods.writeInt(j);
+					methods.writeUTF(method.name);
+					methods.writeUTF(method.descriptor);
+					methods.writeUTF(className);
+					writeInts(methods, generator.getEntries());
+					writeInts(methods, stringIndexes);
+					methodCount++;
+				}
+			}
+		}
+
+		metadata.writeInt(METADATA_VERSION);
+		metadata.write(dexFileContent, SIGNATURE_OFFSET, SIGNATURE_LENGTH);
+		metadata.writeInt(methodCount);
+		methods.flush();
+		metadata.write(methodBytes.toByteArray());
+		metadata.flush();
+		jar.putNextEntry(new ZipEntry(METADATA_ENTRY_NAME));
+		jar.write(metadataBytes.toByteArray());
+		jar.closeEntry();
+		jar.close();
+		return jarFileContent.toByteArray();
+	}
+
+	// Install the compiled code of the jar into the methods loaded from the dex file, and leave the others to the interpreter
+	static void load(final ClassLoader classLoader, final byte[] dexFileContent, final byte[] jarFileContent) {
+		try {
+			Hashtable entries = new Hashtable();
+			ZipInputStream jar = new ZipInputStream(new ByteArrayInputStream(jarFileContent));
+			for (ZipEntry entry = jar.getNextEntry(); entry != null; entry = jar.getNextEntry()) {
+				entries.put(entry.getName(), readFully(jar));
+			}
+			byte[] metadataBytes = (byte[])entries.get(METADATA_ENTRY_NAME);
+			if (metadataBytes == null) {
+				throw new VirtualMachineException("not precompiled jar");
+			}
+			DataInputStream metadata = new DataInputStream(new ByteArrayInputStream(metadataBytes));
+			int version = metadata.readInt();
+			if (version != METADATA_VERSION) {
+				throw new VirtualMachineException("not supported precompiled jar version = " + version);
+			}
+			byte[] signature = new byte[SIGNATURE_LENGTH];
+			metadata.readFully(signature);
+			for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+				if (signature[i] != dexFileContent[SIGNATURE_OFFSET + i]) {
+					throw new VirtualMachineException("not precompiled from the dex file");
+				}
+			}
+			if (!HiddenClassDefiner.isAvailable()) {
+				return;
+			}
+
+			int methodCount = metadata.readInt();
+			for (int i = 0; i < methodCount; i++) {
+				Clazz clazz = classLoader.findLoadedClass(metadata.readUTF());
+				boolean isDirect = metadata.readBoolean();
+				int index = metadata.readInt();
+				String name = metadata.readUTF();
+				String descriptor = metadata.readUTF();
+				String className = metadata.readUTF();
+				int[] codeEntries = readInts(metadata);
+				int[] stringIndexes = readInts(metadata);
+
+				// The compiled code is written over the instructions verified and specialized by Verifier
+				clazz.link();
+				if (clazz.verifyError != null) {
+					continue;
+				}
+				Method method = (isDirect ? clazz.directMethods : clazz.virtualMethods)[index];
+				if (!method.name.equals(name) || !method.descriptor.equals(descriptor)) {
+					throw new VirtualMachineException("not matched precompiled method = " + method);
+				}
+				Object[] constants = new Object[stringIndexes.length];
+				for (int j = 0; j < stringIndexes.length; j++) {
+					constants[j] = method.dexCache.strings[stringIndexes[j]];
+				}
+				try {
+					Class compiledClass = HiddenClassDefiner.define((byte[])entries.get(className + ".class"));
+					JitCompiler.install(JitCompiler.newCompiledCode(compiledClass, method, codeEntries, constants));
+				} catch (Exception e) {
+					// Leave the method to the interpreter
+				} catch (LinkageError e) {
+					// Leave the method to the interpreter
+				}
+			}
+		} catch (IOException e) {
+			throw new VirtualMachineException("not readable precompiled jar = " + e.getMessage());
+		}
+	}
+
+	// The generated code of the methods before their instructions are quickened refers to the strings only
+	private static int[] toStringIndexes(final Method method, final Object[] constants) {
+		String[] strings = method.dexCache.strings;
+		int[] indexes = new int[constants.length];
+		for (int i = 0; i < constants.length; i++) {
+			indexes[i] = -1;
+			for (int j = 0; j < strings.length; j++) {
+				if (strings[j] == constants[i]) {
+					indexes[i] = j;
+					break;
+				}
+			}
+			if (indexes[i] == -1) {
+				return null;
+			}
+		}
+		return indexes;
+	}
+
+	private static void writeInts(final DataOutputStream out, final int[] values) throws IOException {
+		out.writeInt(values.length);
+		for (int i = 0; i < values.length; i++) {
+			out.writeInt(values[i]);
+		}
+	}
+
+	private static int[] readInts(final DataInputStream in) throws IOException {
+		int[] values = new int[in.readInt()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = in.readInt();
+		}
+		return values;
+	}
+
+	private static byte[] readFully(final InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		for (int length = in.read(buffer); length != -1; length = in.read(buffer)) {
+			out.write(buffer, 0, length);
+		}
+		return out.toByteArray();
+	}
+}
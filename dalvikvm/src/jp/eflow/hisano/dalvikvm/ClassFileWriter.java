@@ -0,0 +1,453 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm;
+
+import java.io.*;
+import java.util.Hashtable;
+
+// Write a JVM class file which has the default constructor and one method, in the version 49 format which needs no stack map frames
+final class ClassFileWriter {
+	static final int ACONST_NULL = 0x01;
+	static final int ICONST_0 = 0x03;
+	static final int BIPUSH = 0x10;
+	static final int SIPUSH = 0x11;
+	static final int LDC = 0x12;
+	static final int LDC_W = 0x13;
+	static final int LDC2_W = 0x14;
+	static final int ILOAD = 0x15;
+	static final int LLOAD = 0x16;
+	static final int ALOAD = 0x19;
+	static final int ALOAD_0 = 0x2A;
+	static final int IALOAD = 0x2E;
+	static final int LALOAD = 0x2F;
+	static final int FALOAD = 0x30;
+	static final int DALOAD = 0x31;
+	static final int AALOAD = 0x32;
+	static final int BALOAD = 0x33;
+	static final int CALOAD = 0x34;
+	static final int SALOAD = 0x35;
+	static final int ISTORE = 0x36;
+	static final int LSTORE = 0x37;
+	static final int ASTORE = 0x3A;
+	static final int IASTORE = 0x4F;
+	static final int LASTORE = 0x50;
+	static final int FASTORE = 0x51;
+	static final int DASTORE = 0x52;
+	static final int AASTORE = 0x53;
+	static final int BASTORE = 0x54;
+	static final int CASTORE = 0x55;
+	static final int SASTORE = 0x56;
+	static final int DUP = 0x59;
+	static final int IADD = 0x60;
+	static final int ISUB = 0x64;
+	static final int INEG = 0x74;
+	static final int LNEG = 0x75;
+	static final int FNEG = 0x76;
+	static final int DNEG = 0x77;
+	static final int IXOR = 0x82;
+	static final int LXOR = 0x83;
+	static final int IINC = 0x84;
+	static final int I2L = 0x85;
+	static final int LCMP = 0x94;
+	static final int FCMPL = 0x95;
+	static final int FCMPG = 0x96;
+	static final int DCMPL = 0x97;
+	static final int DCMPG = 0x98;
+	static final int IFEQ = 0x99;
+	static final int IFNE = 0x9A;
+	static final int IFLT = 0x9B;
+	static final int IFLE = 0x9E;
+	static final int IF_ICMPEQ = 0x9F;
+	static final int IF_ICMPNE = 0xA0;
+	static final int IF_ICMPLT = 0xA1;
+	static final int IF_ACMPEQ = 0xA5;
+	static final int IF_ACMPNE = 0xA6;
+	static final int GOTO = 0xA7;
+	static final int LOOKUPSWITCH = 0xAB;
+	static final int IRETURN = 0xAC;
+	static final int RETURN = 0xB1;
+	static final int GETFIELD = 0xB4;
+	static final int PUTFIELD = 0xB5;
+	static final int INVOKESPECIAL = 0xB7;
+	static final int INVOKESTATIC = 0xB8;
+	static final int NEW = 0xBB;
+	static final int ATHROW = 0xBF;
+	static final int CHECKCAST = 0xC0;
+	static final int WIDE = 0xC4;
+	static final int IFNULL = 0xC6;
+	static final int IFNONNULL = 0xC7;
+
+	private static final int ACC_FINAL = 0x0010;
+	private static final int ACC_SUPER = 0x0020;
+	private static final int ACC_STRICT = 0x0800;
+
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_INTEGER = 3;
+	private static final int CONSTANT_LONG = 5;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_STRING = 8;
+	private static final int CONSTANT_FIELDREF = 9;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+	private final Hashtable constantIndexes = new Hashtable();
+	private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+	private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+	private int constantCount = 1;
+
+	private byte[] code = new byte[1024];
+	private int codeLength;
+
+	private int[] labelAddresses = new int[64];
+	private int labelCount;
+
+	// The address of each branch instruction, the address of its offset and the label to jump to
+	private int[] branchAddresses = new int[64];
+	private int[] offsetAddresses = new int[64];
+	private int[] branchLabels = new int[64];
+	private int branchCount;
+
+	// The start, end and handler labels of each exception handler which catches any throwable
+	private int[] exceptionTable = new int[12];
+	private int exceptionTableLength;
+
+	int getCodeLength() {
+		return codeLength;
+	}
+
+	int newLabel() {
+		if (labelCount == labelAddresses.length) {
+			labelAddresses = grow(labelAddresses);
+		}
+		labelAddresses[labelCount] = -1;
+		return labelCount++;
+	}
+
+	void placeLabel(final int label) {
+		labelAddresses[label] = codeLength;
+	}
+
+	void emit(final int opcode) {
+		writeByte(opcode);
+	}
+
+	void pushInt(final int value) {
+		if (-1 <= value && value <= 5) {
+			writeByte(ICONST_0 + value);
+		} else if (Byte.MIN_VALUE <= value && value <= Byte.MAX_VALUE) {
+			writeByte(BIPUSH);
+			writeByte(value);
+		} else if (Short.MIN_VALUE <= value && value <= Short.MAX_VALUE) {
+			writeByte(SIPUSH);
+			writeShort(value);
+		} else {
+			pushConstant(getConstant(CONSTANT_INTEGER, value));
+		}
+	}
+
+	void pushLong(final long value) {
+		writeByte(LDC2_W);
+		writeShort(getConstant(CONSTANT_LONG, value));
+	}
+
+	void pushString(final String value) {
+		pushConstant(getConstant(CONSTANT_STRING, getUtf8(value)));
+	}
+
+	private void pushConstant(final int index) {
+		if (index <= 0xFF) {
+			writeByte(LDC);
+			writeByte(index);
+		} else {
+			writeByte(LDC_W);
+			writeShort(index);
+		}
+	}
+
+	// The opcode is one of ILOAD, LLOAD, FLOAD, DLOAD, ALOAD and the STORE forms
+	void emitLocal(final int opcode, final int local) {
+		if (local <= 0xFF) {
+			writeByte(opcode);
+			writeByte(local);
+		} else {
+			writeByte(WIDE);
+			writeByte(opcode);
+			writeShort(local);
+		}
+	}
+
+	void emitIncrement(final int local, final int value) {
+		if (local <= 0xFF && Byte.MIN_VALUE <= value && value <= Byte.MAX_VALUE) {
+			writeByte(IINC);
+			writeByte(local);
+			writeByte(value);
+		} else {
+			writeByte(WIDE);
+			writeByte(IINC);
+			writeShort(local);
+			writeShort(value);
+		}
+	}
+
+	void emitJump(final int opcode, final int label) {
+		addBranch(codeLength, codeLength + 1, label);
+		writeByte(opcode);
+		writeShort(0);
+	}
+
+	// The keys need to be sorted in the ascending order
+	void emitLookupSwitch(final int defaultLabel, final int[] keys, final int[] labels) {
+		int address = codeLength;
+		writeByte(LOOKUPSWITCH);
+		while (codeLength % 4 != 0) {
+			writeByte(0);
+		}
+		addBranch(address, codeLength, defaultLabel);
+		writeInt(0);
+		writeInt(keys.length);
+		for (int i = 0; i < keys.length; i++) {
+			writeInt(keys[i]);
+			addBranch(address, codeLength, labels[i]);
+			writeInt(0);
+		}
+	}
+
+	void emitField(final int opcode, final String className, final String name, final String descriptor) {
+		writeByte(opcode);
+		writeShort(getMemberReference(CONSTANT_FIELDREF, className, name, descriptor));
+	}
+
+	void emitInvoke(final int opcode, final String className, final String name, final String descriptor) {
+		writeByte(opcode);
+		writeShort(getMemberReference(CONSTANT_METHODREF, className, name, descriptor));
+	}
+
+	void emitType(final int opcode, final String className) {
+		writeByte(opcode);
+		writeShort(getClassReference(className));
+	}
+
+	void addExceptionHandler(final int startLabel, final int endLabel, final int handlerLabel) {
+		if (exceptionTableLength == exceptionTable.length) {
+			exceptionTable = grow(exceptionTable);
+		}
+		exceptionTable[exceptionTableLength++] = startLabel;
+		exceptionTable[exceptionTableLength++] = endLabel;
+		exceptionTable[exceptionTableLength++] = handlerLabel;
+	}
+
+	byte[] toByteArray(final String className, final String superClassName, final String methodName, final String methodDescriptor, final int maxStack, final int maxLocals) {
+		resolveBranches();
+		try {
+			int thisClass = getClassReference(className);
+			int superClass = getClassReference(superClassName);
+			int constructorName = getUtf8("<init>");
+			int constructorDescriptor = getUtf8("()V");
+			int superConstructor = getMemberReference(CONSTANT_METHODREF, superClassName, "<init>", "()V");
+			int name = getUtf8(methodName);
+			int descriptor = getUtf8(methodDescriptor);
+			int codeAttribute = getUtf8("Code");
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(constantPoolBytes.size() + codeLength + 256);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);
+			out.writeShort(49);
+			out.writeShort(constantCount);
+			constantPool.flush();
+			constantPoolBytes.writeTo(out);
+			out.writeShort(ACC_FINAL | ACC_SUPER);
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			// interfaces and fields
+			out.writeShort(0);
+			out.writeShort(0);
+			out.writeShort(2);
+
+			// The constructor calling the constructor of the super class
+			out.writeShort(0);
+			out.writeShort(constructorName);
+			out.writeShort(constructorDescriptor);
+			out.writeShort(1);
+			out.writeShort(codeAttribute);
+			out.writeInt(12 + 5);
+			out.writeShort(1);
+			out.writeShort(1);
+			out.writeInt(5);
+			out.writeByte(ALOAD_0);
+			out.writeByte(INVOKESPECIAL);
+			out.writeShort(superConstructor);
+			out.writeByte(RETURN);
+			out.writeShort(0);
+			out.writeShort(0);
+
+			out.writeShort(ACC_FINAL | ACC_STRICT);
+			out.writeShort(name);
+			out.writeShort(descriptor);
+			out.writeShort(1);
+			out.writeShort(codeAttribute);
+			int handlerCount = exceptionTableLength / 3;
+			out.writeInt(12 + codeLength + handlerCount * 8);
+			out.writeShort(maxStack);
+			out.writeShort(maxLocals);
+			out.writeInt(codeLength);
+			out.write(code, 0, codeLength);
+			out.writeShort(handlerCount);
+			for (int i = 0; i < exceptionTableLength; i += 3) {
+				out.writeShort(labelAddresses[exceptionTable[i]]);
+				out.writeShort(labelAddresses[exceptionTable[i + 1]]);
+				out.writeShort(labelAddresses[exceptionTable[i + 2]]);
+				out.writeShort(0);
+			}
+			out.writeShort(0);
+
+			// class attributes
+			out.writeShort(0);
+			out.flush();
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			throw new VirtualMachineException("not written class file = " + className);
+		}
+	}
+
+	private void resolveBranches() {
+		for (int i = 0; i < branchCount; i++) {
+			int target = labelAddresses[branchLabels[i]];
+			if (target == -1) {
+				throw new VirtualMachineException("not placed label = " + branchLabels[i]);
+			}
+			int offset = target - branchAddresses[i];
+			int address = offsetAddresses[i];
+			if ((code[branchAddresses[i]] & 0xFF) == LOOKUPSWITCH) {
+				code[address] = (byte)(offset >> 24);
+				code[address + 1] = (byte)(offset >> 16);
+				code[address + 2] = (byte)(offset >> 8);
+				code[address + 3] = (byte)offset;
+			} else {
+				if (offset < Short.MIN_VALUE || Short.MAX_VALUE < offset) {
+					throw new VirtualMachineException("not supported branch offset = " + offset);
+				}
+				code[address] = (byte)(offset >> 8);
+				code[address + 1] = (byte)offset;
+			}
+		}
+		branchCount = 0;
+	}
+
+	private void addBranch(final int branchAddress, final int offsetAddress, final int label) {
+		if (branchCount == branchAddresses.length) {
+			branchAddresses = grow(branchAddresses);
+			offsetAddresses = grow(offsetAddresses);
+			branchLabels = grow(branchLabels);
+		}
+		branchAddresses[branchCount] = branchAddress;
+		offsetAddresses[branchCount] = offsetAddress;
+		branchLabels[branchCount] = label;
+		branchCount++;
+	}
+
+	private int getUtf8(final String value) {
+		String key = "U" + value;
+		Integer index = (Integer)constantIndexes.get(key);
+		if (index == null) {
+			try {
+				constantPool.writeByte(CONSTANT_UTF8);
+				constantPool.writeUTF(value);
+			} catch (IOException e) {
+				throw new VirtualMachineException("not written constant = " + value);
+			}
+			index = new Integer(constantCount++);
+			constantIndexes.put(key, index);
+		}
+		return index.intValue();
+	}
+
+	private int getClassReference(final String className) {
+		return getConstant(CONSTANT_CLASS, getUtf8(className));
+	}
+
+	private int getMemberReference(final int tag, final String className, final String name, final String descriptor) {
+		int classIndex = getClassReference(className);
+		int nameAndType = getConstant(CONSTANT_NAME_AND_TYPE, (getUtf8(name) << 16) | getUtf8(descriptor));
+		return getConstant(tag, (classIndex << 16) | nameAndType);
+	}
+
+	// The value is the constant itself, or the indexes which the constant refers to
+	private int getConstant(final int tag, final long value) {
+		String key = tag + ":" + value;
+		Integer index = (Integer)constantIndexes.get(key);
+		if (index == null) {
+			try {
+				constantPool.writeByte(tag);
+				switch (tag) {
+					case CONSTANT_INTEGER:
+						constantPool.writeInt((int)value);
+						break;
+					case CONSTANT_LONG:
+						constantPool.writeLong(value);
+						break;
+					case CONSTANT_CLASS:
+					case CONSTANT_STRING:
+						constantPool.writeShort((int)value);
+						break;
+					default:
+						constantPool.writeInt((int)value);
+						break;
+				}
+			} catch (IOException e) {
+				throw new VirtualMachineException("not written constant = " + value);
+			}
+			index = new Integer(constantCount);
+			// A long constant takes two entries
+			constantCount += tag == CONSTANT_LONG ? 2 : 1;
+			constantIndexes.put(key, index);
+		}
+		return index.intValue();
+	}
+
+	private void writeByte(final int value) {
+		if (codeLength == code.length) {
+			byte[] newCode = new byte[code.length * 2];
+			System.arraycopy(code, 0, newCode, 0, codeLength);
+			code = newCode;
+		}
+		code[codeLength++] = (byte)value;
+	}
+
+	private void writeShort(final int value) {
+		writeByte(value >> 8);
+		writeByte(value);
+	}
+
+	private void writeInt(final int value) {
+		writeShort(value >> 16);
+		writeShort(value);
+	}
+
+	private static int[] grow(final int[] array) {
+		int[] newArray = new int[array.length * 2];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+}
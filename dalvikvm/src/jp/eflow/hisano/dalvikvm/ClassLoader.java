@@ -23,6 +23,7 @@
 
 package jp.eflow.hisano.dalvikvm;
 
+import java.util.Enumeration;
 import java.util.Hashtable;
 
 final class ClassLoader {
@@ -67,6 +68,7 @@ final class ClassLoader {
 	private final VirtualMachine vm;
 	private final Thread loadThread;
 	private final Hashtable classes = new Hashtable();
+	private int nextInterfaceId;
 
 	ClassLoader(final VirtualMachine vm) {
 		this.vm = vm;
@@ -74,18 +76,16 @@ final class ClassLoader {
 	}
 
 	Clazz loadClass(final String name) {
-		Clazz clazz;
-		if (classes.containsKey(name)) {
-			clazz = (Clazz)classes.get(name);
-		} else {
-			clazz = findClass(name);
-			if (clazz == null) {
-				return null;
-			}
-			classes.put(name, clazz);
+		Clazz clazz = findLoadedClass(name);
+		if (clazz == null) {
+			return null;
 		}
 		if (!clazz.binded) {
 			clazz.binded = true;
+			clazz.link();
+			if (clazz.verifyError != null) {
+				throw new VerifyError(clazz.verifyError);
+			}
 			Method clinit = clazz.getDirectMethod("<clinit>", "()V");
 			if (clinit != null) {
 				Frame frame = loadThread.pushFrame();
@@ -98,10 +98,35 @@ final class ClassLoader {
 					vm.error(e);
 				}
 			}
+		} else if (clazz.verifyError != null) {
+			throw new VerifyError(clazz.verifyError);
+		}
+		return clazz;
+	}
+
+	// Find a class without initializing it
+	Clazz findLoadedClass(final String name) {
+		if (name == null) {
+			return null;
+		}
+		Clazz clazz = (Clazz)classes.get(name);
+		if (clazz == null) {
+			clazz = findClass(name);
+			if (clazz != null) {
+				classes.put(name, clazz);
+			}
 		}
 		return clazz;
 	}
 
+	int newInterfaceId() {
+		return nextInterfaceId++;
+	}
+
+	Enumeration getClasses() {
+		return classes.elements();
+	}
+
 	protected Clazz findClass(final String name) {
 		return null;
 	}
@@ -125,6 +150,8 @@ final class ClassLoader {
 	private String[] methodTypes;
 	private String[] methodNames;
 
+	private DexCache dexCache;
+
 	void loadClasses(final byte[] dexFileContent) {
 		synchronized (loadClassesMutex) {
 			this.dexFileContent = dexFileContent;
@@ -148,6 +175,18 @@ final class ClassLoader {
 			readDescriptors();
 			readFields();
 			readMethods();
+
+			dexCache = new DexCache(this, types.length, fieldNames.length, methodNames.length);
+			dexCache.strings = strings;
+			dexCache.types = types;
+			dexCache.descriptors = descriptors;
+			dexCache.fieldClasses = fieldClasses;
+			dexCache.fieldTypes = fieldTypes;
+			dexCache.fieldNames = fieldNames;
+			dexCache.methodClasses = methodClasses;
+			dexCache.methodTypes = methodTypes;
+			dexCache.methodNames = methodNames;
+
 			readClassContents();
 		}
 	}
@@ -163,7 +202,8 @@ final class ClassLoader {
 				clazz.name = fromTypeToClassName(types[readUInt()]);
 
 				clazz.flag = readUInt();
-				clazz.isInterface = ((clazz.flag & ACC_INTERFACE) != 0) | ((clazz.flag & ACC_ABSTRACT) != 0);
+				// The abstract classes are the superclasses in Clazz#superClazzes, and only the interfaces get the interface ids and the itables
+				clazz.isInterface = (clazz.flag & ACC_INTERFACE) != 0;
 
 				int superClassIndex = readUInt();
 				if (hasNoValue(superClassIndex)) {
@@ -207,6 +247,7 @@ final class ClassLoader {
 						Field field = staticFields[j];
 						clazz.staticFieldMap.put(field.name, field);
 					}
+					clazz.initStaticFields();
 					clazz.instanceFields = instanceFields;
 					clazz.directMethods = directMethods;
 					clazz.virtualMethods = virtualMethods;
@@ -220,35 +261,35 @@ final class ClassLoader {
 
 					int length = readULEB128();
 					for (int j = 0; j < length; j++) {
-						Field staticField = clazz.staticFields[j];
+						int slot = clazz.staticFields[j].slot;
 
 						int data = readUByte();
 						int valueType = data & 0x1F;
 						int valueArgument = data >> 5;
 						switch (valueType) {
 							case VALUE_BYTE:
-								staticField.intValue = readByte();
+								clazz.staticIntFields[slot] = readByte();
 								break;
 							case VALUE_CHAR:
-								staticField.intValue = (char)readValueByTypeArgument(valueArgument);
+								clazz.staticIntFields[slot] = (char)readValueByTypeArgument(valueArgument);
 								break;
 							case VALUE_SHORT:
-								staticField.intValue = (short)readValueByTypeArgument(valueArgument);
+								clazz.staticIntFields[slot] = (short)readValueByTypeArgument(valueArgument);
 								break;
 							case VALUE_INT:
-								staticField.intValue = (int)readValueByTypeArgument(valueArgument);
+								clazz.staticIntFields[slot] = (int)readValueByTypeArgument(valueArgument);
 								break;
 							case VALUE_LONG:
-								staticField.longValue = (long)readValueByTypeArgument(valueArgument);
+								Utils.setLong(clazz.staticIntFields, slot, (long)readValueByTypeArgument(valueArgument));
 								break;
 							case VALUE_STRING:
-								staticField.objectValue = strings[(int)readValueByTypeArgument(valueArgument)];
+								clazz.staticObjectFields[slot] = strings[(int)readValueByTypeArgument(valueArgument)];
 								break;
 							case VALUE_NULL:
-								staticField.objectValue = null;
+								clazz.staticObjectFields[slot] = null;
 								break;
 							case VALUE_BOOLEAN:
-								staticField.intValue = valueArgument;
+								clazz.staticIntFields[slot] = valueArgument;
 								break;
 							default:
 								throw new VirtualMachineException("not supported value type: 0x" + Integer.toHexString(valueType));
@@ -285,22 +326,12 @@ final class ClassLoader {
 			}
 			Method method = new Method(clazz);
 
-			method.strings = strings;
-			method.types = types;
-
-			method.descriptors = descriptors;
-
-			method.fieldClasses = fieldClasses;
-			method.fieldTypes = fieldTypes;
-			method.fieldNames = fieldNames;
-
-			method.methodClasses = methodClasses;
-			method.methodTypes = methodTypes;
-			method.methodNames = methodNames;
+			method.dexCache = dexCache;
 
 			method.flag = readULEB128();
 			method.isInstance = (method.flag & ACC_STATIC) == 0;
 			method.isSynchronized = (method.flag & ACC_SYNCHRONIZED) != 0;
+			method.isAbstract = (method.flag & ACC_ABSTRACT) != 0;
 
 			method.name = methodNames[methodIndex];
 			method.descriptor = methodTypes[methodIndex];
@@ -317,15 +348,12 @@ final class ClassLoader {
 				int debugInfoOffset = readUInt();
 
 				int codeLength = readUInt();
-				int[] lowerCodes = method.lowerCodes = new int[codeLength];
-				int[] upperCodes = method.upperCodes = new int[codeLength];
 				int[] codes = method.codes = new int[codeLength];
 				for (int j = 0; j < codeLength; j++) {
-					int data = readUShort();
-					lowerCodes[j] = data & 0xFF;
-					upperCodes[j] = data >> 8;
-					codes[j] = data;
+					codes[j] = readUShort();
 				}
+				InstructionDecoder.decode(method);
+				int[] indexes = method.indexes;
 				if (codeLength % 2 != 0 && tryItemCount != 0) {
 					skip("padding", 2);
 				}
@@ -335,8 +363,9 @@ final class ClassLoader {
 				int[] exceptionHandlerIndex = method.exceptionHandlerIndexes = new int[tryItemCount];
 				if (tryItemCount != 0) {
 					for (int j = 0; j < tryItemCount; j++) {
-						int startAddress = exceptionStartAddresses[j] = readUInt();
-						exceptionEndAddresses[j] = startAddress + readUShort();
+						int startAddress = readUInt();
+						exceptionStartAddresses[j] = indexes[startAddress];
+						exceptionEndAddresses[j] = indexes[startAddress + readUShort()];
 						exceptionHandlerIndex[j] = readUShort();
 					}
 
@@ -360,12 +389,23 @@ final class ClassLoader {
 							exceptionHandlerAddresses[j] = new int[handlerCount];
 						}
 						for (int k = 0, k_length = Math.abs(handlerCount); k < k_length; k++) {
-							exceptionHandlerTypes[j][k] = toDotSeparatorClassName(types[readULEB128()]);
-							exceptionHandlerAddresses[j][k] = readULEB128();
+							exceptionHandlerTypes[j][k] = types[readULEB128()];
+							exceptionHandlerAddresses[j][k] = indexes[readULEB128()];
 						}
 						if (handlerCount <= 0) {
-							exceptionHandlerTypes[j][-handlerCount] = "java.lang.Throwable";
-							exceptionHandlerAddresses[j][-handlerCount] = readULEB128();
+							exceptionHandlerTypes[j][-handlerCount] = "Ljava/lang/Throwable;";
+							exceptionHandlerAddresses[j][-handlerCount] = indexes[readULEB128()];
+						}
+					}
+					method.exceptionHandlerClasses = new Class[listCount][];
+
+					int[] instructionHandlerIndexes = method.instructionHandlerIndexes = new int[method.opcodes.length];
+					for (int j = 0; j < instructionHandlerIndexes.length; j++) {
+						instructionHandlerIndexes[j] = -1;
+					}
+					for (int j = 0; j < tryItemCount; j++) {
+						for (int k = exceptionStartAddresses[j], k_length = exceptionEndAddresses[j]; k < k_length; k++) {
+							instructionHandlerIndexes[k] = exceptionHandlerIndex[j];
 						}
 					}
 				}
@@ -377,10 +417,6 @@ final class ClassLoader {
 		}
 	}
 
-	private static String toDotSeparatorClassName(final String slashSeparatorClassName) {
-		return slashSeparatorClassName.substring(1, slashSeparatorClassName.length() - 1).replace('/', '.');
-	}
-
 	private void readFields(final Clazz clazz, final Field[] fields, final boolean isInstance) {
 		int fieldIndex = 0;
 		for (int i = 0, length = fields.length; i < length; i++) {
@@ -24,6 +24,7 @@
 package jp.eflow.hisano.dalvikvm;
 
 import java.util.Hashtable;
+import java.util.Vector;
 
 final class Clazz {
 	final ClassLoader classLoader;
@@ -36,13 +37,35 @@ final class Clazz {
 	String[] interfaces;
 
 	Field[] instanceFields;
+	// The number of the instance field slots including the ones of the superclasses
+	int intFieldCount;
+	int objectFieldCount;
 	Field[] staticFields;
 	Hashtable staticFieldMap;
+	// The static fields indexed by Field#slot
+	int[] staticIntFields;
+	Object[] staticObjectFields;
 
 	Method[] directMethods;
 	Method[] virtualMethods;
 
+	// The virtual methods including the inherited ones indexed by Method#vtableIndex
+	Method[] vtable;
+	// The methods implementing the interfaces indexed by Method#vtableIndex of the interface methods
+	Clazz[] itableInterfaces;
+	Method[][] itables;
+
+	// The superclasses in this virtual machine from the root one to this class, indexed by the depth of each class
+	Clazz[] superClazzes;
+	// Assigned by ClassLoader to the interfaces only
+	int interfaceId;
+	// The bits indexed by interfaceId of this interface and itableInterfaces
+	int[] interfaceBits;
+
 	boolean binded;
+	boolean linked;
+	// The message of the method rejected by Verifier when this class is linked, or null. The methods of this class are never executed
+	String verifyError;
 
 	Clazz(final ClassLoader classLoader) {
 		this.classLoader = classLoader;
@@ -52,18 +75,209 @@ final class Clazz {
 		return (isInterface ? "interface " : "class ") + getName();
 	}
 
-	Method getVirtualMethod(final String name, final String descriptor) {
-		Clazz current = this;
-		do {
-			Method[] currentMethods = current.virtualMethods;
-			for (int i = 0, length = currentMethods.length; i < length; i++) {
-				Method method = currentMethods[i];
-				if (name.equals(method.name) && descriptor.equals(method.descriptor)) {
-					return method;
+	void link() {
+		if (linked) {
+			return;
+		}
+		linked = true;
+
+		verifyMethods(directMethods);
+		verifyMethods(virtualMethods);
+
+		// Assign the slots of the instance fields after the ones of the superclasses
+		int intSlot = 0;
+		int objectSlot = 0;
+		Clazz superClazz = classLoader.findLoadedClass(superClass);
+		if (superClazz != null) {
+			superClazz.link();
+			// The inherited methods of the rejected superclass are not executable either
+			if (verifyError == null) {
+				verifyError = superClazz.verifyError;
+			}
+			intSlot = superClazz.intFieldCount;
+			objectSlot = superClazz.objectFieldCount;
+		}
+		if (instanceFields != null) {
+			for (int i = 0, length = instanceFields.length; i < length; i++) {
+				Field field = instanceFields[i];
+				switch (Field.getKind(field.type)) {
+					case Field.KIND_WIDE:
+						// Stored as two ints like registers
+						field.slot = intSlot;
+						intSlot += 2;
+						break;
+					case Field.KIND_OBJECT:
+						field.slot = objectSlot++;
+						break;
+					default:
+						field.slot = intSlot++;
+						break;
 				}
 			}
-			current = classLoader.loadClass(current.superClass);
-		} while (current != null);
+		}
+		intFieldCount = intSlot;
+		objectFieldCount = objectSlot;
+
+		if (superClazz != null) {
+			Clazz[] superSuperClazzes = superClazz.superClazzes;
+			superClazzes = new Clazz[superSuperClazzes.length + 1];
+			System.arraycopy(superSuperClazzes, 0, superClazzes, 0, superSuperClazzes.length);
+		} else {
+			superClazzes = new Clazz[1];
+		}
+		superClazzes[superClazzes.length - 1] = this;
+
+		// Override the methods of the superclasses in the vtable
+		Vector methods = new Vector();
+		if (superClazz != null) {
+			Method[] superVtable = superClazz.vtable;
+			for (int i = 0, length = superVtable.length; i < length; i++) {
+				methods.addElement(superVtable[i]);
+			}
+		}
+		if (virtualMethods != null) {
+			for (int i = 0, length = virtualMethods.length; i < length; i++) {
+				Method method = virtualMethods[i];
+				int index = indexOf(methods, method.name, method.descriptor);
+				if (index < 0) {
+					index = methods.size();
+					methods.addElement(method);
+				} else {
+					InstructionQuickener.unbind((Method)methods.elementAt(index));
+					methods.setElementAt(method, index);
+				}
+				method.vtableIndex = index;
+			}
+		}
+		vtable = new Method[methods.size()];
+		methods.copyInto(vtable);
+
+		Vector interfaceList = new Vector();
+		if (superClazz != null) {
+			Clazz[] superInterfaces = superClazz.itableInterfaces;
+			for (int i = 0, length = superInterfaces.length; i < length; i++) {
+				interfaceList.addElement(superInterfaces[i]);
+			}
+		}
+		addInterfaces(interfaceList, interfaces);
+		itableInterfaces = new Clazz[interfaceList.size()];
+		interfaceList.copyInto(itableInterfaces);
+		if (isInterface) {
+			interfaceId = classLoader.newInterfaceId();
+		}
+		int maxInterfaceId = isInterface ? interfaceId : -1;
+		for (int i = 0; i < itableInterfaces.length; i++) {
+			maxInterfaceId = Math.max(maxInterfaceId, itableInterfaces[i].interfaceId);
+		}
+		interfaceBits = new int[(maxInterfaceId >> 5) + 1];
+		if (isInterface) {
+			interfaceBits[interfaceId >> 5] |= 1 << interfaceId;
+		}
+		for (int i = 0; i < itableInterfaces.length; i++) {
+			interfaceBits[itableInterfaces[i].interfaceId >> 5] |= 1 << itableInterfaces[i].interfaceId;
+		}
+
+		itables = new Method[itableInterfaces.length][];
+		for (int i = 0; i < itableInterfaces.length; i++) {
+			Method[] interfaceMethods = itableInterfaces[i].vtable;
+			Method[] itable = itables[i] = new Method[interfaceMethods.length];
+			for (int j = 0; j < itable.length; j++) {
+				// Null if the method is implemented by a class which is not in this virtual machine
+				int index = indexOf(methods, interfaceMethods[j].name, interfaceMethods[j].descriptor);
+				if (0 <= index) {
+					itable[j] = vtable[index];
+				}
+			}
+		}
+	}
+
+	// Verified when the class is linked first, so the classes which are never used are not verified.
+	// The other classes of the dex file are still usable after a method is rejected, and this class throws a VerifyError from ClassLoader#loadClass
+	private void verifyMethods(final Method[] methods) {
+		if (methods == null) {
+			return;
+		}
+		for (int i = 0, length = methods.length; i < length && verifyError == null; i++) {
+			if (methods[i].opcodes == null) {
+				// Abstract or native
+				continue;
+			}
+			try {
+				new Verifier(methods[i]).verify();
+			} catch (VirtualMachineException e) {
+				verifyError = e.getMessage();
+			}
+		}
+	}
+
+	// Check with the superclasses and interfaces of the linked classes without walking them
+	boolean isSubclassOf(final Clazz target) {
+		if (target.isInterface) {
+			int index = target.interfaceId >> 5;
+			return index < interfaceBits.length && (interfaceBits[index] & (1 << target.interfaceId)) != 0;
+		}
+		int depth = target.superClazzes.length - 1;
+		return depth < superClazzes.length && superClazzes[depth] == target;
+	}
+
+	private void addInterfaces(final Vector interfaceList, final String[] interfaceNames) {
+		if (interfaceNames == null) {
+			return;
+		}
+		for (int i = 0; i < interfaceNames.length; i++) {
+			Clazz interfaceClazz = classLoader.findLoadedClass(interfaceNames[i]);
+			if (interfaceClazz != null && !interfaceList.contains(interfaceClazz)) {
+				interfaceClazz.link();
+				interfaceList.addElement(interfaceClazz);
+				addInterfaces(interfaceList, interfaceClazz.interfaces);
+			}
+		}
+	}
+
+	private static int indexOf(final Vector methods, final String name, final String descriptor) {
+		for (int i = 0, length = methods.size(); i < length; i++) {
+			Method method = (Method)methods.elementAt(i);
+			if (name.equals(method.name) && descriptor.equals(method.descriptor)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	Method getVirtualMethod(final String name, final String descriptor) {
+		Method[] currentMethods = vtable;
+		for (int i = 0, length = currentMethods.length; i < length; i++) {
+			Method method = currentMethods[i];
+			if (name.equals(method.name) && descriptor.equals(method.descriptor)) {
+				return method;
+			}
+		}
+		return null;
+	}
+
+	// Find the method declared by this interface or its superinterfaces
+	Method getInterfaceMethod(final String name, final String descriptor) {
+		Method method = getVirtualMethod(name, descriptor);
+		if (method != null) {
+			return method;
+		}
+		for (int i = 0; i < itableInterfaces.length; i++) {
+			method = itableInterfaces[i].getVirtualMethod(name, descriptor);
+			if (method != null) {
+				return method;
+			}
+		}
+		return null;
+	}
+
+	// Find the method implementing the interface method with the itables
+	Method getInterfaceMethod(final Method method) {
+		Clazz[] currentInterfaces = itableInterfaces;
+		for (int i = 0, length = currentInterfaces.length; i < length; i++) {
+			if (currentInterfaces[i] == method.clazz) {
+				return itables[i][method.vtableIndex];
+			}
+		}
 		return null;
 	}
 
@@ -78,8 +292,57 @@ final class Clazz {
 		return null;
 	}
 
+	Field getInstanceField(final String name) {
+		Clazz current = this;
+		do {
+			Field[] currentFields = current.instanceFields;
+			if (currentFields != null) {
+				for (int i = 0, length = currentFields.length; i < length; i++) {
+					Field field = currentFields[i];
+					if (name.equals(field.name)) {
+						return field;
+					}
+				}
+			}
+			current = classLoader.loadClass(current.superClass);
+		} while (current != null);
+		return null;
+	}
+
+	void initStaticFields() {
+		int intSlot = 0;
+		int objectSlot = 0;
+		for (int i = 0, length = staticFields.length; i < length; i++) {
+			Field field = staticFields[i];
+			switch (Field.getKind(field.type)) {
+				case Field.KIND_WIDE:
+					field.slot = intSlot;
+					intSlot += 2;
+					break;
+				case Field.KIND_OBJECT:
+					field.slot = objectSlot++;
+					break;
+				default:
+					field.slot = intSlot++;
+					break;
+			}
+		}
+		staticIntFields = new int[intSlot];
+		staticObjectFields = new Object[objectSlot];
+	}
+
 	Field getStaticField(final String name) {
-		return (Field)staticFieldMap.get(name);
+		Clazz current = this;
+		do {
+			if (current.staticFieldMap != null) {
+				Field field = (Field)current.staticFieldMap.get(name);
+				if (field != null) {
+					return field;
+				}
+			}
+			current = classLoader.loadClass(current.superClass);
+		} while (current != null);
+		return null;
 	}
 
 	String getName() {
@@ -0,0 +1,1078 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm;
+
+import java.util.Vector;
+
+// Translate the instructions of a method into a JVM method, where the registers become local variables.
+// The instructions which call, return, allocate or synchronize are left to the interpreter,
+// and the generated method returns the index of such an instruction after writing back the registers into the frame.
+final class CodeGenerator {
+	static final String PACKAGE_NAME = "jp/eflow/hisano/dalvikvm/";
+
+	// HotSpot doesn't compile the methods larger than this by default
+	private static final int MAX_CODE_LENGTH = 8000;
+	// The entry points which lead to fewer instructions are not worth the cost of loading the registers
+	private static final int MIN_ENTRY_INSTRUCTIONS = 4;
+
+	private static final String COMPILED_CODE = PACKAGE_NAME + "CompiledCode";
+	private static final String FRAME = PACKAGE_NAME + "Frame";
+	private static final String INSTANCE = PACKAGE_NAME + "Instance";
+	private static final String UTILS = PACKAGE_NAME + "Utils";
+	private static final String VIRTUAL_MACHINE_EXCEPTION = PACKAGE_NAME + "VirtualMachineException";
+	private static final String OBJECT = "java/lang/Object";
+	private static final String OBJECT_ARRAY = "[Ljava/lang/Object;";
+
+	// The local variables of the generated method
+	private static final int LOCAL_FRAME = 1;
+	private static final int LOCAL_PC = 2;
+	// The instructions left in the time slice of the thread, which the backward branches are charged to
+	private static final int LOCAL_BUDGET = 3;
+	private static final int LOCAL_INT_REGISTERS = 4;
+	private static final int LOCAL_OBJECT_REGISTERS = 5;
+	private static final int LOCAL_LONG_REGISTERS = 6;
+	private static final int LOCAL_CONSTANTS = 7;
+	private static final int LOCAL_THROWABLE = 8;
+	// Each register takes an int, an object and a long local variable from here
+	private static final int LOCAL_REGISTERS = 9;
+	private static final int LOCALS_PER_REGISTER = 4;
+
+	// The register banks of Frame, in the order of their local variables
+	private static final int BANK_INT = 0;
+	private static final int BANK_OBJECT = 1;
+	private static final int BANK_LONG = 2;
+	private static final int BANK_COUNT = 3;
+	private static final int[] BANK_ARRAY_LOADS = { ClassFileWriter.IALOAD, ClassFileWriter.AALOAD, ClassFileWriter.LALOAD };
+	private static final int[] BANK_ARRAY_STORES = { ClassFileWriter.IASTORE, ClassFileWriter.AASTORE, ClassFileWriter.LASTORE };
+	private static final int[] BANK_LOCAL_LOADS = { ClassFileWriter.ILOAD, ClassFileWriter.ALOAD, ClassFileWriter.LLOAD };
+	private static final int[] BANK_LOCAL_STORES = { ClassFileWriter.ISTORE, ClassFileWriter.ASTORE, ClassFileWriter.LSTORE };
+
+	private static final int TYPE_INT = 0;
+	private static final int TYPE_LONG = 1;
+	private static final int TYPE_FLOAT = 2;
+	private static final int TYPE_DOUBLE = 3;
+
+	// The JVM operations of add, sub, mul, div, rem, and, or, xor, shl, shr and ushr for int, in the order of the Dalvik opcodes
+	private static final int[] ARITHMETIC_OPERATIONS = { 0x60, 0x64, 0x68, 0x6C, 0x70, 0x7E, 0x80, 0x82, 0x78, 0x7A, 0x7C };
+
+	private final Method method;
+	private final int[] opcodes;
+	private final int[] operandsA;
+	private final int[] operandsB;
+	private final int[] operandsC;
+	private final Object[] resolvedReferences;
+
+	private final ClassFileWriter writer = new ClassFileWriter();
+	private final Vector constants = new Vector();
+	private int[] entries;
+
+	private int[] labels;
+	private int[] backwardBranchLabels;
+	private int[] exitLabels;
+	// Indexed by the bank and the register
+	private boolean[][] isUsedRegister;
+	private boolean[][] isWrittenRegister;
+	private int spillLabel;
+
+	CodeGenerator(final Method method) {
+		this.method = method;
+		// The quickened instructions are rewritten under this lock
+		synchronized (method) {
+			opcodes = method.opcodes.clone();
+			operandsA = method.operandsA.clone();
+			operandsB = method.operandsB.clone();
+			operandsC = method.operandsC.clone();
+			resolvedReferences = method.resolvedReferences.clone();
+			if (method.compiledCode != null) {
+				// Recompile from the instructions the interpreter sees
+				method.compiledCode.restoreOpcodes(opcodes);
+			}
+		}
+	}
+
+	int[] getEntries() {
+		return entries;
+	}
+
+	Object[] getConstants() {
+		Object[] values = new Object[constants.size()];
+		constants.copyInto(values);
+		return values;
+	}
+
+	// Null if the method is not worth compiling
+	byte[] generate(final String className) {
+		int instructionCount = opcodes.length;
+		entries = selectEntries();
+		int entryCount = entries.length;
+		if (entryCount == 0) {
+			return null;
+		}
+
+		labels = new int[instructionCount];
+		backwardBranchLabels = new int[instructionCount];
+		exitLabels = new int[instructionCount];
+		for (int i = 0; i < instructionCount; i++) {
+			labels[i] = writer.newLabel();
+			backwardBranchLabels[i] = -1;
+			exitLabels[i] = -1;
+		}
+		isUsedRegister = new boolean[BANK_COUNT][method.registerCount];
+		isWrittenRegister = new boolean[BANK_COUNT][method.registerCount];
+		spillLabel = writer.newLabel();
+		int prologueLabel = writer.newLabel();
+		int bodyStartLabel = writer.newLabel();
+		int bodyEndLabel = writer.newLabel();
+		int handlerLabel = writer.newLabel();
+		int rethrowLabel = writer.newLabel();
+		int invalidEntryLabel = writer.newLabel();
+
+		// The prologue is placed at the end because it loads only the registers used by the body
+		writer.emitJump(ClassFileWriter.GOTO, prologueLabel);
+
+		writer.placeLabel(bodyStartLabel);
+		for (int i = 0; i < instructionCount; i++) {
+			writer.placeLabel(labels[i]);
+			if (isCompiled(opcodes[i])) {
+				emitInstruction(i);
+			} else {
+				emitExit(i);
+			}
+		}
+		// The last instruction never falls through
+		for (int i = 0; i < instructionCount; i++) {
+			if (backwardBranchLabels[i] != -1) {
+				writer.placeLabel(backwardBranchLabels[i]);
+				writer.emitIncrement(LOCAL_BUDGET, -1);
+				writer.emitLocal(ClassFileWriter.ILOAD, LOCAL_BUDGET);
+				writer.emitJump(ClassFileWriter.IFLE, getExitLabel(i));
+				writer.emitJump(ClassFileWriter.GOTO, labels[i]);
+			}
+		}
+		for (int i = 0; i < instructionCount; i++) {
+			if (exitLabels[i] != -1) {
+				writer.placeLabel(exitLabels[i]);
+				emitExit(i);
+			}
+		}
+		writer.placeLabel(bodyEndLabel);
+
+		// Write back the registers and return the index of the next instruction, or rethrow the throwable
+		writer.placeLabel(handlerLabel);
+		writer.emitLocal(ClassFileWriter.ASTORE, LOCAL_THROWABLE);
+		writer.placeLabel(spillLabel);
+		for (int bank = 0; bank < BANK_COUNT; bank++) {
+			for (int i = 0; i < method.registerCount; i++) {
+				if (isWrittenRegister[bank][i]) {
+					writer.emitLocal(ClassFileWriter.ALOAD, LOCAL_INT_REGISTERS + bank);
+					writer.pushInt(i);
+					writer.emitLocal(BANK_LOCAL_LOADS[bank], getLocal(bank, i));
+					writer.emit(BANK_ARRAY_STORES[bank]);
+				}
+			}
+		}
+		writer.emitLocal(ClassFileWriter.ALOAD, LOCAL_FRAME);
+		writer.emitLocal(ClassFileWriter.ILOAD, LOCAL_BUDGET);
+		writer.emitField(ClassFileWriter.PUTFIELD, FRAME, "remainingCount", "I");
+		writer.emitLocal(ClassFileWriter.ALOAD, LOCAL_THROWABLE);
+		writer.emitJump(ClassFileWriter.IFNONNULL, rethrowLabel);
+		writer.emitLocal(ClassFileWriter.ILOAD, LOCAL_PC);
+		writer.emit(ClassFileWriter.IRETURN);
+		writer.placeLabel(rethrowLabel);
+		// Point into the failed instruction to find its exception handler as the interpreter does
+		writer.emitLocal(ClassFileWriter.ALOAD, LOCAL_FRAME);
+		writer.emitLocal(ClassFileWriter.ILOAD, LOCAL_PC);
+		writer.pushInt(1);
+		writer.emit(ClassFileWriter.IADD);
+		writer.emitField(ClassFileWriter.PUTFIELD, FRAME, "pc", "I");
+		writer.emitLocal(ClassFileWriter.ALOAD, LOCAL_THROWABLE);
+		writer.emit(ClassFileWriter.ATHROW);
+
+		writer.placeLabel(prologueLabel);
+		emitFrameField("intRegisters", "[I", LOCAL_INT_REGISTERS);
+		emitFrameField("objectRegisters", OBJECT_ARRAY, LOCAL_OBJECT_REGISTERS);
+		emitFrameField("longRegisters", "[J", LOCAL_LONG_REGISTERS);
+		writer.emitLocal(ClassFileWriter.ALOAD, 0);
+		writer.emitField(ClassFileWriter.GETFIELD, COMPILED_CODE, "constants", OBJECT_ARRAY);
+		writer.emitLocal(ClassFileWriter.ASTORE, LOCAL_CONSTANTS);
+		writer.emit(ClassFileWriter.ACONST_NULL);
+		writer.emitLocal(ClassFileWriter.ASTORE, LOCAL_THROWABLE);
+		for (int bank = 0; bank < BANK_COUNT; bank++) {
+			for (int i = 0; i < method.registerCount; i++) {
+				if (isUsedRegister[bank][i]) {
+					writer.emitLocal(ClassFileWriter.ALOAD, LOCAL_INT_REGISTERS + bank);
+					writer.pushInt(i);
+					writer.emit(BANK_ARRAY_LOADS[bank]);
+					writer.emitLocal(BANK_LOCAL_STORES[bank], getLocal(bank, i));
+				}
+			}
+		}
+		int[] entryLabels = new int[entryCount];
+		for (int i = 0; i < entryCount; i++) {
+			entryLabels[i] = labels[entries[i]];
+		}
+		writer.emitLocal(ClassFileWriter.ILOAD, LOCAL_PC);
+		writer.emitLookupSwitch(invalidEntryLabel, entries, entryLabels);
+
+		writer.placeLabel(invalidEntryLabel);
+		writer.emitType(ClassFileWriter.NEW, VIRTUAL_MACHINE_EXCEPTION);
+		writer.emit(ClassFileWriter.DUP);
+		writer.pushString("not compiled entry = " + method);
+		writer.emitInvoke(ClassFileWriter.INVOKESPECIAL, VIRTUAL_MACHINE_EXCEPTION, "<init>", "(Ljava/lang/String;)V");
+		writer.emit(ClassFileWriter.ATHROW);
+
+		writer.addExceptionHandler(bodyStartLabel, bodyEndLabel, handlerLabel);
+
+		if (MAX_CODE_LENGTH < writer.getCodeLength()) {
+			return null;
+		}
+		return writer.toByteArray(className, COMPILED_CODE, "execute", "(L" + FRAME + ";II)I", 12, LOCAL_REGISTERS + method.registerCount * LOCALS_PER_REGISTER);
+	}
+
+	// The instructions the interpreter continues from after the left instructions, exception handlers and loop heads
+	private int[] selectEntries() {
+		int instructionCount = opcodes.length;
+		boolean[] isEntry = new boolean[instructionCount];
+		boolean[] isLoopHead = new boolean[instructionCount];
+		isEntry[0] = true;
+		for (int i = 0; i < instructionCount; i++) {
+			int opcode = opcodes[i];
+			if (!isCompiled(opcode)) {
+				if (i + 1 < instructionCount) {
+					isEntry[i + 1] = true;
+				}
+				continue;
+			}
+			switch (opcode) {
+				case 0x28:
+				case 0x29:
+				case 0x2A:
+					if (operandsA[i] <= i) {
+						isLoopHead[operandsA[i]] = true;
+					}
+					break;
+				case 0x32:
+				case 0x33:
+				case 0x34:
+				case 0x35:
+				case 0x36:
+				case 0x37:
+				case Verifier.IF_EQ_OBJECT:
+				case Verifier.IF_NE_OBJECT:
+					if (operandsC[i] <= i) {
+						isLoopHead[operandsC[i]] = true;
+					}
+					break;
+				case 0x38:
+				case 0x39:
+				case 0x3A:
+				case 0x3B:
+				case 0x3C:
+				case 0x3D:
+				case Verifier.IF_EQZ_OBJECT:
+				case Verifier.IF_NEZ_OBJECT:
+					if (operandsB[i] <= i) {
+						isLoopHead[operandsB[i]] = true;
+					}
+					break;
+			}
+		}
+		for (int i = 0; i + 1 < instructionCount; i++) {
+			if (isLoopHead[i] && !isCompiled(opcodes[i])) {
+				// The interpreted loop enters the compiled code just after the loop head instead
+				isLoopHead[i + 1] = true;
+			}
+		}
+		int[][] handlerAddresses = method.exceptionHandlerAddresses;
+		if (handlerAddresses != null) {
+			for (int i = 0; i < handlerAddresses.length; i++) {
+				for (int j = 0; j < handlerAddresses[i].length; j++) {
+					isEntry[handlerAddresses[i][j]] = true;
+				}
+			}
+		}
+
+		int[] entries = new int[instructionCount];
+		int entryCount = 0;
+		for (int i = 0; i < instructionCount; i++) {
+			if (!isCompiled(opcodes[i])) {
+				continue;
+			}
+			if (isLoopHead[i]) {
+				entries[entryCount++] = i;
+			} else if (isEntry[i]) {
+				int compiledCount = 0;
+				for (int j = i; j < instructionCount && compiledCount < MIN_ENTRY_INSTRUCTIONS && isCompiled(opcodes[j]); j++) {
+					compiledCount++;
+				}
+				if (compiledCount == MIN_ENTRY_INSTRUCTIONS) {
+					entries[entryCount++] = i;
+				}
+			}
+		}
+		int[] selectedEntries = new int[entryCount];
+		System.arraycopy(entries, 0, selectedEntries, 0, entryCount);
+		return selectedEntries;
+	}
+
+	static boolean isCompiled(final int opcode) {
+		if (0x00 <= opcode && opcode <= 0x0D) {
+			// nop, moves and move-results
+			return true;
+		} else if (0x12 <= opcode && opcode <= 0x1B) {
+			// constants
+			return true;
+		} else if (0x28 <= opcode && opcode <= Verifier.IF_NEZ_OBJECT) {
+			// branches and comparisons, including the object forms
+			return true;
+		} else if (0x44 <= opcode && opcode <= 0x51) {
+			// array operations
+			return true;
+		} else if (0x7B <= opcode && opcode <= 0xE8) {
+			// unary, binary and conversion operations, and static field quick operations
+			return true;
+		} else if (Verifier.AGET_INT <= opcode && opcode <= 0xF7) {
+			// array operations of the known types, and instance field quick operations
+			return true;
+		} else {
+			return opcode == 0x21;
+		}
+	}
+
+	private void emitInstruction(final int pc) {
+		int opcode = opcodes[pc];
+		int operandA = operandsA[pc];
+		int operandB = operandsB[pc];
+		int operandC = operandsC[pc];
+		switch (opcode) {
+			case 0x00:
+				// nop
+				break;
+			case 0x01:
+			case 0x02:
+			case 0x03:
+				// move vA, vB
+				loadInt(operandB);
+				storeInt(operandA);
+				break;
+			case 0x04:
+			case 0x05:
+			case 0x06:
+				// move-wide vA, vB
+				loadLong(operandB);
+				storeLong(operandA);
+				break;
+			case 0x07:
+			case 0x08:
+			case 0x09:
+				// move-object vA, vB
+				loadObject(operandB);
+				storeObject(operandA);
+				break;
+			case 0x0A:
+				// move-result vAA
+				loadFrameField("singleReturn", "I");
+				storeInt(operandA);
+				break;
+			case 0x0B:
+				// move-result-wide vAA
+				loadFrameField("doubleReturn", "J");
+				storeLong(operandA);
+				break;
+			case 0x0C:
+				// move-result-object vAA
+				loadFrameField("objectReturn", "L" + OBJECT + ";");
+				storeObject(operandA);
+				break;
+			case 0x0D:
+				// move-exception vAA
+				loadFrameField("throwableReturn", "Ljava/lang/Throwable;");
+				storeObject(operandA);
+				break;
+			case 0x12:
+			case 0x13:
+			case 0x14:
+			case 0x15:
+				// const vAA, #+BBBBBBBB, where 0 is also null
+				writer.pushInt(operandB);
+				storeInt(operandA);
+				if (operandB == 0) {
+					writer.emit(ClassFileWriter.ACONST_NULL);
+					storeObject(operandA);
+				}
+				break;
+			case 0x16:
+			case 0x17:
+				// const-wide/32 vAA, #+BBBBBBBB
+				writer.pushLong(operandB);
+				storeLong(operandA);
+				break;
+			case 0x18:
+				// const-wide vAA, #+BBBBBBBBBBBBBBBB
+				writer.pushLong(((long)operandC << 32) | (operandB & 0xFFFFFFFFL));
+				storeLong(operandA);
+				break;
+			case 0x19:
+				// const-wide/high16 vAA, #+BBBB000000000000
+				writer.pushLong((long)operandB << 32);
+				storeLong(operandA);
+				break;
+			case 0x1A:
+			case 0x1B:
+				// const-string vAA, string@BBBBBBBB
+				loadConstant(method.dexCache.strings[operandB]);
+				storeObject(operandA);
+				break;
+			case 0x21:
+				// array-length vA, vB
+				storePc(pc);
+				loadObject(operandB);
+				writer.emitInvoke(ClassFileWriter.INVOKESTATIC, COMPILED_CODE, "getArrayLength", "(L" + OBJECT + ";)I");
+				storeInt(operandA);
+				break;
+			case 0x28:
+			case 0x29:
+			case 0x2A:
+				// goto +AAAAAAAA
+				emitBranch(ClassFileWriter.GOTO, pc, operandA);
+				break;
+			case 0x2B:
+			case 0x2C:
+				// packed-switch vAA, +BBBBBBBB and sparse-switch vAA, +BBBBBBBB
+				emitSwitch(pc);
+				break;
+			case 0x2D:
+			case 0x2E:
+				// cmpl-float vAA, vBB, vCC and cmpg-float vAA, vBB, vCC
+				loadValue(TYPE_FLOAT, operandB);
+				loadValue(TYPE_FLOAT, operandC);
+				writer.emit(opcode == 0x2D ? ClassFileWriter.FCMPL : ClassFileWriter.FCMPG);
+				storeInt(operandA);
+				break;
+			case 0x2F:
+			case 0x30:
+				// cmpl-double vAA, vBB, vCC and cmpg-double vAA, vBB, vCC
+				loadValue(TYPE_DOUBLE, operandB);
+				loadValue(TYPE_DOUBLE, operandC);
+				writer.emit(opcode == 0x2F ? ClassFileWriter.DCMPL : ClassFileWriter.DCMPG);
+				storeInt(operandA);
+				break;
+			case 0x31:
+				// cmp-long vAA, vBB, vCC
+				loadValue(TYPE_LONG, operandB);
+				loadValue(TYPE_LONG, operandC);
+				writer.emit(ClassFileWriter.LCMP);
+				storeInt(operandA);
+				break;
+			case 0x32:
+			case 0x33:
+				// if-eq vA, vB, +CCCC and if-ne vA, vB, +CCCC
+				loadInt(operandA);
+				loadInt(operandB);
+				emitBranch(opcode == 0x32 ? ClassFileWriter.IF_ICMPEQ : ClassFileWriter.IF_ICMPNE, pc, operandC);
+				break;
+			case 0x34:
+			case 0x35:
+			case 0x36:
+			case 0x37:
+				// if-lt, if-ge, if-gt and if-le vA, vB, +CCCC
+				loadInt(operandA);
+				loadInt(operandB);
+				emitBranch(ClassFileWriter.IF_ICMPLT + opcode - 0x34, pc, operandC);
+				break;
+			case 0x38:
+			case 0x39:
+				// if-eqz vAA, +BBBB and if-nez vAA, +BBBB
+				loadInt(operandA);
+				emitBranch(opcode == 0x38 ? ClassFileWriter.IFEQ : ClassFileWriter.IFNE, pc, operandB);
+				break;
+			case 0x3A:
+			case 0x3B:
+			case 0x3C:
+			case 0x3D:
+				// if-ltz, if-gez, if-gtz and if-lez vAA, +BBBB
+				loadInt(operandA);
+				emitBranch(ClassFileWriter.IFLT + opcode - 0x3A, pc, operandB);
+				break;
+			case Verifier.IF_EQ_OBJECT:
+			case Verifier.IF_NE_OBJECT:
+				// if-eq vA, vB, +CCCC and if-ne vA, vB, +CCCC of the objects
+				loadObject(operandA);
+				loadObject(operandB);
+				emitBranch(opcode == Verifier.IF_EQ_OBJECT ? ClassFileWriter.IF_ACMPEQ : ClassFileWriter.IF_ACMPNE, pc, operandC);
+				break;
+			case Verifier.IF_EQZ_OBJECT:
+			case Verifier.IF_NEZ_OBJECT:
+				// if-eqz vAA, +BBBB and if-nez vAA, +BBBB of the object
+				loadObject(operandA);
+				emitBranch(opcode == Verifier.IF_EQZ_OBJECT ? ClassFileWriter.IFNULL : ClassFileWriter.IFNONNULL, pc, operandB);
+				break;
+			case 0x44:
+				// aget vAA, vBB, vCC
+				storePc(pc);
+				loadObject(operandB);
+				loadInt(operandC);
+				writer.emitInvoke(ClassFileWriter.INVOKESTATIC, COMPILED_CODE, "getInt", "(L" + OBJECT + ";I)I");
+				storeInt(operandA);
+				break;
+			case 0x45:
+				// aget-wide vAA, vBB, vCC
+				storePc(pc);
+				loadObject(operandB);
+				loadInt(operandC);
+				writer.emitInvoke(ClassFileWriter.INVOKESTATIC, COMPILED_CODE, "getLong", "(L" + OBJECT + ";I)J");
+				storeLong(operandA);
+				break;
+			case 0x46:
+				// aget-object vAA, vBB, vCC
+				emitArrayGet(pc, OBJECT_ARRAY, ClassFileWriter.AALOAD);
+				storeObject(operandA);
+				break;
+			case 0x47:
+				// aget-boolean vAA, vBB, vCC
+				emitArrayGet(pc, "[Z", ClassFileWriter.BALOAD);
+				storeInt(operandA);
+				break;
+			case 0x48:
+				// aget-byte vAA, vBB, vCC
+				emitArrayGet(pc, "[B", ClassFileWriter.BALOAD);
+				storeInt(operandA);
+				break;
+			case 0x49:
+				// aget-char vAA, vBB, vCC
+				emitArrayGet(pc, "[C", ClassFileWriter.CALOAD);
+				storeInt(operandA);
+				break;
+			case 0x4A:
+				// aget-short vAA, vBB, vCC
+				emitArrayGet(pc, "[S", ClassFileWriter.SALOAD);
+				storeInt(operandA);
+				break;
+			case 0x4B:
+				// aput vAA, vBB, vCC
+				storePc(pc);
+				loadObject(operandB);
+				loadInt(operandC);
+				loadInt(operandA);
+				writer.emitInvoke(ClassFileWriter.INVOKESTATIC, COMPILED_CODE, "setInt", "(L" + OBJECT + ";II)V");
+				break;
+			case 0x4C:
+				// aput-wide vAA, vBB, vCC
+				storePc(pc);
+				loadObject(operandB);
+				loadInt(operandC);
+				loadValue(TYPE_LONG, operandA);
+				writer.emitInvoke(ClassFileWriter.INVOKESTATIC, COMPILED_CODE, "setLong", "(L" + OBJECT + ";IJ)V");
+				break;
+			case 0x4D:
+				// aput-object vAA, vBB, vCC
+				emitArrayIndex(pc, OBJECT_ARRAY);
+				loadObject(operandA);
+				writer.emit(ClassFileWriter.AASTORE);
+				break;
+			case 0x4E: {
+				// aput-boolean vAA, vBB, vCC
+				emitArrayIndex(pc, "[Z");
+				int falseLabel = writer.newLabel();
+				int endLabel = writer.newLabel();
+				loadInt(operandA);
+				writer.emitJump(ClassFileWriter.IFEQ, falseLabel);
+				writer.pushInt(1);
+				writer.emitJump(ClassFileWriter.GOTO, endLabel);
+				writer.placeLabel(falseLabel);
+				writer.pushInt(0);
+				writer.placeLabel(endLabel);
+				writer.emit(ClassFileWriter.BASTORE);
+				break;
+			}
+			case 0x4F:
+				// aput-byte vAA, vBB, vCC
+				emitArrayIndex(pc, "[B");
+				loadInt(operandA);
+				writer.emit(ClassFileWriter.BASTORE);
+				break;
+			case 0x50:
+				// aput-char vAA, vBB, vCC
+				emitArrayIndex(pc, "[C");
+				loadInt(operandA);
+				writer.emit(ClassFileWriter.CASTORE);
+				break;
+			case 0x51:
+				// aput-short vAA, vBB, vCC
+				emitArrayIndex(pc, "[S");
+				loadInt(operandA);
+				writer.emit(ClassFileWriter.SASTORE);
+				break;
+			case Verifier.AGET_INT:
+				// aget vAA, vBB, vCC of int[]
+				emitArrayGet(pc, "[I", ClassFileWriter.IALOAD);
+				storeValue(TYPE_INT, operandA);
+				break;
+			case Verifier.AGET_FLOAT:
+				// aget vAA, vBB, vCC of float[]
+				emitArrayGet(pc, "[F", ClassFileWriter.FALOAD);
+				storeValue(TYPE_FLOAT, operandA);
+				break;
+			case Verifier.AGET_LONG:
+				// aget-wide vAA, vBB, vCC of long[]
+				emitArrayGet(pc, "[J", ClassFileWriter.LALOAD);
+				storeValue(TYPE_LONG, operandA);
+				break;
+			case Verifier.AGET_DOUBLE:
+				// aget-wide vAA, vBB, vCC of double[]
+				emitArrayGet(pc, "[D", ClassFileWriter.DALOAD);
+				storeValue(TYPE_DOUBLE, operandA);
+				break;
+			case Verifier.APUT_INT:
+				// aput vAA, vBB, vCC of int[]
+				emitArrayIndex(pc, "[I");
+				loadValue(TYPE_INT, operandA);
+				writer.emit(ClassFileWriter.IASTORE);
+				break;
+			case Verifier.APUT_FLOAT:
+				// aput vAA, vBB, vCC of float[]
+				emitArrayIndex(pc, "[F");
+				loadValue(TYPE_FLOAT, operandA);
+				writer.emit(ClassFileWriter.FASTORE);
+				break;
+			case Verifier.APUT_LONG:
+				// aput-wide vAA, vBB, vCC of long[]
+				emitArrayIndex(pc, "[J");
+				loadValue(TYPE_LONG, operandA);
+				writer.emit(ClassFileWriter.LASTORE);
+				break;
+			case Verifier.APUT_DOUBLE:
+				// aput-wide vAA, vBB, vCC of double[]
+				emitArrayIndex(pc, "[D");
+				loadValue(TYPE_DOUBLE, operandA);
+				writer.emit(ClassFileWriter.DASTORE);
+				break;
+			case 0x7B:
+				// neg-int vA, vB
+				emitUnaryOperation(TYPE_INT, ClassFileWriter.INEG, operandA, operandB);
+				break;
+			case 0x7C:
+				// not-int vA, vB
+				loadInt(operandB);
+				writer.pushInt(-1);
+				writer.emit(ClassFileWriter.IXOR);
+				storeInt(operandA);
+				break;
+			case 0x7D:
+				// neg-long vA, vB
+				emitUnaryOperation(TYPE_LONG, ClassFileWriter.LNEG, operandA, operandB);
+				break;
+			case 0x7E:
+				// not-long vA, vB
+				loadValue(TYPE_LONG, operandB);
+				writer.pushLong(-1);
+				writer.emit(ClassFileWriter.LXOR);
+				storeLong(operandA);
+				break;
+			case 0x7F:
+				// neg-float vA, vB
+				emitUnaryOperation(TYPE_FLOAT, ClassFileWriter.FNEG, operandA, operandB);
+				break;
+			case 0x80:
+				// neg-double vA, vB
+				emitUnaryOperation(TYPE_DOUBLE, ClassFileWriter.DNEG, operandA, operandB);
+				break;
+			case 0x81:
+			case 0x82:
+			case 0x83:
+			case 0x84:
+			case 0x85:
+			case 0x86:
+			case 0x87:
+			case 0x88:
+			case 0x89:
+			case 0x8A:
+			case 0x8B:
+			case 0x8C:
+			case 0x8D:
+			case 0x8E:
+			case 0x8F:
+				// primitive conversions, whose JVM opcodes are in the same order
+				emitConversion(opcode, operandA, operandB);
+				break;
+			case 0xE3:
+				// sget-quick vAA, slot@BBBB
+				loadStaticFields(pc, "[I");
+				writer.pushInt(operandB);
+				writer.emit(ClassFileWriter.IALOAD);
+				storeInt(operandA);
+				break;
+			case 0xE4:
+				// sget-wide-quick vAA, slot@BBBB
+				loadStaticFields(pc, "[I");
+				writer.pushInt(operandB);
+				writer.emitInvoke(ClassFileWriter.INVOKESTATIC, UTILS, "getLong", "([II)J");
+				storeLong(operandA);
+				break;
+			case 0xE5:
+				// sget-object-quick vAA, slot@BBBB
+				loadStaticFields(pc, OBJECT_ARRAY);
+				writer.pushInt(operandB);
+				writer.emit(ClassFileWriter.AALOAD);
+				storeObject(operandA);
+				break;
+			case 0xE6:
+				// sput-quick vAA, slot@BBBB
+				loadStaticFields(pc, "[I");
+				writer.pushInt(operandB);
+				loadInt(operandA);
+				writer.emit(ClassFileWriter.IASTORE);
+				break;
+			case 0xE7:
+				// sput-wide-quick vAA, slot@BBBB
+				loadStaticFields(pc, "[I");
+				writer.pushInt(operandB);
+				loadLong(operandA);
+				writer.emitInvoke(ClassFileWriter.INVOKESTATIC, UTILS, "setLong", "([IIJ)V");
+				break;
+			case 0xE8:
+				// sput-object-quick vAA, slot@BBBB
+				loadStaticFields(pc, OBJECT_ARRAY);
+				writer.pushInt(operandB);
+				loadObject(operandA);
+				writer.emit(ClassFileWriter.AASTORE);
+				break;
+			case 0xF2:
+				// iget-quick vA, vB, slot@CCCC
+				loadInstanceFields(pc, "intFields", "[I");
+				writer.pushInt(operandC);
+				writer.emit(ClassFileWriter.IALOAD);
+				storeInt(operandA);
+				break;
+			case 0xF3:
+				// iget-wide-quick vA, vB, slot@CCCC
+				loadInstanceFields(pc, "intFields", "[I");
+				writer.pushInt(operandC);
+				writer.emitInvoke(ClassFileWriter.INVOKESTATIC, UTILS, "getLong", "([II)J");
+				storeLong(operandA);
+				break;
+			case 0xF4:
+				// iget-object-quick vA, vB, slot@CCCC
+				loadInstanceFields(pc, "objectFields", OBJECT_ARRAY);
+				writer.pushInt(operandC);
+				writer.emit(ClassFileWriter.AALOAD);
+				storeObject(operandA);
+				break;
+			case 0xF5:
+				// iput-quick vA, vB, slot@CCCC
+				loadInstanceFields(pc, "intFields", "[I");
+				writer.pushInt(operandC);
+				loadInt(operandA);
+				writer.emit(ClassFileWriter.IASTORE);
+				break;
+			case 0xF6:
+				// iput-wide-quick vA, vB, slot@CCCC
+				loadInstanceFields(pc, "intFields", "[I");
+				writer.pushInt(operandC);
+				loadLong(operandA);
+				writer.emitInvoke(ClassFileWriter.INVOKESTATIC, UTILS, "setLong", "([IIJ)V");
+				break;
+			case 0xF7:
+				// iput-object-quick vA, vB, slot@CCCC
+				loadInstanceFields(pc, "objectFields", OBJECT_ARRAY);
+				writer.pushInt(operandC);
+				loadObject(operandA);
+				writer.emit(ClassFileWriter.AASTORE);
+				break;
+			default:
+				if (0x90 <= opcode && opcode <= 0xAF) {
+					// binop vAA, vBB, vCC
+					emitBinaryOperation(opcode - 0x90, pc, operandA, operandB, operandC);
+				} else if (0xB0 <= opcode && opcode <= 0xCF) {
+					// binop/2addr vA, vB
+					emitBinaryOperation(opcode - 0xB0, pc, operandA, operandA, operandB);
+				} else if (0xD0 <= opcode && opcode <= 0xE2) {
+					// binop/lit16 vA, vB, #+CCCC and binop/lit8 vAA, vBB, #+CC
+					emitLiteralOperation(opcode < 0xD8 ? opcode - 0xD0 : opcode - 0xD8, pc, operandA, operandB, operandC);
+				} else {
+					throw new VirtualMachineException("not compiled instruction: 0x" + Integer.toHexString(opcode));
+				}
+				break;
+		}
+	}
+
+	// The operation is the offset from add-int in the order of the Dalvik opcodes
+	private void emitBinaryOperation(final int operation, final int pc, final int destination, final int first, final int second) {
+		int type;
+		int index;
+		if (operation < 11) {
+			type = TYPE_INT;
+			index = operation;
+		} else if (operation < 22) {
+			type = TYPE_LONG;
+			index = operation - 11;
+		} else if (operation < 27) {
+			type = TYPE_FLOAT;
+			index = operation - 22;
+		} else {
+			type = TYPE_DOUBLE;
+			index = operation - 27;
+		}
+		if (index == 3 || index == 4) {
+			// div and rem may throw ArithmeticException
+			storePc(pc);
+		}
+		loadValue(type, first);
+		if (8 <= index) {
+			// The shift distance is an int
+			loadInt(second);
+		} else {
+			loadValue(type, second);
+		}
+		int operationCode = ARITHMETIC_OPERATIONS[index];
+		if (index < 5) {
+			writer.emit(operationCode + type);
+		} else {
+			// and, or, xor and the shifts have only the int and long forms
+			writer.emit(operationCode + (type == TYPE_LONG ? 1 : 0));
+		}
+		storeValue(type, destination);
+	}
+
+	// The operation is add, rsub, mul, div, rem, and, or, xor, shl, shr or ushr
+	private void emitLiteralOperation(final int operation, final int pc, final int destination, final int first, final int literal) {
+		if (operation == 3 || operation == 4) {
+			storePc(pc);
+		}
+		if (operation == 1) {
+			writer.pushInt(literal);
+			loadInt(first);
+			writer.emit(ClassFileWriter.ISUB);
+		} else {
+			loadInt(first);
+			writer.pushInt(literal);
+			writer.emit(ARITHMETIC_OPERATIONS[operation]);
+		}
+		storeInt(destination);
+	}
+
+	private void emitUnaryOperation(final int type, final int operationCode, final int destination, final int source) {
+		loadValue(type, source);
+		writer.emit(operationCode);
+		storeValue(type, destination);
+	}
+
+	private void emitConversion(final int opcode, final int destination, final int source) {
+		int sourceType;
+		int destinationType;
+		if (opcode <= 0x83) {
+			sourceType = TYPE_INT;
+			destinationType = opcode == 0x81 ? TYPE_LONG : opcode == 0x82 ? TYPE_FLOAT : TYPE_DOUBLE;
+		} else if (opcode <= 0x86) {
+			sourceType = TYPE_LONG;
+			destinationType = opcode == 0x84 ? TYPE_INT : opcode == 0x85 ? TYPE_FLOAT : TYPE_DOUBLE;
+		} else if (opcode <= 0x89) {
+			sourceType = TYPE_FLOAT;
+			destinationType = opcode == 0x87 ? TYPE_INT : opcode == 0x88 ? TYPE_LONG : TYPE_DOUBLE;
+		} else if (opcode <= 0x8C) {
+			sourceType = TYPE_DOUBLE;
+			destinationType = opcode == 0x8A ? TYPE_INT : opcode == 0x8B ? TYPE_LONG : TYPE_FLOAT;
+		} else {
+			// int-to-byte, int-to-char and int-to-short
+			sourceType = TYPE_INT;
+			destinationType = TYPE_INT;
+		}
+		loadValue(sourceType, source);
+		writer.emit(opcode + ClassFileWriter.I2L - 0x81);
+		storeValue(destinationType, destination);
+	}
+
+	private void emitSwitch(final int pc) {
+		SwitchTable table = (SwitchTable)resolvedReferences[pc];
+		int size = table.targets.length;
+		int[] keys = new int[size];
+		int[] targetLabels = new int[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = table.getKey(i);
+			targetLabels[i] = getBranchLabel(pc, table.targets[i]);
+		}
+		loadInt(operandsA[pc]);
+		writer.emitLookupSwitch(getBranchLabel(pc, pc + 1), keys, targetLabels);
+	}
+
+	private void emitBranch(final int opcode, final int pc, final int target) {
+		writer.emitJump(opcode, getBranchLabel(pc, target));
+	}
+
+	// A backward branch counts down the budget to return to the interpreter
+	private int getBranchLabel(final int pc, final int target) {
+		if (pc < target) {
+			return labels[target];
+		}
+		if (backwardBranchLabels[target] == -1) {
+			backwardBranchLabels[target] = writer.newLabel();
+		}
+		return backwardBranchLabels[target];
+	}
+
+	private int getExitLabel(final int pc) {
+		if (exitLabels[pc] == -1) {
+			exitLabels[pc] = writer.newLabel();
+		}
+		return exitLabels[pc];
+	}
+
+	// Return to the interpreter to execute the instruction
+	private void emitExit(final int pc) {
+		storePc(pc);
+		writer.emitJump(ClassFileWriter.GOTO, spillLabel);
+	}
+
+	private void emitArrayGet(final int pc, final String arrayType, final int operationCode) {
+		emitArrayIndex(pc, arrayType);
+		writer.emit(operationCode);
+	}
+
+	private void emitArrayIndex(final int pc, final String arrayType) {
+		storePc(pc);
+		loadObject(operandsB[pc]);
+		writer.emitType(ClassFileWriter.CHECKCAST, arrayType);
+		loadInt(operandsC[pc]);
+	}
+
+	private void emitFrameField(final String name, final String type, final int local) {
+		loadFrameField(name, type);
+		writer.emitLocal(ClassFileWriter.ASTORE, local);
+	}
+
+	private void loadFrameField(final String name, final String type) {
+		writer.emitLocal(ClassFileWriter.ALOAD, LOCAL_FRAME);
+		writer.emitField(ClassFileWriter.GETFIELD, FRAME, name, type);
+	}
+
+	private void loadStaticFields(final int pc, final String arrayType) {
+		loadConstant(resolvedReferences[pc]);
+		writer.emitType(ClassFileWriter.CHECKCAST, arrayType);
+	}
+
+	private void loadInstanceFields(final int pc, final String name, final String arrayType) {
+		storePc(pc);
+		loadObject(operandsB[pc]);
+		writer.emitType(ClassFileWriter.CHECKCAST, INSTANCE);
+		writer.emitField(ClassFileWriter.GETFIELD, INSTANCE, name, arrayType);
+	}
+
+	private void loadConstant(final Object value) {
+		int index = constants.indexOf(value);
+		if (index == -1) {
+			index = constants.size();
+			constants.addElement(value);
+		}
+		writer.emitLocal(ClassFileWriter.ALOAD, LOCAL_CONSTANTS);
+		writer.pushInt(index);
+		writer.emit(ClassFileWriter.AALOAD);
+	}
+
+	private void storePc(final int pc) {
+		writer.pushInt(pc);
+		writer.emitLocal(ClassFileWriter.ISTORE, LOCAL_PC);
+	}
+
+	private void loadInt(final int register) {
+		markUsed(BANK_INT, register);
+		writer.emitLocal(ClassFileWriter.ILOAD, getLocal(BANK_INT, register));
+	}
+
+	private void loadObject(final int register) {
+		markUsed(BANK_OBJECT, register);
+		writer.emitLocal(ClassFileWriter.ALOAD, getLocal(BANK_OBJECT, register));
+	}
+
+	private void loadLong(final int register) {
+		markUsed(BANK_LONG, register);
+		writer.emitLocal(ClassFileWriter.LLOAD, getLocal(BANK_LONG, register));
+	}
+
+	private void loadValue(final int type, final int register) {
+		switch (type) {
+			case TYPE_INT:
+				loadInt(register);
+				break;
+			case TYPE_FLOAT:
+				loadInt(register);
+				writer.emitInvoke(ClassFileWriter.INVOKESTATIC, "java/lang/Float", "intBitsToFloat", "(I)F");
+				break;
+			default:
+				loadLong(register);
+				if (type == TYPE_DOUBLE) {
+					writer.emitInvoke(ClassFileWriter.INVOKESTATIC, "java/lang/Double", "longBitsToDouble", "(J)D");
+				}
+				break;
+		}
+	}
+
+	private void storeValue(final int type, final int register) {
+		switch (type) {
+			case TYPE_INT:
+				storeInt(register);
+				break;
+			case TYPE_FLOAT:
+				writer.emitInvoke(ClassFileWriter.INVOKESTATIC, "java/lang/Float", "floatToIntBits", "(F)I");
+				storeInt(register);
+				break;
+			case TYPE_DOUBLE:
+				writer.emitInvoke(ClassFileWriter.INVOKESTATIC, "java/lang/Double", "doubleToLongBits", "(D)J");
+				storeLong(register);
+				break;
+			default:
+				storeLong(register);
+				break;
+		}
+	}
+
+	private void storeInt(final int register) {
+		markWritten(BANK_INT, register);
+		writer.emitLocal(ClassFileWriter.ISTORE, getLocal(BANK_INT, register));
+	}
+
+	private void storeObject(final int register) {
+		markWritten(BANK_OBJECT, register);
+		writer.emitLocal(ClassFileWriter.ASTORE, getLocal(BANK_OBJECT, register));
+	}
+
+	private void storeLong(final int register) {
+		markWritten(BANK_LONG, register);
+		writer.emitLocal(ClassFileWriter.LSTORE, getLocal(BANK_LONG, register));
+	}
+
+	private void markUsed(final int bank, final int register) {
+		isUsedRegister[bank][register] = true;
+	}
+
+	// The written register is also loaded by the prologue to be assigned on every path to the spill
+	private void markWritten(final int bank, final int register) {
+		isUsedRegister[bank][register] = true;
+		isWrittenRegister[bank][register] = true;
+	}
+
+	// A long takes two local variables
+	private static int getLocal(final int bank, final int register) {
+		return LOCAL_REGISTERS + register * LOCALS_PER_REGISTER + bank;
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm;
+
+// The super class of the JVM classes generated by CodeGenerator
+abstract class CompiledCode {
+	Method method;
+	// The strings and static field storages referred to by the generated code
+	Object[] constants;
+	// The instructions which are replaced with execute-compiled, and their original opcodes
+	int[] entries;
+	int[] entryOpcodes;
+
+	// Execute the method from the entry point until an instruction which is left to the interpreter, and return its index.
+	// Each backward branch takes one from the count, and the code returns at the branch target when the count runs out
+	// so that the interpreter can switch threads there. Integer.MAX_VALUE is passed when there is no other thread. The count left is stored in Frame#remainingCount.
+	abstract int execute(Frame frame, int pc, int count) throws Throwable;
+
+	public String toString() {
+		return method.toString();
+	}
+
+	void restoreOpcodes(final int[] opcodes) {
+		for (int i = 0; i < entries.length; i++) {
+			opcodes[entries[i]] = entryOpcodes[i];
+		}
+	}
+
+	// The helpers below are called by the generated code for the instructions whose semantics depend on the array kinds
+
+	static int getArrayLength(final Object array) {
+		if (array instanceof boolean[]) {
+			return ((boolean[])array).length;
+		} else if (array instanceof byte[]) {
+			return ((byte[])array).length;
+		} else if (array instanceof char[]) {
+			return ((char[])array).length;
+		} else if (array instanceof short[]) {
+			return ((short[])array).length;
+		} else if (array instanceof int[]) {
+			return ((int[])array).length;
+		} else if (array instanceof long[]) {
+			return ((long[])array).length;
+		} else if (array instanceof float[]) {
+			return ((float[])array).length;
+		} else if (array instanceof double[]) {
+			return ((double[])array).length;
+		} else {
+			return ((Object[])array).length;
+		}
+	}
+
+	static int getInt(final Object array, final int index) {
+		if (array == null) {
+			throw new NullPointerException();
+		} else if (array instanceof int[]) {
+			return ((int[])array)[index];
+		} else if (array instanceof float[]) {
+			return Float.floatToIntBits(((float[])array)[index]);
+		} else {
+			throw new VirtualMachineException("not supported type:" + array.getClass());
+		}
+	}
+
+	static void setInt(final Object array, final int index, final int value) {
+		if (array == null) {
+			throw new NullPointerException();
+		} else if (array instanceof int[]) {
+			((int[])array)[index] = value;
+		} else if (array instanceof float[]) {
+			((float[])array)[index] = Float.intBitsToFloat(value);
+		} else {
+			throw new VirtualMachineException("not supported type:" + array.getClass());
+		}
+	}
+
+	static long getLong(final Object array, final int index) {
+		if (array == null) {
+			throw new NullPointerException();
+		} else if (array instanceof long[]) {
+			return ((long[])array)[index];
+		} else if (array instanceof double[]) {
+			return Double.doubleToLongBits(((double[])array)[index]);
+		} else {
+			throw new VirtualMachineException("not supported type:" + array.getClass());
+		}
+	}
+
+	static void setLong(final Object array, final int index, final long value) {
+		if (array == null) {
+			throw new NullPointerException();
+		} else if (array instanceof long[]) {
+			((long[])array)[index] = value;
+		} else if (array instanceof double[]) {
+			((double[])array)[index] = Double.longBitsToDouble(value);
+		} else {
+			throw new VirtualMachineException("not supported type:" + array.getClass());
+		}
+	}
+}
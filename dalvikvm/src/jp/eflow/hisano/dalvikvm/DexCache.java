@@ -0,0 +1,202 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm;
+
+final class DexCache {
+	// The kinds of the method lookup
+	static final int DIRECT_METHOD = 0;
+	static final int VIRTUAL_METHOD = 1;
+	static final int INTERFACE_METHOD = 2;
+
+	// The kinds of the argument registers in the argument shapes
+	static final byte ARGUMENT_INT = 0;
+	static final byte ARGUMENT_WIDE = 1;
+	// The second register of a long or double
+	static final byte ARGUMENT_WIDE_HIGH = 2;
+	static final byte ARGUMENT_OBJECT = 3;
+
+	final ClassLoader classLoader;
+
+	String[] strings;
+	String[] types;
+
+	String[] descriptors;
+
+	String[] fieldClasses;
+	String[] fieldTypes;
+	String[] fieldNames;
+
+	String[] methodClasses;
+	String[] methodTypes;
+	String[] methodNames;
+
+	// Resolved lazily and indexed by the type, field and method indexes of the dex file
+	private final Clazz[] clazzes;
+	private final Class[] hostClasses;
+	private final Class[] classObjects;
+	private final Field[] fields;
+	private final Method[] methods;
+	// The kinds of the argument registers of the methods without the receivers, parsed from methodTypes
+	private final byte[][] argumentShapes;
+
+	DexCache(final ClassLoader classLoader, final int typeCount, final int fieldCount, final int methodCount) {
+		this.classLoader = classLoader;
+		clazzes = new Clazz[typeCount];
+		hostClasses = new Class[typeCount];
+		classObjects = new Class[typeCount];
+		fields = new Field[fieldCount];
+		methods = new Method[methodCount];
+		argumentShapes = new byte[methodCount][];
+	}
+
+	// Null if the type is not a class of this virtual machine
+	Clazz resolveClass(final int typeIndex) {
+		Clazz clazz = clazzes[typeIndex];
+		if (clazz == null) {
+			String type = types[typeIndex];
+			if (type.charAt(0) != 'L') {
+				return null;
+			}
+			clazz = clazzes[typeIndex] = classLoader.loadClass(type.substring(1, type.length() - 1));
+		}
+		return clazz;
+	}
+
+	Class resolveHostClass(final VirtualMachine vm, final int typeIndex) throws ClassNotFoundException {
+		Class hostClass = hostClasses[typeIndex];
+		if (hostClass == null) {
+			hostClass = hostClasses[typeIndex] = vm.resolveHostClass(types[typeIndex]);
+		}
+		return hostClass;
+	}
+
+	// The value of const-class, which the virtual machine can replace
+	Class resolveClassObject(final VirtualMachine vm, final int typeIndex) throws ClassNotFoundException {
+		Class classObject = classObjects[typeIndex];
+		if (classObject == null) {
+			classObject = classObjects[typeIndex] = vm.handleClassGetter(types[typeIndex]);
+		}
+		return classObject;
+	}
+
+	Field resolveInstanceField(final int fieldIndex) {
+		Field field = fields[fieldIndex];
+		if (field == null) {
+			Clazz clazz = classLoader.loadClass(fieldClasses[fieldIndex]);
+			if (clazz == null) {
+				return null;
+			}
+			field = fields[fieldIndex] = clazz.getInstanceField(fieldNames[fieldIndex]);
+		}
+		return field;
+	}
+
+	Field resolveStaticField(final int fieldIndex) {
+		Field field = fields[fieldIndex];
+		if (field == null) {
+			Clazz clazz = classLoader.loadClass(fieldClasses[fieldIndex]);
+			if (clazz == null) {
+				return null;
+			}
+			field = fields[fieldIndex] = clazz.getStaticField(fieldNames[fieldIndex]);
+		}
+		return field;
+	}
+
+	byte[] resolveArgumentShape(final int methodIndex) {
+		byte[] shape = argumentShapes[methodIndex];
+		if (shape == null) {
+			shape = argumentShapes[methodIndex] = toArgumentShape(methodTypes[methodIndex]);
+		}
+		return shape;
+	}
+
+	private static byte[] toArgumentShape(final String descriptor) {
+		int length = descriptor.indexOf(')');
+		byte[] kinds = new byte[length * 2];
+		int count = 0;
+		for (int i = 1; i < length; i++) {
+			switch (descriptor.charAt(i)) {
+				case 'Z':
+				case 'B':
+				case 'S':
+				case 'C':
+				case 'I':
+				case 'F':
+					kinds[count++] = ARGUMENT_INT;
+					break;
+				case 'J':
+				case 'D':
+					kinds[count++] = ARGUMENT_WIDE;
+					kinds[count++] = ARGUMENT_WIDE_HIGH;
+					break;
+				case 'L':
+					kinds[count++] = ARGUMENT_OBJECT;
+					i = descriptor.indexOf(';', i);
+					break;
+				case '[':
+					while (descriptor.charAt(i + 1) == '[') {
+						i++;
+					}
+					if (descriptor.charAt(i + 1) == 'L') {
+						i = descriptor.indexOf(';', i);
+					} else {
+						i++;
+					}
+					kinds[count++] = ARGUMENT_OBJECT;
+					break;
+				default:
+					throw new VirtualMachineException("not implemented type = " + descriptor.charAt(i));
+			}
+		}
+		byte[] shape = new byte[count];
+		System.arraycopy(kinds, 0, shape, 0, count);
+		return shape;
+	}
+
+	Method resolveMethod(final int methodIndex, final int kind) {
+		Method method = methods[methodIndex];
+		if (method == null) {
+			Clazz clazz = classLoader.loadClass(methodClasses[methodIndex]);
+			if (clazz == null) {
+				return null;
+			}
+			String name = methodNames[methodIndex];
+			String descriptor = methodTypes[methodIndex];
+			switch (kind) {
+				case VIRTUAL_METHOD:
+					method = clazz.getVirtualMethod(name, descriptor);
+					break;
+				case INTERFACE_METHOD:
+					method = clazz.getInterfaceMethod(name, descriptor);
+					break;
+				default:
+					method = clazz.getDirectMethod(name, descriptor);
+					break;
+			}
+			methods[methodIndex] = method;
+		}
+		return method;
+	}
+}
@@ -24,6 +24,11 @@
 package jp.eflow.hisano.dalvikvm;
 
 final class Field {
+	// The kinds of the slots to store the values
+	static final int KIND_INT = 0;
+	static final int KIND_WIDE = 1;
+	static final int KIND_OBJECT = 2;
+
 	final Clazz clazz;
 	
 	int flag;
@@ -32,55 +37,35 @@ final class Field {
 	String name;
 	String type;
 
-	int intValue;
-	long longValue;
-	Object objectValue;
-	
+	// The index into the int or object slots of Instance, or of Clazz for a static field
+	int slot;
+
 	Field(final Clazz clazz) {
 		this.clazz = clazz;
 	}
 
 	public String toString() {
-		String value;
+		return clazz.name + "." + name + " (" + type + ")";
+	}
+
+	// Float and double values are stored as their bits
+	static int getKind(final String type) {
 		switch (type.charAt(0)) {
 			case 'C':
-				value = (char)intValue + " (char)";
-				break;
 			case 'B':
-				value = (byte)intValue + " (byte)";
-				break;
 			case 'S':
-				value = (short)intValue + " (short)";
-				break;
 			case 'I':
-				value = intValue + " (int)";
-				break;
 			case 'Z':
-				value = (intValue != 0) + " (boolean)";
-				break;
+			case 'F':
+				return KIND_INT;
 			case 'J':
-				value = longValue + " (long)";
-				break;
+			case 'D':
+				return KIND_WIDE;
 			case 'L':
-				value = objectValue + " (" + type.substring(1, type.length() -1) + ")";
-				break;
 			case '[':
-				value = objectValue + " (" + type + ")";
-				break;
+				return KIND_OBJECT;
 			default:
 				throw new VirtualMachineException("not supported field type: " + type);
 		}
-		return clazz.name + "." + name + " = " + value;
-	}
-
-	Field copy() {
-		Field copy = new Field(clazz);
-		copy.flag = flag;
-		copy.name = name;
-		copy.type = type;
-		copy.intValue = intValue;
-		copy.longValue = longValue;
-		copy.objectValue = objectValue;
-		return copy;
 	}
 }
@@ -32,15 +32,20 @@ public final class Frame {
 	boolean isChangeThreadFrame;
 
 	int pc;
+	// The instructions left in the time slice after CompiledCode#execute
+	int remainingCount;
 
 	int registerCount;
-	boolean[] isObjectRegister = new boolean[DEFAULT_REGISTER_SIZE];
+	// A register has a slot in each bank, and a long or double is in the slot of its first register of the pair
 	int[] intRegisters = new int[DEFAULT_REGISTER_SIZE];
 	Object[] objectRegisters = new Object[DEFAULT_REGISTER_SIZE];
+	long[] longRegisters = new long[DEFAULT_REGISTER_SIZE];
 
 	int argumentCount;
 	public int[] intArguments = new int[DEFAULT_REGISTER_SIZE];
 	public Object[] objectArguments = new Object[DEFAULT_REGISTER_SIZE];
+	// The number of the object arguments set for the host methods, which are cleared by #destroy
+	private int objectArgumentCount;
 
 	public int singleReturn;
 	public long doubleReturn;
@@ -72,9 +77,9 @@ public final class Frame {
 		int newRegisterCount = method.registerCount;
 		this.registerCount = newRegisterCount;
 		if (intRegisters.length < newRegisterCount) {
-			isObjectRegister = new boolean[newRegisterCount];
 			intRegisters = new int[newRegisterCount];
 			objectRegisters = new Object[newRegisterCount];
+			longRegisters = new long[newRegisterCount];
 		}
 
 		int newArgumentCount = method.outgoingArgumentCount;
@@ -95,6 +100,9 @@ public final class Frame {
 
 	void setArgument(final int index, final Object value) {
 		objectArguments[index] = value;
+		if (objectArgumentCount <= index) {
+			objectArgumentCount = index + 1;
+		}
 	}
 
 	// This method is used to set arguments before calling
@@ -102,18 +110,30 @@ public final class Frame {
 		objectRegisters[registerCount - index - 1] = value;
 	}
 
+	// Release the objects of the registers which are not read at and after the instruction, found by Verifier, for the garbage collector of the host
+	void releaseDeadObjects(final int pc) {
+		int[][] deadObjectRegisters = method.deadObjectRegisters;
+		if (deadObjectRegisters != null && deadObjectRegisters[pc] != null) {
+			int[] registers = deadObjectRegisters[pc];
+			for (int i = 0; i < registers.length; i++) {
+				objectRegisters[registers[i]] = null;
+			}
+		}
+	}
+
+	// The primitive registers, arguments and return values are left because they are written before read by the verified code of the next method
 	void destroy() {
-		for (int i = 0, length = registerCount; i < length; i++) {
-			isObjectRegister[i] = false;
-			intRegisters[i] = 0;
-			objectRegisters[i] = null;
+		int[] objectRegisterIndexes = method.objectRegisterIndexes;
+		Object[] objectRegisters = this.objectRegisters;
+		for (int i = 0; i < objectRegisterIndexes.length; i++) {
+			objectRegisters[objectRegisterIndexes[i]] = null;
 		}
-		for (int i = 0, length = argumentCount; i < length; i++) {
-			intArguments[i] = 0;
-			objectArguments[i] = null;
+		if (objectArgumentCount != 0) {
+			for (int i = 0; i < objectArgumentCount; i++) {
+				objectArguments[i] = null;
+			}
+			objectArgumentCount = 0;
 		}
-		singleReturn = 0;
-		doubleReturn = 0;
 		objectReturn = null;
 		throwableReturn = null;
 
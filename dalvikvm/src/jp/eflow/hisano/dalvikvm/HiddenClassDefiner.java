@@ -0,0 +1,76 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm;
+
+// Define the generated classes in this package so that they can access the package private members.
+// The Java SE APIs are called by the reflection to leave this virtual machine buildable for older platforms.
+final class HiddenClassDefiner {
+	private static Object lookup;
+	private static java.lang.reflect.Method defineHiddenClass;
+	private static Object[] noClassOptions;
+	private static java.lang.reflect.Method lookupClass;
+	private static java.lang.reflect.Method defineClass;
+
+	static {
+		try {
+			Class methodHandles = Class.forName("java.lang.invoke.MethodHandles");
+			Class lookupType = Class.forName("java.lang.invoke.MethodHandles$Lookup");
+			lookup = methodHandles.getMethod("lookup", new Class[0]).invoke(null, new Object[0]);
+			try {
+				// Java SE 15 or later, where the classes are unloaded when they become unreachable
+				Class classOption = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+				Object classOptions = java.lang.reflect.Array.newInstance(classOption, 0);
+				defineHiddenClass = lookupType.getMethod("defineHiddenClass", new Class[] { byte[].class, Boolean.TYPE, classOptions.getClass() });
+				lookupClass = lookupType.getMethod("lookupClass", new Class[0]);
+				noClassOptions = new Object[] { classOptions };
+			} catch (ClassNotFoundException e) {
+				// Java SE 9 or later
+				defineClass = lookupType.getMethod("defineClass", new Class[] { byte[].class });
+			}
+		} catch (Exception e) {
+			lookup = null;
+		}
+	}
+
+	static boolean isAvailable() {
+		return lookup != null;
+	}
+
+	static Class define(final byte[] classFile) throws Exception {
+		try {
+			if (defineHiddenClass != null) {
+				Object hiddenClassLookup = defineHiddenClass.invoke(lookup, new Object[] { classFile, Boolean.TRUE, noClassOptions[0] });
+				return (Class)lookupClass.invoke(hiddenClassLookup, new Object[0]);
+			} else {
+				return (Class)defineClass.invoke(lookup, new Object[] { classFile });
+			}
+		} catch (java.lang.reflect.InvocationTargetException e) {
+			Throwable cause = e.getTargetException();
+			if (cause instanceof Exception) {
+				throw (Exception)cause;
+			}
+			throw (Error)cause;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm;
+
+final class InlineCache {
+	// The number of the receiver classes to be cached before the call site becomes megamorphic
+	private static final int SIZE = 4;
+
+	final Method method;
+	final boolean isInterface;
+
+	private final Clazz[] clazzes = new Clazz[SIZE];
+	private final Method[] targets = new Method[SIZE];
+	private int size;
+	private boolean isMegamorphic;
+
+	int hitCount;
+	int missCount;
+
+	InlineCache(final Method method, final boolean isInterface) {
+		this.method = method;
+		this.isInterface = isInterface;
+	}
+
+	public String toString() {
+		String kind;
+		if (isMegamorphic) {
+			kind = "megamorphic";
+		} else if (size <= 1) {
+			kind = "monomorphic";
+		} else {
+			kind = "polymorphic";
+		}
+		return method + " (" + kind + "): hits = " + hitCount + ", misses = " + missCount;
+	}
+
+	// Null if the method is not implemented in this virtual machine
+	Method lookup(final Clazz clazz) {
+		Clazz[] currentClazzes = clazzes;
+		for (int i = 0, length = size; i < length; i++) {
+			if (currentClazzes[i] == clazz) {
+				hitCount++;
+				return targets[i];
+			}
+		}
+		missCount++;
+
+		Method target;
+		if (isInterface) {
+			target = clazz.getInterfaceMethod(method);
+		} else {
+			target = clazz.vtable[method.vtableIndex];
+		}
+		if (target != null) {
+			if (size < SIZE) {
+				currentClazzes[size] = clazz;
+				targets[size] = target;
+				size++;
+			} else {
+				// Look up the vtable or itables every time
+				isMegamorphic = true;
+			}
+		}
+		return target;
+	}
+}
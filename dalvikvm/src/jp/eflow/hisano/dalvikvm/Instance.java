@@ -23,51 +23,28 @@
 
 package jp.eflow.hisano.dalvikvm;
 
-import java.util.Hashtable;
-
 final class Instance {
+	private static final int[] NO_INT_FIELDS = new int[0];
+	private static final Object[] NO_OBJECT_FIELDS = new Object[0];
+
 	final Clazz clazz;
 
 	Object parentInstance;
 
-	private final Hashtable fieldsOfClasses = new Hashtable();
+	// The instance fields indexed by Field#slot
+	final int[] intFields;
+	final Object[] objectFields;
 
 	Instance(final Clazz clazz) {
 		this.clazz = clazz;
 
-		Clazz current = clazz;
-		do {
-			Hashtable fields = new Hashtable();
-			Field[] currentFields = current.instanceFields;
-			for (int i = 0, length = currentFields.length; i < length; i++) {
-				Field field = currentFields[i];
-				fields.put(field.name, field.copy());
-			}
-			fieldsOfClasses.put(current.name, fields);
-			current = current.classLoader.loadClass(current.superClass);
-		} while (current != null);
+		int intFieldCount = clazz.intFieldCount;
+		intFields = intFieldCount == 0 ? NO_INT_FIELDS : new int[intFieldCount];
+		int objectFieldCount = clazz.objectFieldCount;
+		objectFields = objectFieldCount == 0 ? NO_OBJECT_FIELDS : new Object[objectFieldCount];
 	}
 
 	public String toString() {
 		return clazz.getName() + "@" + Integer.toHexString(hashCode());
 	}
-
-	Field getField(final String className, final String fieldName) {
-		String currentClassName = className;
-		while (true) {
-			Hashtable fields = (Hashtable)fieldsOfClasses.get(currentClassName);
-			if (fields == null) {
-				return null;
-			}
-			Field field = (Field)fields.get(fieldName);
-			if (field != null) {
-				return field;
-			}
-			Clazz currentClazz = clazz.classLoader.loadClass(currentClassName);
-			if (currentClazz == null) {
-				return null;
-			}
-			currentClassName = currentClazz.superClass;
-		}
-	}
 }
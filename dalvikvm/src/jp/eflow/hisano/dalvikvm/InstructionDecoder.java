@@ -0,0 +1,297 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm;
+
+final class InstructionDecoder {
+	// The upper 4 bits of a format are the width of the instruction in code units
+	private static final int FORMAT_10X = 0x10;
+	private static final int FORMAT_12X = 0x11;
+	private static final int FORMAT_11N = 0x12;
+	private static final int FORMAT_11X = 0x13;
+	private static final int FORMAT_10T = 0x14;
+	private static final int FORMAT_20T = 0x20;
+	private static final int FORMAT_22X = 0x21;
+	private static final int FORMAT_21T = 0x22;
+	private static final int FORMAT_21S = 0x23;
+	private static final int FORMAT_21H = 0x24;
+	private static final int FORMAT_21C = 0x25;
+	private static final int FORMAT_23X = 0x26;
+	private static final int FORMAT_22B = 0x27;
+	private static final int FORMAT_22T = 0x28;
+	private static final int FORMAT_22S = 0x29;
+	private static final int FORMAT_22C = 0x2A;
+	private static final int FORMAT_30T = 0x30;
+	private static final int FORMAT_32X = 0x31;
+	private static final int FORMAT_31I = 0x32;
+	private static final int FORMAT_31T = 0x33;
+	private static final int FORMAT_31C = 0x34;
+	private static final int FORMAT_35C = 0x35;
+	private static final int FORMAT_3RC = 0x36;
+	private static final int FORMAT_51L = 0x50;
+
+	private static final int[] FORMATS = {
+		// 0x00 ... 0x0F
+		FORMAT_10X, FORMAT_12X, FORMAT_22X, FORMAT_32X, FORMAT_12X, FORMAT_22X, FORMAT_32X, FORMAT_12X,
+		FORMAT_22X, FORMAT_32X, FORMAT_11X, FORMAT_11X, FORMAT_11X, FORMAT_11X, FORMAT_10X, FORMAT_11X,
+		// 0x10 ... 0x1F
+		FORMAT_11X, FORMAT_11X, FORMAT_11N, FORMAT_21S, FORMAT_31I, FORMAT_21H, FORMAT_21S, FORMAT_31I,
+		FORMAT_51L, FORMAT_21H, FORMAT_21C, FORMAT_31C, FORMAT_21C, FORMAT_11X, FORMAT_11X, FORMAT_21C,
+		// 0x20 ... 0x2F
+		FORMAT_22C, FORMAT_12X, FORMAT_21C, FORMAT_22C, FORMAT_35C, FORMAT_3RC, FORMAT_31T, FORMAT_11X,
+		FORMAT_10T, FORMAT_20T, FORMAT_30T, FORMAT_31T, FORMAT_31T, FORMAT_23X, FORMAT_23X, FORMAT_23X,
+		// 0x30 ... 0x3F
+		FORMAT_23X, FORMAT_23X, FORMAT_22T, FORMAT_22T, FORMAT_22T, FORMAT_22T, FORMAT_22T, FORMAT_22T,
+		FORMAT_21T, FORMAT_21T, FORMAT_21T, FORMAT_21T, FORMAT_21T, FORMAT_21T, FORMAT_10X, FORMAT_10X,
+		// 0x40 ... 0x4F
+		FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X,
+		FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X,
+		// 0x50 ... 0x5F
+		FORMAT_23X, FORMAT_23X, FORMAT_22C, FORMAT_22C, FORMAT_22C, FORMAT_22C, FORMAT_22C, FORMAT_22C,
+		FORMAT_22C, FORMAT_22C, FORMAT_22C, FORMAT_22C, FORMAT_22C, FORMAT_22C, FORMAT_22C, FORMAT_22C,
+		// 0x60 ... 0x6F
+		FORMAT_21C, FORMAT_21C, FORMAT_21C, FORMAT_21C, FORMAT_21C, FORMAT_21C, FORMAT_21C, FORMAT_21C,
+		FORMAT_21C, FORMAT_21C, FORMAT_21C, FORMAT_21C, FORMAT_21C, FORMAT_21C, FORMAT_35C, FORMAT_35C,
+		// 0x70 ... 0x7F
+		FORMAT_35C, FORMAT_35C, FORMAT_35C, FORMAT_10X, FORMAT_3RC, FORMAT_3RC, FORMAT_3RC, FORMAT_3RC,
+		FORMAT_3RC, FORMAT_10X, FORMAT_10X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X,
+		// 0x80 ... 0x8F
+		FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X,
+		FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X,
+		// 0x90 ... 0x9F
+		FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X,
+		FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X,
+		// 0xA0 ... 0xAF
+		FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X,
+		FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X, FORMAT_23X,
+		// 0xB0 ... 0xBF
+		FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X,
+		FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X,
+		// 0xC0 ... 0xCF
+		FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X,
+		FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X, FORMAT_12X,
+		// 0xD0 ... 0xDF
+		FORMAT_22S, FORMAT_22S, FORMAT_22S, FORMAT_22S, FORMAT_22S, FORMAT_22S, FORMAT_22S, FORMAT_22S,
+		FORMAT_22B, FORMAT_22B, FORMAT_22B, FORMAT_22B, FORMAT_22B, FORMAT_22B, FORMAT_22B, FORMAT_22B,
+		// 0xE0 ... 0xEF
+		FORMAT_22B, FORMAT_22B, FORMAT_22B, FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X,
+		FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X,
+		// 0xF0 ... 0xFF
+		FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X,
+		FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X, FORMAT_10X,
+	};
+
+	private static final int PACKED_SWITCH_PAYLOAD = 0x0100;
+	private static final int SPARSE_SWITCH_PAYLOAD = 0x0200;
+	private static final int FILL_ARRAY_DATA_PAYLOAD = 0x0300;
+
+	// Decode the codes into an opcode and up to three operands per instruction, and branch targets into instruction indexes
+	static void decode(final Method method) {
+		int[] codes = method.codes;
+		int codeLength = codes.length;
+
+		// The payloads of the switch and fill-array-data instructions are skipped because they are never executed
+		int[] indexes = new int[codeLength + 1];
+		int instructionCount = 0;
+		for (int address = 0; address < codeLength; address += getWidth(codes, address)) {
+			indexes[address] = instructionCount;
+			if (!isPayload(codes, address)) {
+				instructionCount++;
+			}
+		}
+		indexes[codeLength] = instructionCount;
+
+		int[] opcodes = method.opcodes = new int[instructionCount];
+		int[] operandsA = method.operandsA = new int[instructionCount];
+		int[] operandsB = method.operandsB = new int[instructionCount];
+		int[] operandsC = method.operandsC = new int[instructionCount];
+		method.resolvedReferences = new Object[instructionCount];
+		for (int address = 0, index = 0; address < codeLength; address += getWidth(codes, address)) {
+			if (isPayload(codes, address)) {
+				continue;
+			}
+			int opcode = codes[address] & 0xFF;
+			int data = codes[address] >> 8;
+			opcodes[index] = opcode;
+			switch (FORMATS[opcode]) {
+				case FORMAT_10X:
+					break;
+				case FORMAT_12X:
+					// op vA, vB
+					operandsA[index] = data & 0xF;
+					operandsB[index] = data >> 4;
+					break;
+				case FORMAT_11N:
+					// op vA, #+B
+					operandsA[index] = data & 0xF;
+					operandsB[index] = (data << 24) >> 28;
+					break;
+				case FORMAT_11X:
+					// op vAA
+					operandsA[index] = data;
+					break;
+				case FORMAT_10T:
+					// op +AA
+					operandsA[index] = indexes[address + (byte)data];
+					break;
+				case FORMAT_20T:
+					// op +AAAA
+					operandsA[index] = indexes[address + (short)codes[address + 1]];
+					break;
+				case FORMAT_22X:
+					// op vAA, vBBBB
+					operandsA[index] = data;
+					operandsB[index] = codes[address + 1];
+					break;
+				case FORMAT_21T:
+					// op vAA, +BBBB
+					operandsA[index] = data;
+					operandsB[index] = indexes[address + (short)codes[address + 1]];
+					break;
+				case FORMAT_21S:
+					// op vAA, #+BBBB
+					operandsA[index] = data;
+					operandsB[index] = (short)codes[address + 1];
+					break;
+				case FORMAT_21H:
+					// op vAA, #+BBBB0000 or op vAA, #+BBBB000000000000 (the upper int only)
+					operandsA[index] = data;
+					operandsB[index] = codes[address + 1] << 16;
+					break;
+				case FORMAT_21C:
+					// op vAA, kind@BBBB
+					operandsA[index] = data;
+					operandsB[index] = codes[address + 1];
+					break;
+				case FORMAT_23X:
+					// op vAA, vBB, vCC
+					operandsA[index] = data;
+					operandsB[index] = codes[address + 1] & 0xFF;
+					operandsC[index] = codes[address + 1] >> 8;
+					break;
+				case FORMAT_22B:
+					// op vAA, vBB, #+CC
+					operandsA[index] = data;
+					operandsB[index] = codes[address + 1] & 0xFF;
+					operandsC[index] = (byte)(codes[address + 1] >> 8);
+					break;
+				case FORMAT_22T:
+					// op vA, vB, +CCCC
+					operandsA[index] = data & 0xF;
+					operandsB[index] = data >> 4;
+					operandsC[index] = indexes[address + (short)codes[address + 1]];
+					break;
+				case FORMAT_22S:
+					// op vA, vB, #+CCCC
+					operandsA[index] = data & 0xF;
+					operandsB[index] = data >> 4;
+					operandsC[index] = (short)codes[address + 1];
+					break;
+				case FORMAT_22C:
+					// op vA, vB, kind@CCCC
+					operandsA[index] = data & 0xF;
+					operandsB[index] = data >> 4;
+					operandsC[index] = codes[address + 1];
+					break;
+				case FORMAT_30T:
+					// op +AAAAAAAA
+					operandsA[index] = indexes[address + getInt(codes, address + 1)];
+					break;
+				case FORMAT_32X:
+					// op vAAAA, vBBBB
+					operandsA[index] = codes[address + 1];
+					operandsB[index] = codes[address + 2];
+					break;
+				case FORMAT_31I:
+					// op vAA, #+BBBBBBBB
+				case FORMAT_31C:
+					// op vAA, string@BBBBBBBB
+					operandsA[index] = data;
+					operandsB[index] = getInt(codes, address + 1);
+					break;
+				case FORMAT_31T:
+					// op vAA, +BBBBBBBB (B is the address of the payload and C is the address of this instruction)
+					operandsA[index] = data;
+					operandsB[index] = address + getInt(codes, address + 1);
+					operandsC[index] = address;
+					if (opcode == 0x2B || opcode == 0x2C) {
+						method.resolvedReferences[index] = new SwitchTable(codes, operandsB[index], address, indexes);
+					}
+					break;
+				case FORMAT_35C:
+					// op {vD, vE, vF, vG, vA}, kind@CCCC (A is the register count and C is the packed registers)
+					operandsA[index] = data >> 4;
+					operandsB[index] = codes[address + 1];
+					operandsC[index] = (data << 16) | codes[address + 2];
+					break;
+				case FORMAT_3RC:
+					// op {vCCCC .. vNNNN}, kind@BBBB (A is the register count and C is the first register)
+					operandsA[index] = data;
+					operandsB[index] = codes[address + 1];
+					operandsC[index] = codes[address + 2];
+					break;
+				case FORMAT_51L:
+					// op vAA, #+BBBBBBBBBBBBBBBB (B is the lower int and C is the upper int)
+					operandsA[index] = data;
+					operandsB[index] = getInt(codes, address + 1);
+					operandsC[index] = getInt(codes, address + 3);
+					break;
+				default:
+					throw new VirtualMachineException("not supported instruction format = " + FORMATS[opcode]);
+			}
+			index++;
+		}
+		method.indexes = indexes;
+	}
+
+	private static boolean isPayload(final int[] codes, final int address) {
+		switch (codes[address]) {
+			case PACKED_SWITCH_PAYLOAD:
+			case SPARSE_SWITCH_PAYLOAD:
+			case FILL_ARRAY_DATA_PAYLOAD:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	private static int getWidth(final int[] codes, final int address) {
+		switch (codes[address]) {
+			case PACKED_SWITCH_PAYLOAD:
+				return codes[address + 1] * 2 + 4;
+			case SPARSE_SWITCH_PAYLOAD:
+				return codes[address + 1] * 4 + 2;
+			case FILL_ARRAY_DATA_PAYLOAD: {
+				int elementWidth = codes[address + 1];
+				int elementCount = getInt(codes, address + 2);
+				return (elementWidth * elementCount + 1) / 2 + 4;
+			}
+			default:
+				return FORMATS[codes[address] & 0xFF] >> 4;
+		}
+	}
+
+	private static int getInt(final int[] codes, final int address) {
+		return codes[address] | (codes[address + 1] << 16);
+	}
+}
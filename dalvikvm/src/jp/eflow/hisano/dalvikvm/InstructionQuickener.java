@@ -0,0 +1,225 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm;
+
+final class InstructionQuickener {
+	// The quick forms use the opcodes which are not used in dex files
+	static final int SGET_QUICK = 0xE3;
+	static final int SPUT_QUICK = 0xE6;
+	static final int IGET_QUICK = 0xF2;
+	static final int IPUT_QUICK = 0xF5;
+	static final int INVOKE_VIRTUAL_QUICK = 0xF8;
+	static final int INVOKE_VIRTUAL_QUICK_RANGE = 0xF9;
+	static final int INVOKE_DIRECT_QUICK = 0xFA;
+	static final int INVOKE_DIRECT_QUICK_RANGE = 0xFB;
+	static final int INVOKE_STATIC_QUICK = 0xFC;
+	static final int INVOKE_STATIC_QUICK_RANGE = 0xFD;
+	static final int INVOKE_INTERFACE_QUICK = 0xFE;
+	static final int INVOKE_INTERFACE_QUICK_RANGE = 0xFF;
+
+	// Rewrite the instruction into its quick form if the referred field or method is found in this virtual machine
+	static boolean quicken(final Method method, final int index) {
+		int[] opcodes = method.opcodes;
+		switch (opcodes[index]) {
+			case 0x52:
+			case 0x53:
+			case 0x54:
+			case 0x55:
+			case 0x56:
+			case 0x57:
+			case 0x58:
+				return quickenInstanceField(method, index, IGET_QUICK);
+			case 0x59:
+			case 0x5A:
+			case 0x5B:
+			case 0x5C:
+			case 0x5D:
+			case 0x5E:
+			case 0x5F:
+				return quickenInstanceField(method, index, IPUT_QUICK);
+			case 0x60:
+			case 0x61:
+			case 0x62:
+			case 0x63:
+			case 0x64:
+			case 0x65:
+			case 0x66:
+				return quickenStaticField(method, index, SGET_QUICK);
+			case 0x67:
+			case 0x68:
+			case 0x69:
+			case 0x6A:
+			case 0x6B:
+			case 0x6C:
+			case 0x6D:
+				return quickenStaticField(method, index, SPUT_QUICK);
+			case 0x6E:
+				return quickenMethod(method, index, INVOKE_VIRTUAL_QUICK, DexCache.VIRTUAL_METHOD);
+			case 0x6F:
+				// The method of the superclass is called without the dispatch
+				return quickenMethod(method, index, INVOKE_DIRECT_QUICK, DexCache.VIRTUAL_METHOD);
+			case 0x70:
+				return quickenMethod(method, index, INVOKE_DIRECT_QUICK, DexCache.DIRECT_METHOD);
+			case 0x71:
+				return quickenMethod(method, index, INVOKE_STATIC_QUICK, DexCache.DIRECT_METHOD);
+			case 0x72:
+				return quickenMethod(method, index, INVOKE_INTERFACE_QUICK, DexCache.INTERFACE_METHOD);
+			case 0x74:
+				return quickenMethod(method, index, INVOKE_VIRTUAL_QUICK_RANGE, DexCache.VIRTUAL_METHOD);
+			case 0x75:
+				return quickenMethod(method, index, INVOKE_DIRECT_QUICK_RANGE, DexCache.VIRTUAL_METHOD);
+			case 0x76:
+				return quickenMethod(method, index, INVOKE_DIRECT_QUICK_RANGE, DexCache.DIRECT_METHOD);
+			case 0x77:
+				return quickenMethod(method, index, INVOKE_STATIC_QUICK_RANGE, DexCache.DIRECT_METHOD);
+			case 0x78:
+				return quickenMethod(method, index, INVOKE_INTERFACE_QUICK_RANGE, DexCache.INTERFACE_METHOD);
+			default:
+				return false;
+		}
+	}
+
+	private static boolean quickenInstanceField(final Method method, final int index, final int quickOpcode) {
+		Field field = method.dexCache.resolveInstanceField(method.operandsC[index]);
+		if (field == null) {
+			return false;
+		}
+		// Replace the field index with the slot like dexopt replaces it with the byte offset
+		synchronized (method) {
+			method.operandsC[index] = field.slot;
+			method.opcodes[index] = quickOpcode + Field.getKind(field.type);
+		}
+		return true;
+	}
+
+	private static boolean quickenStaticField(final Method method, final int index, final int quickOpcode) {
+		// The class is initialized by loadClass in the resolution, so the quick form needs no initialization check
+		Field field = method.dexCache.resolveStaticField(method.operandsB[index]);
+		if (field == null) {
+			return false;
+		}
+		// Resolve to the storage of the declaring class and the slot in it
+		int kind = Field.getKind(field.type);
+		synchronized (method) {
+			if (kind == Field.KIND_OBJECT) {
+				method.resolvedReferences[index] = field.clazz.staticObjectFields;
+			} else {
+				method.resolvedReferences[index] = field.clazz.staticIntFields;
+			}
+			method.operandsB[index] = field.slot;
+			method.opcodes[index] = quickOpcode + kind;
+		}
+		return true;
+	}
+
+	private static boolean quickenMethod(final Method method, final int index, int quickOpcode, final int kind) {
+		Method target = method.dexCache.resolveMethod(method.operandsB[index], kind);
+		if (target == null) {
+			return false;
+		}
+		// Call the method without the dispatch if no linked class overrides it
+		if (quickOpcode == INVOKE_VIRTUAL_QUICK || quickOpcode == INVOKE_VIRTUAL_QUICK_RANGE) {
+			synchronized (target) {
+				if (!target.isOverridden && !target.isAbstract) {
+					quickOpcode = quickOpcode == INVOKE_VIRTUAL_QUICK ? INVOKE_DIRECT_QUICK : INVOKE_DIRECT_QUICK_RANGE;
+					addBoundCaller(target, method, index);
+				}
+			}
+		}
+		// The method index is kept to fall back to the normal invocation
+		Object resolvedReference;
+		switch (quickOpcode) {
+			case INVOKE_VIRTUAL_QUICK:
+			case INVOKE_VIRTUAL_QUICK_RANGE:
+				resolvedReference = new InlineCache(target, false);
+				break;
+			case INVOKE_INTERFACE_QUICK:
+			case INVOKE_INTERFACE_QUICK_RANGE:
+				resolvedReference = new InlineCache(target, true);
+				break;
+			default:
+				resolvedReference = target;
+				break;
+		}
+		// The instruction is read together with the reference by JitCompiler on its own thread
+		synchronized (method) {
+			method.resolvedReferences[index] = resolvedReference;
+			method.opcodes[index] = quickOpcode;
+		}
+		return true;
+	}
+
+	private static void addBoundCaller(final Method target, final Method caller, final int index) {
+		if (target.boundCallers == null) {
+			target.boundCallers = new Method[4];
+			target.boundIndexes = new int[4];
+		} else if (target.boundCount == target.boundCallers.length) {
+			Method[] newCallers = new Method[target.boundCount * 2];
+			System.arraycopy(target.boundCallers, 0, newCallers, 0, target.boundCount);
+			target.boundCallers = newCallers;
+			int[] newIndexes = new int[target.boundCount * 2];
+			System.arraycopy(target.boundIndexes, 0, newIndexes, 0, target.boundCount);
+			target.boundIndexes = newIndexes;
+		}
+		target.boundCallers[target.boundCount] = caller;
+		target.boundIndexes[target.boundCount] = index;
+		target.boundCount++;
+	}
+
+	// Called by Clazz#link for the method overridden by the class being linked.
+	// The bound instructions go back to the inline caches, and the running frames dispatch from their next calls.
+	static void unbind(final Method target) {
+		synchronized (target) {
+			target.isOverridden = true;
+			for (int i = 0; i < target.boundCount; i++) {
+				Method caller = target.boundCallers[i];
+				int index = target.boundIndexes[i];
+				synchronized (caller) {
+					caller.resolvedReferences[index] = new InlineCache(target, false);
+					caller.opcodes[index] = caller.opcodes[index] == INVOKE_DIRECT_QUICK ? INVOKE_VIRTUAL_QUICK : INVOKE_VIRTUAL_QUICK_RANGE;
+				}
+			}
+			target.boundCallers = null;
+			target.boundIndexes = null;
+			target.boundCount = 0;
+		}
+	}
+
+	// Whether the invoke-virtual instruction is bound to the method by the class hierarchy analysis
+	static boolean isBound(final Method caller, final int index) {
+		Object resolvedReference = caller.resolvedReferences[index];
+		if (!(resolvedReference instanceof Method)) {
+			return false;
+		}
+		Method target = (Method)resolvedReference;
+		synchronized (target) {
+			for (int i = 0; i < target.boundCount; i++) {
+				if (target.boundCallers[i] == caller && target.boundIndexes[i] == index) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm;
+
+import java.util.Vector;
+
+// Compile the hot methods into JVM classes by CodeGenerator, and install them at the entry points of the methods.
+// The installation is done on the interpreter thread because the instructions are not rewritten by the other threads.
+final class JitCompiler implements Runnable {
+	static final int EXECUTE_COMPILED = 0xE9;
+
+	private static int compiledClassCount;
+
+	boolean isBackground = true;
+
+	private final Vector requestedMethods = new Vector();
+	private final Vector compiledCodes = new Vector();
+	private volatile boolean hasCompiledCodes;
+	private java.lang.Thread compilerThread;
+
+	// Called by TieredPolicy when the method reaches the optimized tier
+	void request(final Method method) {
+		if (!isBackground) {
+			CompiledCode compiledCode = compile(method);
+			if (compiledCode != null) {
+				install(compiledCode);
+			}
+			return;
+		}
+		synchronized (this) {
+			requestedMethods.addElement(method);
+			// The thread ends when there is no request not to keep the host VM alive
+			if (compilerThread == null) {
+				compilerThread = new java.lang.Thread(this, "dalvikvm-jit");
+				compilerThread.setDaemon(true);
+				compilerThread.start();
+			}
+		}
+	}
+
+	public void run() {
+		while (true) {
+			Method method;
+			synchronized (this) {
+				if (requestedMethods.isEmpty()) {
+					compilerThread = null;
+					return;
+				}
+				method = (Method)requestedMethods.elementAt(0);
+				requestedMethods.removeElementAt(0);
+			}
+			CompiledCode compiledCode = compile(method);
+			if (compiledCode != null) {
+				synchronized (this) {
+					compiledCodes.addElement(compiledCode);
+					hasCompiledCodes = true;
+				}
+			}
+		}
+	}
+
+	// Called by the interpreter between the time slices of the threads
+	void installCompiledCodes() {
+		if (!hasCompiledCodes) {
+			return;
+		}
+		synchronized (this) {
+			for (int i = 0; i < compiledCodes.size(); i++) {
+				install((CompiledCode)compiledCodes.elementAt(i));
+			}
+			compiledCodes.removeAllElements();
+			hasCompiledCodes = false;
+		}
+	}
+
+	// Also called for the precompiled code before the virtual machine runs
+	static void install(final CompiledCode compiledCode) {
+		Method method = compiledCode.method;
+		int[] entries = compiledCode.entries;
+		int[] entryOpcodes = new int[entries.length];
+		synchronized (method) {
+			int[] opcodes = method.opcodes;
+			if (method.compiledCode != null) {
+				method.compiledCode.restoreOpcodes(opcodes);
+			}
+			for (int i = 0; i < entries.length; i++) {
+				entryOpcodes[i] = opcodes[entries[i]];
+				opcodes[entries[i]] = EXECUTE_COMPILED;
+			}
+			compiledCode.entryOpcodes = entryOpcodes;
+			method.compiledCode = compiledCode;
+		}
+	}
+
+	// Called by TieredPolicy on the interpreter thread to return the method to the interpreter
+	static void uninstall(final Method method) {
+		synchronized (method) {
+			if (method.compiledCode != null) {
+				method.compiledCode.restoreOpcodes(method.opcodes);
+				method.compiledCode = null;
+			}
+		}
+	}
+
+	// Null if the method is left to the interpreter
+	private static CompiledCode compile(final Method method) {
+		CodeGenerator generator = new CodeGenerator(method);
+		byte[] classFile = generator.generate(getNextClassName());
+		if (classFile != null) {
+			try {
+				return newCompiledCode(HiddenClassDefiner.define(classFile), method, generator.getEntries(), generator.getConstants());
+			} catch (Exception e) {
+				// The class is not definable on this platform
+			} catch (LinkageError e) {
+				// The generated code is rejected by the verifier
+			}
+		}
+		// Stay in the profiled tier, where the method was before it was requested
+		method.tier = TieredPolicy.TIER_PROFILED;
+		return null;
+	}
+
+	static CompiledCode newCompiledCode(final Class compiledClass, final Method method, final int[] entries, final Object[] constants) throws Exception {
+		CompiledCode compiledCode = (CompiledCode)compiledClass.newInstance();
+		compiledCode.method = method;
+		compiledCode.entries = entries;
+		compiledCode.constants = constants;
+		return compiledCode;
+	}
+
+	private static synchronized String getNextClassName() {
+		return CodeGenerator.PACKAGE_NAME + "Compiled" + compiledClassCount++;
+	}
+}
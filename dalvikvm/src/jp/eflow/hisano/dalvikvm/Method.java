@@ -29,6 +29,10 @@ final class Method {
 	int flag;
 	boolean isInstance;
 	boolean isSynchronized;
+	boolean isAbstract;
+
+	// The index into Clazz#vtable, or the itable for an interface method
+	int vtableIndex;
 
 	String name;
 	String descriptor;
@@ -43,29 +47,54 @@ final class Method {
 	int registerCount;
 	int incomingArgumentCount;
 	int outgoingArgumentCount;
+	// The offsets of the long and double arguments, which are passed as two ints and kept in Frame#longRegisters, or null
+	int[] wideArgumentOffsets;
+	// The registers whose objects are released by Frame#releaseDeadObjects before each invocation and target of the backward branches, or null
+	int[][] deadObjectRegisters;
+	// The registers which may keep the objects, and the others are not cleared by Frame#destroy
+	int[] objectRegisterIndexes;
 	
-	int[] lowerCodes;
-	int[] upperCodes;
 	int[] codes;
 
-	String[] strings;
-	String[] types;
-
-	String[] descriptors;
+	// Instructions decoded by InstructionDecoder, indexed by the instruction index
+	int[] opcodes;
+	int[] operandsA;
+	int[] operandsB;
+	int[] operandsC;
+	// The static field storages, methods and inline caches resolved by the quickened instructions, and the switch tables
+	Object[] resolvedReferences;
+	// The instruction index of each code address
+	int[] indexes;
 
-	String[] fieldClasses;
-	String[] fieldTypes;
-	String[] fieldNames;
-
-	String[] methodClasses;
-	String[] methodTypes;
-	String[] methodNames;
+	// Shared by all methods of the dex file
+	DexCache dexCache;
 
+	// The start, end and handler addresses are instruction indexes
 	int[] exceptionStartAddresses;
 	int[] exceptionEndAdresses;
 	int[] exceptionHandlerIndexes;
 	String[][] exceptionHandlerTypes;
 	int[][] exceptionHandlerAddresses;
+	// The handler list index of each instruction, or -1 outside of the try blocks
+	int[] instructionHandlerIndexes;
+	// Resolved lazily from the descriptors of exceptionHandlerTypes by Thread#handleThrowable, and null for the classes not found
+	Class[][] exceptionHandlerClasses;
+
+	// Counted by the interpreter, and the sum of them is compared with nextTierCount to ask TieredPolicy for the next tier
+	int invocationCount;
+	int backwardBranchCount;
+	int nextTierCount;
+	int tier;
+	// The backward branches counted per target instruction in the profiled tier
+	int[] loopCounts;
+	// Set when a linked class overrides this method. Until then the invoke-virtual instructions calling this are bound to this (class hierarchy analysis)
+	boolean isOverridden;
+	// The instructions bound to this, which are rewritten back into the dispatching form when this is overridden
+	Method[] boundCallers;
+	int[] boundIndexes;
+	int boundCount;
+	// Entered by the execute-compiled instructions which JitCompiler writes over the entry points
+	CompiledCode compiledCode;
 
 	Method(final Clazz clazz) {
 		this.clazz = clazz;
@@ -0,0 +1,91 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm;
+
+// The payload of a packed-switch or sparse-switch instruction decoded once by InstructionDecoder, with the targets as instruction indexes
+final class SwitchTable {
+	private static final int PACKED_SWITCH_PAYLOAD = 0x0100;
+
+	// The first key of the packed switch, whose keys are consecutive
+	private final int firstKey;
+	// The sorted keys of the sparse switch, and null for the packed switch
+	private final int[] keys;
+	final int[] targets;
+
+	SwitchTable(final int[] codes, final int payloadAddress, final int address, final int[] indexes) {
+		int size = codes[payloadAddress + 1];
+		int targetAddress;
+		if (codes[payloadAddress] == PACKED_SWITCH_PAYLOAD) {
+			firstKey = getInt(codes, payloadAddress + 2);
+			keys = null;
+			targetAddress = payloadAddress + 4;
+		} else {
+			firstKey = 0;
+			keys = new int[size];
+			for (int i = 0; i < size; i++) {
+				keys[i] = getInt(codes, payloadAddress + 2 + i * 2);
+			}
+			targetAddress = payloadAddress + 2 + size * 2;
+		}
+		targets = new int[size];
+		for (int i = 0; i < size; i++) {
+			// The targets are relative to the address of the switch instruction
+			targets[i] = indexes[address + getInt(codes, targetAddress + i * 2)];
+		}
+	}
+
+	int getKey(final int index) {
+		return keys == null ? firstKey + index : keys[index];
+	}
+
+	// The instruction index of the case, or -1 to execute the next instruction
+	int getTarget(final int value) {
+		int[] currentKeys = keys;
+		if (currentKeys == null) {
+			int index = value - firstKey;
+			if (0 <= index && index < targets.length) {
+				return targets[index];
+			}
+			return -1;
+		}
+		int low = 0;
+		int high = currentKeys.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int key = currentKeys[middle];
+			if (key < value) {
+				low = middle + 1;
+			} else if (value < key) {
+				high = middle - 1;
+			} else {
+				return targets[middle];
+			}
+		}
+		return -1;
+	}
+
+	private static int getInt(final int[] codes, final int address) {
+		return codes[address] | (codes[address + 1] << 16);
+	}
+}
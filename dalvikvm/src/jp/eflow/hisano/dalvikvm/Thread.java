@@ -27,6 +27,7 @@ import java.util.Vector;
 
 final strictfp class Thread {
 	private static final int INSTRUCTIONS_PER_PRIORITY = 20;
+	private static final int DEFAULT_FRAME_SIZE = 16;
 
 	// The upper STATUS_RUNNING status constants need to mean 'running'.
 	static final int STATUS_NOT_STARTED = 0;
@@ -40,7 +41,8 @@ final strictfp class Thread {
 
 	final VirtualMachine vm;
 
-	private final Vector frames = new Vector();
+	// The frames of the depths, which are re-used by the later calls of the same depth
+	private Frame[] frames = new Frame[DEFAULT_FRAME_SIZE];
 	private int currentFrame = -1;
 
 	int status = STATUS_NOT_STARTED;
@@ -70,18 +72,25 @@ final strictfp class Thread {
 	}
 
 	Frame pushFrame() {
-		currentFrame++;
-		if (frames.size() < currentFrame + 1) {
-			frames.addElement(new Frame(this));
+		int depth = ++currentFrame;
+		if (frames.length == depth) {
+			Frame[] newFrames = new Frame[depth * 2];
+			System.arraycopy(frames, 0, newFrames, 0, depth);
+			frames = newFrames;
 		}
-		return (Frame)frames.elementAt(currentFrame);
+		Frame frame = frames[depth];
+		if (frame == null) {
+			frame = new Frame(this);
+			frames[depth] = frame;
+		}
+		return frame;
 	}
 
 	Frame getCurrentFrame() {
 		if (currentFrame < 0) {
 			return null;
 		}
-		return (Frame)frames.elementAt(currentFrame);
+		return frames[currentFrame];
 	}
 
 	private Frame popFrame() {
@@ -89,7 +98,7 @@ final strictfp class Thread {
 	}
 
 	private Frame popFrameByThrowable(final Throwable e) {
-		Frame previousFrame = (Frame)frames.elementAt(currentFrame--);
+		Frame previousFrame = frames[currentFrame--];
 		boolean isChangeThreadFrame = previousFrame.isChangeThreadFrame;
 		previousFrame.destroy();
 		if (isChangeThreadFrame) {
@@ -104,7 +113,7 @@ final strictfp class Thread {
 			joinedThreads.removeAllElements();
 			throw new ChangeThreadException(e);
 		} else {
-			return ((Frame)frames.elementAt(currentFrame));
+			return frames[currentFrame];
 		}
 	}
 
@@ -112,2247 +121,2312 @@ final strictfp class Thread {
 		int count = INSTRUCTIONS_PER_PRIORITY * priority;
 
 		Frame frame = getCurrentFrame();
-		Method method = frame.method;
-		int[] lowerCodes = method.lowerCodes;
-		int[] upperCodes = method.upperCodes;
-		int[] codes = method.codes;
+		frameLoop: while (true) {
+			// Keep the state of the current frame in locals and reload them only when the frame is changed
+			Method method = frame.method;
+			int[] opcodes = method.opcodes;
+			int[] operandsA = method.operandsA;
+			int[] operandsB = method.operandsB;
+			int[] operandsC = method.operandsC;
+			Object[] resolvedReferences = method.resolvedReferences;
+			int[] intRegisters = frame.intRegisters;
+			Object[] objectRegisters = frame.objectRegisters;
+			long[] longRegisters = frame.longRegisters;
+			int pc = frame.pc;
 
-		while (endless || 0 < count--) {
 			try {
-				switch (lowerCodes[frame.pc]) {
-					case 0x00: {
-						// nop
-						frame.pc++;
-					}
-					case 0x01: {
-						// move vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int source = upperCodes[frame.pc++] >> 4;
-						frame.intRegisters[destination] = frame.intRegisters[source];
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x02: {
-						// move/from16 vAA, vBBBB
-						int destination = upperCodes[frame.pc++];
-						int source = codes[frame.pc++];
-						frame.intRegisters[destination] = frame.intRegisters[source];
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x03: {
-						// move/16 vAAAA, vBBBB
-						frame.pc++;
-						int destination = codes[frame.pc++];
-						int source = codes[frame.pc++];
-						frame.intRegisters[destination] = frame.intRegisters[source];
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x04: {
-						// move-wide vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int source = upperCodes[frame.pc++] >> 4;
-						frame.intRegisters[destination] = frame.intRegisters[source];
-						frame.intRegisters[destination + 1] = frame.intRegisters[source + 1];
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x05: {
-						// move-wide/from16 vAA, vBBBB
-						int destination = upperCodes[frame.pc++];
-						int source = codes[frame.pc++];
-						frame.intRegisters[destination] = frame.intRegisters[source];
-						frame.intRegisters[destination + 1] = frame.intRegisters[source + 1];
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x06: {
-						// move-wide/16 vAAAA, vBBBB
-						frame.pc++;
-						int destination = codes[frame.pc++];
-						int source = codes[frame.pc++];
-						frame.intRegisters[destination] = frame.intRegisters[source];
-						frame.intRegisters[destination + 1] = frame.intRegisters[source + 1];
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x07: {
-						// move-object vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int source = upperCodes[frame.pc++] >> 4;
-						frame.objectRegisters[destination] = frame.objectRegisters[source];
-						frame.isObjectRegister[destination] = true;
-						break;
-					}
-					case 0x08: {
-						// move-object/from16 vAA, vBBBB
-						int destination = upperCodes[frame.pc++];
-						int source = codes[frame.pc++];
-						frame.objectRegisters[destination] = frame.objectRegisters[source];
-						frame.isObjectRegister[destination] = true;
-						break;
-					}
-					case 0x09: {
-						// move-object/16 vAAAA, vBBBB
-						frame.pc++;
-						int destination = codes[frame.pc++];
-						int source = codes[frame.pc++];
-						frame.objectRegisters[destination] = frame.objectRegisters[source];
-						frame.isObjectRegister[destination] = true;
-						break;
-					}
-					case 0x0A: {
-						//  move-result vAA
-						int destination = upperCodes[frame.pc++];
-						frame.intRegisters[destination] = frame.singleReturn;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x0B: {
-						// move-result-wide vAA
-						int destination = upperCodes[frame.pc++];
-						Utils.setLong(frame.intRegisters, destination, frame.doubleReturn);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x0C: {
-						// move-result-object vAA
-						int destination = upperCodes[frame.pc++];
-						frame.objectRegisters[destination] = frame.objectReturn;
-						frame.isObjectRegister[destination] = true;
-						break;
-					}
-					case 0x0D: {
-						// move-exception vAA
-						int destination = upperCodes[frame.pc++];
-						frame.objectRegisters[destination] = frame.throwableReturn;
-						frame.isObjectRegister[destination] = true;
-						break;
-					}
-					case 0x0E: {
-						// return-void
-						frame = popFrame();
-
-						method = frame.method;
-						lowerCodes = method.lowerCodes;
-						upperCodes = method.upperCodes;
-						codes = method.codes;
-						break;
-					}
-					case 0x0F: {
-						// return vAA
-						int result = frame.intRegisters[upperCodes[frame.pc++]];
-						frame = popFrame();
-						frame.singleReturn = result;
-
-						method = frame.method;
-						lowerCodes = method.lowerCodes;
-						upperCodes = method.upperCodes;
-						codes = method.codes;
-						break;
-					}
-					case 0x10: {
-						// return-wide vAA
-						long result = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]);
-						frame = popFrame();
-						frame.doubleReturn = result;
-
-						method = frame.method;
-						lowerCodes = method.lowerCodes;
-						upperCodes = method.upperCodes;
-						codes = method.codes;
-						break;
-					}
-					case 0x11: {
-						// return-object vAA
-						Object result = frame.objectRegisters[upperCodes[frame.pc++]];
-						frame = popFrame();
-						frame.objectReturn = result;
-
-						method = frame.method;
-						lowerCodes = method.lowerCodes;
-						upperCodes = method.upperCodes;
-						codes = method.codes;
-						break;
-					}
-					case 0x12: {
-						// const/4 vA, #+B
-						int data = upperCodes[frame.pc++];
-						int destination = data & 0xF;
-						int value = (data << 24) >> 28;
-						frame.intRegisters[destination] = value;
-						if (value == 0) {
-							frame.objectRegisters[destination] = null;
-						}
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x13: {
-						// const/16 vAA, #+BBBB
-						int destination = upperCodes[frame.pc++];
-						int value = codes[frame.pc++];
-						frame.intRegisters[destination] = (short)value;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x14: {
-						// const vAA, #+BBBBBBBB
-						int destination = upperCodes[frame.pc++];
-						int value = codes[frame.pc++];
-						value |= codes[frame.pc++] << 16;
-						frame.intRegisters[destination] = value;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x15: {
-						// const/high16 vAA, #+BBBB0000
-						int destination = upperCodes[frame.pc++];
-						int value = codes[frame.pc++] << 16;
-						frame.intRegisters[destination] = value;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x16: {
-						// const-wide/16 vAA, #+BBBB
-						int destination = upperCodes[frame.pc++];
-						long value = (short)codes[frame.pc++];
-						Utils.setLong(frame.intRegisters, destination, value);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x17: {
-						// const-wide/32 vAA, #+BBBBBBBB
-						int destination = upperCodes[frame.pc++];
-						long value = codes[frame.pc++];
-						value = (int)(value | codes[frame.pc++] << 16);
-						Utils.setLong(frame.intRegisters, destination, value);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x18: {
-						// const-wide vAA, #+BBBBBBBBBBBBBBBB
-						int destination = upperCodes[frame.pc++];
-						long value = codes[frame.pc++];
-						value |= codes[frame.pc++] << 16;
-						value |= codes[frame.pc++] << 32;
-						value |= codes[frame.pc++] << 48;
-						Utils.setLong(frame.intRegisters, destination, value);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x19: {
-						// const-wide/high16 vAA, #+BBBB000000000000
-						int destination = upperCodes[frame.pc++];
-						long value = (long)codes[frame.pc++] << 48;
-						Utils.setLong(frame.intRegisters, destination, value);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x1A: {
-						// const-string vAA, string@BBBB
-						int destination = upperCodes[frame.pc++];
-						frame.objectRegisters[destination] = method.strings[codes[frame.pc++]];
-						frame.isObjectRegister[destination] = true;
-						break;
-					}
-					case 0x1B: {
-						// const-string/jumbo vAA, string@BBBBBBBB
-						int destination = upperCodes[frame.pc++];
-						int source = codes[frame.pc++];
-						source |= codes[frame.pc++] << 16;
-						frame.objectRegisters[destination] = method.strings[source];
-						frame.isObjectRegister[destination] = true;
-						break;
-					}
-					case 0x1C: {
-						//  const-class vAA, type@BBBB
-						int destination = upperCodes[frame.pc++];
-						Object value = vm.handleClassGetter(method.types[codes[frame.pc++]]);
-						frame.objectRegisters[destination] = value;
-						frame.isObjectRegister[destination] = true;
-						break;
-					}
-					case 0x1D: {
-						// monitor-enter vAA
-						Object instance = frame.objectRegisters[upperCodes[frame.pc++]];
-						if (instance == null) {
-							throw new NullPointerException();
+				while (endless || 0 < count--) {
+					switch (opcodes[pc]) {
+						case 0x00: {
+							// nop
+							pc++;
+							break;
 						}
-						frame.thread.acquireLock(instance, true);
-						break;
-					}
-					case 0x1E: {
-						// monitor-exit vAA
-						Object instance = frame.objectRegisters[upperCodes[frame.pc++]];
-						if (instance == null) {
-							throw new NullPointerException();
+						case 0x01: {
+							// move vA, vB
+							int destination = operandsA[pc];
+							int source = operandsB[pc];
+							intRegisters[destination] = intRegisters[source];
+							pc++;
+							break;
 						}
-						frame.thread.releaseLock(instance);
-						break;
-					}
-					case 0x1F: {
-						// check-cast vAA, type@BBBB
-						Object checked = frame.objectRegisters[upperCodes[frame.pc++]];
-						String type = method.types[codes[frame.pc++]];
-						if (checked != null && !isInstance(checked, type)) {
-							throw new ClassCastException();
+						case 0x02: {
+							// move/from16 vAA, vBBBB
+							int destination = operandsA[pc];
+							int source = operandsB[pc];
+							intRegisters[destination] = intRegisters[source];
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x20: {
-						// instance-of vA, vB, type@CCCC
-						int destination = upperCodes[frame.pc] & 0xF;
-						Object object = frame.objectRegisters[upperCodes[frame.pc++] >> 4];
-						String type = method.types[codes[frame.pc++]];
-						frame.intRegisters[destination] = Utils.toInt(isInstance(object, type));
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x21: {
-						// array-length vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						Object array = frame.objectRegisters[upperCodes[frame.pc++] >> 4];
-						int value;
-						if (array instanceof boolean[]) {
-							value = ((boolean[])array).length;
-						} else if (array instanceof byte[]) {
-							value = ((byte[])array).length;
-						} else if (array instanceof short[]) {
-							value = ((short[])array).length;
-						} else if (array instanceof int[]) {
-							value = ((int[])array).length;
-						} else if (array instanceof long[]) {
-							value = ((long[])array).length;
-						} else {
-							value = ((Object[])array).length;
-						}
-						frame.intRegisters[destination] = value;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x22: {
-						// new-instance vAA, type@BBBB
-						int destination = upperCodes[frame.pc++];
-						String type = method.types[codes[frame.pc++]];
-						String className = type.substring(1, type.length() - 1);
-						Clazz clazz = vm.systemClassLoader.loadClass(className);
-						if (clazz != null) {
-							frame.objectRegisters[destination] = new Instance(clazz);
-						} else {
-							frame.objectRegisters[destination] = new String(className); // This instance will be replaced when executing invokespecial
-						}
-						frame.isObjectRegister[destination] = true;
-						break;
-					}
-					case 0x23: {
-						// new-array vA, vB, type@CCCC
-						int destination = upperCodes[frame.pc] & 0xF;
-						int size = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						String type = method.types[codes[frame.pc++]];
-
-						frame.objectRegisters[destination] = handleNewArray(type, 1, size, -1, -1);
-						frame.isObjectRegister[destination] = true;
-						break;
-					}
-					case 0x24: {
-						// filled-new-array {vD, vE, vF, vG, vA}, type@CCCC
-						int elements = upperCodes[frame.pc++] << 16;
-						String type = method.types[codes[frame.pc++]];
-						elements |= codes[frame.pc++];
-
-						if ("[I".equals(type)) {
-							int[] value = new int[elements >> 20];
-							for (int i = 0, length = value.length; i < length; i++) {
-								value[i] = frame.intRegisters[(elements >> (i * 4)) & 0xF];
-							}
-							frame.objectReturn = value;
-						} else {
-							throw new VirtualMachineException("not supported array type: " + type);
+						case 0x03: {
+							// move/16 vAAAA, vBBBB
+							int destination = operandsA[pc];
+							int source = operandsB[pc];
+							intRegisters[destination] = intRegisters[source];
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x25: {
-						// filled-new-array/range {vCCCC .. vNNNN}, type@BBBB
-						int size = upperCodes[frame.pc++] << 16;
-						String type = method.types[codes[frame.pc++]];
-						int firstRegister = codes[frame.pc++];
-
-						if ("[I".equals(type)) {
-							int[] array = new int[size];
-							for (int i = 0, length = array.length; i < length; i++) {
-								array[i] = frame.intRegisters[firstRegister + i];
-							}
-							frame.objectReturn = array;
-						} else {
-							throw new VirtualMachineException("not supported array type: " + type);
+						case 0x04: {
+							// move-wide vA, vB
+							longRegisters[operandsA[pc]] = longRegisters[operandsB[pc]];
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x26: {
-						// fill-array-data vAA, +BBBBBBBB
-						Object array = frame.objectRegisters[upperCodes[frame.pc++]];
-						int offset = codes[frame.pc++];
-						offset |= codes[frame.pc++] << 16;
-						int address = frame.pc + offset - 3;
-						if (codes[address] != 0x0300) {
-							throw new RuntimeException("illegal array data header");
-						}
-						if (array instanceof int[]) {
-							int[] intArray = (int[])array;
-							if (codes[address + 1] != 4) {
-								throw new RuntimeException("illegal array element size");
-							}
-							int elementCount = (codes[address + 3] << 16) | codes[address + 2];
-							for (int i = 0; i < elementCount; i++) {
-								int elementAddress = address + 4 + i * 2;
-								intArray[i] = (codes[elementAddress + 1] << 16) | codes[elementAddress];
-							}
-						} else {
-							throw new RuntimeException("not supported array type: " + array.getClass().getName());
+						case 0x05: {
+							// move-wide/from16 vAA, vBBBB
+							longRegisters[operandsA[pc]] = longRegisters[operandsB[pc]];
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x27: {
-						// throw vAA
-						Throwable throwable = (Throwable)frame.objectRegisters[upperCodes[frame.pc++]];
-						if (throwable == null) {
-							throw new NullPointerException();
+						case 0x06: {
+							// move-wide/16 vAAAA, vBBBB
+							longRegisters[operandsA[pc]] = longRegisters[operandsB[pc]];
+							pc++;
+							break;
 						}
-						throw throwable;
-					}
-					case 0x28: {
-						// goto +AA
-						int offset = (byte)upperCodes[frame.pc++];
-						frame.pc += offset - 1;
-						break;
-					}
-					case 0x29: {
-						// goto/16 +AAAA
-						frame.pc++;
-						int offset = (short)codes[frame.pc++];
-						frame.pc += offset - 2;
-						break;
-					}
-					case 0x2A: {
-						// goto/32 +AAAAAAAA
-						frame.pc++;
-						int offset = codes[frame.pc++];
-						offset |= codes[frame.pc++] << 16;
-						frame.pc += offset - 3;
-						break;
-					}
-					case 0x2B: {
-						// packed-switch vAA, +BBBBBBBB
-						int comparedValue = frame.intRegisters[upperCodes[frame.pc++]];
-						int offset = codes[frame.pc++];
-						offset |= codes[frame.pc++] << 16;
-
-						int address = frame.pc - 3 + offset;
-						// skip ident
-						address += 1;
-						int size = codes[address++];
-						int firstValue = codes[address] | (codes[address + 1] << 16);
-						address += 2;
-
-						if (firstValue <= comparedValue && comparedValue < firstValue + size) {
-							int index = (comparedValue - firstValue) * 2;
-							frame.pc += -3 + (codes[address + index] | (codes[address + index + 1] << 16));
+						case 0x07: {
+							// move-object vA, vB
+							int destination = operandsA[pc];
+							int source = operandsB[pc];
+							objectRegisters[destination] = objectRegisters[source];
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x2C: {
-						// sparse-switch vAA, +BBBBBBBB
-						int comparedValue = frame.intRegisters[upperCodes[frame.pc++]];
-						int offset = codes[frame.pc++];
-						offset |= codes[frame.pc++] << 16;
-
-						int address = frame.pc - 3 + offset;
-						// skip ident
-						address += 1;
-						int size = codes[address++];
-						for (int i = 0; i < size; i++) {
-							int value = codes[address] | (codes[address + 1] << 16);
-							if (value == comparedValue) {
-								address += size * 2;
-								frame.pc += -3 + (codes[address] | (codes[address + 1] << 16));
-								break;
-							}
-							address += 2;
+						case 0x08: {
+							// move-object/from16 vAA, vBBBB
+							int destination = operandsA[pc];
+							int source = operandsB[pc];
+							objectRegisters[destination] = objectRegisters[source];
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x2D: {
-						// cmpl-float vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						float firstValue = Float.intBitsToFloat(frame.intRegisters[lowerCodes[frame.pc]]);
-						float secondValue = Float.intBitsToFloat(frame.intRegisters[upperCodes[frame.pc++]]);
-						if (Float.isNaN(firstValue) || Float.isNaN(secondValue)) {
-							frame.intRegisters[destination] = -1;
-						} else if (firstValue == secondValue) {
-							frame.intRegisters[destination] = 0;
-						} else if (firstValue < secondValue) {
-							frame.intRegisters[destination] = -1;
-						} else {
-							frame.intRegisters[destination] = 1;
+						case 0x09: {
+							// move-object/16 vAAAA, vBBBB
+							int destination = operandsA[pc];
+							int source = operandsB[pc];
+							objectRegisters[destination] = objectRegisters[source];
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x2E: {
-						// cmpg-float vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						float firstValue = Float.intBitsToFloat(frame.intRegisters[lowerCodes[frame.pc]]);
-						float secondValue = Float.intBitsToFloat(frame.intRegisters[upperCodes[frame.pc++]]);
-						if (Float.isNaN(firstValue) || Float.isNaN(secondValue)) {
-							frame.intRegisters[destination] = 1;
-						} else if (firstValue == secondValue) {
-							frame.intRegisters[destination] = 0;
-						} else if (firstValue < secondValue) {
-							frame.intRegisters[destination] = -1;
-						} else {
-							frame.intRegisters[destination] = 1;
+						case 0x0A: {
+							//  move-result vAA
+							int destination = operandsA[pc];
+							intRegisters[destination] = frame.singleReturn;
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x2F: {
-						// cmpl-double vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						double firstValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]));
-						double secondValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]));
-						if (Double.isNaN(firstValue) || Double.isNaN(secondValue)) {
-							frame.intRegisters[destination] = -1;
-						} else if (firstValue == secondValue) {
-							frame.intRegisters[destination] = 0;
-						} else if (firstValue < secondValue) {
-							frame.intRegisters[destination] = -1;
-						} else {
-							frame.intRegisters[destination] = 1;
+						case 0x0B: {
+							// move-result-wide vAA
+							int destination = operandsA[pc];
+							longRegisters[destination] = frame.doubleReturn;
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x30: {
-						// cmpg-double vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						double firstValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]));
-						double secondValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]));
-						if (Double.isNaN(firstValue) || Double.isNaN(secondValue)) {
-							frame.intRegisters[destination] = 1;
-						} else if (firstValue == secondValue) {
-							frame.intRegisters[destination] = 0;
-						} else if (firstValue < secondValue) {
-							frame.intRegisters[destination] = -1;
-						} else {
-							frame.intRegisters[destination] = 1;
+						case 0x0C: {
+							// move-result-object vAA
+							int destination = operandsA[pc];
+							objectRegisters[destination] = frame.objectReturn;
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x31: {
-						// cmp-long vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						long firstValue = Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]);
-						if (firstValue < secondValue) {
-							frame.intRegisters[destination] = -1;
-						} else if (firstValue == secondValue) {
-							frame.intRegisters[destination] = 0;
-						} else {
-							frame.intRegisters[destination] = 1;
-						}
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x32: {
-						// if-eq vA, vB, +CCCC
-						int firstRegister = upperCodes[frame.pc] & 0xF;
-						int secondRegister = upperCodes[frame.pc++] >> 4;
-						int offset = (short)codes[frame.pc++];
-						boolean result;
-						if (frame.isObjectRegister[firstRegister]) {
-							if (frame.isObjectRegister[secondRegister]) {
-								result = frame.objectRegisters[firstRegister] == frame.objectRegisters[secondRegister];
-							} else {
-								result = frame.objectRegisters[firstRegister] == toObject(frame.intRegisters[secondRegister]);
-							}
-						} else {
-							if (frame.isObjectRegister[secondRegister]) {
-								result = toObject(frame.intRegisters[firstRegister]) == frame.objectRegisters[secondRegister];
-							} else {
-								result = frame.intRegisters[firstRegister] == frame.intRegisters[secondRegister];
+						case 0x0D: {
+							// move-exception vAA
+							int destination = operandsA[pc];
+							objectRegisters[destination] = frame.throwableReturn;
+							pc++;
+							break;
+						}
+						case 0x0E: {
+							// return-void
+							frame = popFrame();
+							continue frameLoop;
+						}
+						case 0x0F: {
+							// return vAA
+							int result = intRegisters[operandsA[pc]];
+							frame = popFrame();
+							frame.singleReturn = result;
+							continue frameLoop;
+						}
+						case 0x10: {
+							// return-wide vAA
+							long result = longRegisters[operandsA[pc]];
+							frame = popFrame();
+							frame.doubleReturn = result;
+							continue frameLoop;
+						}
+						case 0x11: {
+							// return-object vAA
+							Object result = objectRegisters[operandsA[pc]];
+							frame = popFrame();
+							frame.objectReturn = result;
+							continue frameLoop;
+						}
+						case 0x12: {
+							// const/4 vA, #+B
+							int destination = operandsA[pc];
+							int value = operandsB[pc];
+							intRegisters[destination] = value;
+							if (value == 0) {
+								objectRegisters[destination] = null;
 							}
+							pc++;
+							break;
 						}
-						if (result) {
-							frame.pc += offset - 2;
+						case 0x13: {
+							// const/16 vAA, #+BBBB
+							int destination = operandsA[pc];
+							int value = operandsB[pc];
+							intRegisters[destination] = value;
+							if (value == 0) {
+								objectRegisters[destination] = null;
+							}
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x33: {
-						// if-ne vA, vB, +CCCC
-						int firstRegister = upperCodes[frame.pc] & 0xF;
-						int secondRegister = upperCodes[frame.pc++] >> 4;
-						int offset = (short)codes[frame.pc++];
-						boolean result;
-						if (frame.isObjectRegister[firstRegister]) {
-							if (frame.isObjectRegister[secondRegister]) {
-								result = frame.objectRegisters[firstRegister] != frame.objectRegisters[secondRegister];
-							} else {
-								result = frame.objectRegisters[firstRegister] != toObject(frame.intRegisters[secondRegister]);
+						case 0x14: {
+							// const vAA, #+BBBBBBBB
+							int destination = operandsA[pc];
+							int value = operandsB[pc];
+							intRegisters[destination] = value;
+							if (value == 0) {
+								objectRegisters[destination] = null;
 							}
-						} else {
-							if (frame.isObjectRegister[secondRegister]) {
-								result = toObject(frame.intRegisters[firstRegister]) != frame.objectRegisters[secondRegister];
-							} else {
-								result = frame.intRegisters[firstRegister] != frame.intRegisters[secondRegister];
+							pc++;
+							break;
+						}
+						case 0x15: {
+							// const/high16 vAA, #+BBBB0000
+							int destination = operandsA[pc];
+							int value = operandsB[pc];
+							intRegisters[destination] = value;
+							if (value == 0) {
+								objectRegisters[destination] = null;
 							}
+							pc++;
+							break;
 						}
-						if (result) {
-							frame.pc += offset - 2;
+						case 0x16: {
+							// const-wide/16 vAA, #+BBBB
+							int destination = operandsA[pc];
+							longRegisters[destination] = operandsB[pc];
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x34: {
-						// if-lt vA, vB, +CCCC
-						int firstValue = frame.intRegisters[upperCodes[frame.pc] & 0xF];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						int offset = (short)codes[frame.pc++];
-						if (firstValue < secondValue) {
-							frame.pc += offset - 2;
+						case 0x17: {
+							// const-wide/32 vAA, #+BBBBBBBB
+							int destination = operandsA[pc];
+							longRegisters[destination] = operandsB[pc];
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x35: {
-						// if-ge vA, vB, +CCCC
-						int firstValue = frame.intRegisters[upperCodes[frame.pc] & 0xF];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						int offset = (short)codes[frame.pc++];
-						if (firstValue >= secondValue) {
-							frame.pc += offset - 2;
+						case 0x18: {
+							// const-wide vAA, #+BBBBBBBBBBBBBBBB
+							int destination = operandsA[pc];
+							long value = ((long)operandsC[pc] << 32) | (operandsB[pc] & 0xFFFFFFFFL);
+							longRegisters[destination] = value;
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x36: {
-						// if-gt vA, vB, +CCCC
-						int firstValue = frame.intRegisters[upperCodes[frame.pc] & 0xF];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						int offset = (short)codes[frame.pc++];
-						if (firstValue > secondValue) {
-							frame.pc += offset - 2;
+						case 0x19: {
+							// const-wide/high16 vAA, #+BBBB000000000000
+							int destination = operandsA[pc];
+							long value = (long)operandsB[pc] << 32;
+							longRegisters[destination] = value;
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x37: {
-						// if-le vA, vB, +CCCC
-						int firstValue = frame.intRegisters[upperCodes[frame.pc] & 0xF];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						int offset = (short)codes[frame.pc++];
-						if (firstValue <= secondValue) {
-							frame.pc += offset - 2;
+						case 0x1A: {
+							// const-string vAA, string@BBBB
+							int destination = operandsA[pc];
+							objectRegisters[destination] = method.dexCache.strings[operandsB[pc]];
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x38: {
-						// if-eqz vAA, +BBBB
-						int comparedRegister = upperCodes[frame.pc++];
-						int offset = (short)codes[frame.pc++];
-						boolean result;
-						if (frame.isObjectRegister[comparedRegister]) {
-							result = frame.objectRegisters[comparedRegister] == null;
-						} else {
-							result = frame.intRegisters[comparedRegister] == 0;
-						}
-						if (result) {
-							frame.pc += offset - 2;
+						case 0x1B: {
+							// const-string/jumbo vAA, string@BBBBBBBB
+							int destination = operandsA[pc];
+							objectRegisters[destination] = method.dexCache.strings[operandsB[pc]];
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x39: {
-						// if-nez vAA, +BBBB
-						int comparedRegister = upperCodes[frame.pc++];
-						int offset = (short)codes[frame.pc++];
-						boolean result;
-						if (frame.isObjectRegister[comparedRegister]) {
-							result = frame.objectRegisters[comparedRegister] != null;
-						} else {
-							result = frame.intRegisters[comparedRegister] != 0;
-						}
-						if (result) {
-							frame.pc += offset - 2;
+						case 0x21: {
+							// array-length vA, vB
+							int destination = operandsA[pc];
+							Object array = objectRegisters[operandsB[pc]];
+							int value;
+							if (array instanceof boolean[]) {
+								value = ((boolean[])array).length;
+							} else if (array instanceof byte[]) {
+								value = ((byte[])array).length;
+							} else if (array instanceof short[]) {
+								value = ((short[])array).length;
+							} else if (array instanceof int[]) {
+								value = ((int[])array).length;
+							} else if (array instanceof long[]) {
+								value = ((long[])array).length;
+							} else {
+								value = ((Object[])array).length;
+							}
+							intRegisters[destination] = value;
+							pc++;
+							break;
 						}
-						break;
-					}
-					case 0x3A: {
-						// if-ltz vAA, +BBBB
-						int comparedValue = frame.intRegisters[upperCodes[frame.pc++]];
-						int offset = (short)codes[frame.pc++];
-						if (comparedValue < 0) {
-							frame.pc += offset - 2;
+						case 0x28: {
+							// goto +AA
+							pc = branch(frame, pc, operandsA[pc]);
+							break;
 						}
-						break;
-					}
-					case 0x3B: {
-						// if-gez vAA, +BBBB
-						int comparedValue = frame.intRegisters[upperCodes[frame.pc++]];
-						int offset = (short)codes[frame.pc++];
-						if (comparedValue >= 0) {
-							frame.pc += offset - 2;
+						case 0x29: {
+							// goto/16 +AAAA
+							pc = branch(frame, pc, operandsA[pc]);
+							break;
 						}
-						break;
-					}
-					case 0x3C: {
-						// if-gtz vAA, +BBBB
-						int comparedValue = frame.intRegisters[upperCodes[frame.pc++]];
-						int offset = (short)codes[frame.pc++];
-						if (comparedValue > 0) {
-							frame.pc += offset - 2;
+						case 0x2A: {
+							// goto/32 +AAAAAAAA
+							pc = branch(frame, pc, operandsA[pc]);
+							break;
 						}
-						break;
-					}
-					case 0x3D: {
-						// if-lez vAA, +BBBB
-						int comparedValue = frame.intRegisters[upperCodes[frame.pc++]];
-						int offset = (short)codes[frame.pc++];
-						if (comparedValue <= 0) {
-							frame.pc += offset - 2;
+						case 0x32: {
+							// if-eq vA, vB, +CCCC
+							int firstValue = intRegisters[operandsA[pc]];
+							int secondValue = intRegisters[operandsB[pc]];
+							if (firstValue == secondValue) {
+								pc = branch(frame, pc, operandsC[pc]);
+							} else {
+								pc++;
+							}
+							break;
 						}
-						break;
-					}
-						// 0x3E ... 0x43 (unused)
-					case 0x44: {
-						// aget vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						Object array = frame.objectRegisters[lowerCodes[frame.pc]];
-						int index = frame.intRegisters[upperCodes[frame.pc++]];
-						if (array == null) {
-							throw new NullPointerException();
-						} else if (array instanceof int[]) {
-							int[] intArray = (int[])array;
-							frame.intRegisters[destination] = intArray[index];
-						} else if (array instanceof float[]) {
-							float[] floatArray = (float[])array;
-							frame.intRegisters[destination] = Float.floatToIntBits(floatArray[index]);
-						} else {
-							throw new VirtualMachineException("not supported type:" + array.getClass());
-						}
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x45: {
-						// aget-wide vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						Object array = frame.objectRegisters[lowerCodes[frame.pc]];
-						int index = frame.intRegisters[upperCodes[frame.pc++]];
-						if (array == null) {
-							throw new NullPointerException();
-						} else if (array instanceof long[]) {
-							long[] longArray = (long[])array;
-							Utils.setLong(frame.intRegisters, destination, longArray[index]);
-						} else if (array instanceof double[]) {
-							double[] doubleArray = (double[])array;
-							Utils.setLong(frame.intRegisters, destination, Double.doubleToLongBits(doubleArray[index]));
-						} else {
-							throw new VirtualMachineException("not supported type:" + array.getClass());
-						}
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x46: {
-						// aget-object vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						Object[] array = (Object[])frame.objectRegisters[lowerCodes[frame.pc]];
-						int index = frame.intRegisters[upperCodes[frame.pc++]];
-						frame.objectRegisters[destination] = array[index];
-						frame.isObjectRegister[destination] = true;
-						break;
-					}
-					case 0x47: {
-						// aget-boolean vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						boolean[] array = (boolean[])frame.objectRegisters[lowerCodes[frame.pc]];
-						int index = frame.intRegisters[upperCodes[frame.pc++]];
-						frame.intRegisters[destination] = array[index] ? 1 : 0;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x48: {
-						// aget-byte vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						byte[] array = (byte[])frame.objectRegisters[lowerCodes[frame.pc]];
-						int index = frame.intRegisters[upperCodes[frame.pc++]];
-						frame.intRegisters[destination] = array[index];
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x49: {
-						// aget-char vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						char[] array = (char[])frame.objectRegisters[lowerCodes[frame.pc]];
-						int index = frame.intRegisters[upperCodes[frame.pc++]];
-						frame.intRegisters[destination] = array[index];
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x4A: {
-						// aget-short vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						short[] array = (short[])frame.objectRegisters[lowerCodes[frame.pc]];
-						int index = frame.intRegisters[upperCodes[frame.pc++]];
-						frame.intRegisters[destination] = array[index];
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x4B: {
-						// aput vAA, vBB, vCC
-						int source = upperCodes[frame.pc++];
-						Object array = frame.objectRegisters[lowerCodes[frame.pc]];
-						int index = frame.intRegisters[upperCodes[frame.pc++]];
-						if (array == null) {
-							throw new NullPointerException();
-						} else if (array instanceof int[]) {
-							((int[])array)[index] = frame.intRegisters[source];
-						} else if (array instanceof float[]) {
-							((float[])array)[index] = Float.intBitsToFloat(frame.intRegisters[source]);
-						} else {
-							throw new VirtualMachineException("not supported type:" + array.getClass());
+						case 0x33: {
+							// if-ne vA, vB, +CCCC
+							int firstValue = intRegisters[operandsA[pc]];
+							int secondValue = intRegisters[operandsB[pc]];
+							if (firstValue != secondValue) {
+								pc = branch(frame, pc, operandsC[pc]);
+							} else {
+								pc++;
+							}
+							break;
 						}
-						break;
-					}
-					case 0x4C: {
-						// aput-wide vAA, vBB, vCC
-						int source = upperCodes[frame.pc++];
-						Object array = frame.objectRegisters[lowerCodes[frame.pc]];
-						int index = frame.intRegisters[upperCodes[frame.pc++]];
-						if (array == null) {
-							throw new NullPointerException();
-						} else if (array instanceof long[]) {
-							((long[])array)[index] = Utils.getLong(frame.intRegisters, source);
-						} else if (array instanceof double[]) {
-							((double[])array)[index] = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, source));
-						} else {
-							throw new VirtualMachineException("not supported type:" + array.getClass());
+						case 0x34: {
+							// if-lt vA, vB, +CCCC
+							int firstValue = intRegisters[operandsA[pc]];
+							int secondValue = intRegisters[operandsB[pc]];
+							if (firstValue < secondValue) {
+								pc = branch(frame, pc, operandsC[pc]);
+							} else {
+								pc++;
+							}
+							break;
 						}
-						break;
-					}
-					case 0x4D: {
-						// aput-object vAA, vBB, vCC
-						int source = upperCodes[frame.pc++];
-						Object[] array = (Object[])frame.objectRegisters[lowerCodes[frame.pc]];
-						int index = frame.intRegisters[upperCodes[frame.pc++]];
-						array[index] = (Object)frame.objectRegisters[source];
-						break;
-					}
-					case 0x4E: {
-						// aput-boolean vAA, vBB, vCC
-						int source = upperCodes[frame.pc++];
-						boolean[] array = (boolean[])frame.objectRegisters[lowerCodes[frame.pc]];
-						int index = frame.intRegisters[upperCodes[frame.pc++]];
-						array[index] = frame.intRegisters[source] != 0;
-						break;
-					}
-					case 0x4F: {
-						// aput-byte vAA, vBB, vCC
-						int source = upperCodes[frame.pc++];
-						byte[] array = (byte[])frame.objectRegisters[lowerCodes[frame.pc]];
-						int index = frame.intRegisters[upperCodes[frame.pc++]];
-						array[index] = (byte)frame.intRegisters[source];
-						break;
-					}
-					case 0x50: {
-						// aput-char vAA, vBB, vCC
-						int source = upperCodes[frame.pc++];
-						char[] array = (char[])frame.objectRegisters[lowerCodes[frame.pc]];
-						int index = frame.intRegisters[upperCodes[frame.pc++]];
-						array[index] = (char)frame.intRegisters[source];
-						break;
-					}
-					case 0x51: {
-						// aput-short vAA, vBB, vCC
-						int source = upperCodes[frame.pc++];
-						short[] array = (short[])frame.objectRegisters[lowerCodes[frame.pc]];
-						int index = frame.intRegisters[upperCodes[frame.pc++]];
-						array[index] = (short)frame.intRegisters[source];
-						break;
-					}
-					case 0x52:
-						// iget vA, vB, field@CCCC
-					case 0x53:
-						// iget-wide vA, vB, field@CCCC
-					case 0x54:
-						// iget-object vA, vB, field@CCCC
-					case 0x55:
-						// iget-boolean vA, vB, field@CCCC
-					case 0x56:
-						// iget-byte vA, vB, field@CCCC
-					case 0x57:
-						// iget-char vA, vB, field@CCCC
-					case 0x58: {
-						// iget-short vA, vB, field@CCCC
-						int destination = upperCodes[frame.pc] & 0xF;
-						int source = upperCodes[frame.pc++] >> 4;
-						int fieldIndex = codes[frame.pc++];
-						getField(false, frame, source, fieldIndex, destination);
-						break;
-					}
-					case 0x59:
-						// iput vA, vB, field@CCCC
-					case 0x5A:
-						// iput-wide vA, vB, field@CCCC
-					case 0x5B:
-						// iput-object vA, vB, field@CCCC
-					case 0x5C:
-						// iput-boolean vA, vB, field@CCCC
-					case 0x5D:
-						// iput-byte vA, vB, field@CCCC
-					case 0x5E:
-						// iput-char vA, vB, field@CCCC
-					case 0x5F: {
-						// iput-short vA, vB, field@CCCC
-						int source = upperCodes[frame.pc] & 0xF;
-						int destination = upperCodes[frame.pc++] >> 4;
-						int fieldIndex = codes[frame.pc++];
-						setField(false, frame, source, destination, fieldIndex);
-						break;
-					}
-					case 0x60:
-						// sget
-					case 0x61:
-						// sget-wide
-					case 0x62:
-						// sget-object
-					case 0x63:
-						// sget-boolean
-					case 0x64:
-						// sget-byte
-					case 0x65:
-						// sget-boolean
-					case 0x66: {
-						// sget-short
-						int destination = upperCodes[frame.pc++];
-						int fieldIndex = codes[frame.pc++];
-						getField(true, frame, 0, fieldIndex, destination);
-						break;
-					}
-					case 0x67:
-						// sput
-					case 0x68:
-						// sput-wide
-					case 0x69:
-						// sput-object
-					case 0x6A:
-						// sput-boolean
-					case 0x6B:
-						// sput-byte
-					case 0x6C:
-						// sput-char
-					case 0x6D: {
-						// sput-short
-						int source = upperCodes[frame.pc++];
-						int fieldIndex = codes[frame.pc++];
-						setField(true, frame, source, 0, fieldIndex);
-						break;
-					}
-					case 0x6E: {
-						// invoke-virtual {vD, vE, vF, vG, vA}, meth@CCCC
-						int registers = upperCodes[frame.pc++] << 16;
-						int methodIndex = codes[frame.pc++];
-						registers |= codes[frame.pc++];
-
-						String clazzName = method.methodClasses[methodIndex];
-						String methodName = method.methodNames[methodIndex];
-						String methodDescriptor = method.methodTypes[methodIndex];
-
-						setArguments(true, frame, methodDescriptor, registers);
-
-						Object object = frame.objectArguments[0];
-						if (object == null) {
-							throw new NullPointerException();
-						}
-						if (object instanceof Instance) {
-							Instance instance = (Instance)object;
-							Method target = instance.clazz.getVirtualMethod(methodName, methodDescriptor);
-							if (target != null) {
-								frame = callMethod(true, target, frame);
-
-								method = frame.method;
-								lowerCodes = method.lowerCodes;
-								upperCodes = method.upperCodes;
-								codes = method.codes;
-								break;
-							} else if (clazzName.equals(instance.clazz.name)) {
-								clazzName = instance.clazz.superClass;
+						case 0x35: {
+							// if-ge vA, vB, +CCCC
+							int firstValue = intRegisters[operandsA[pc]];
+							int secondValue = intRegisters[operandsB[pc]];
+							if (firstValue >= secondValue) {
+								pc = branch(frame, pc, operandsC[pc]);
+							} else {
+								pc++;
 							}
+							break;
 						}
-						if (!vm.handleInstanceMethod(frame, clazzName, methodName, methodDescriptor)) {
-							throw new VirtualMachineException("not implemented instance method = " + clazzName + " - " + methodName + " - " + methodDescriptor);
+						case 0x36: {
+							// if-gt vA, vB, +CCCC
+							int firstValue = intRegisters[operandsA[pc]];
+							int secondValue = intRegisters[operandsB[pc]];
+							if (firstValue > secondValue) {
+								pc = branch(frame, pc, operandsC[pc]);
+							} else {
+								pc++;
+							}
+							break;
 						}
-						break;
-					}
-					case 0x6F:
-						// invoke-super {vD, vE, vF, vG, vA}, meth@CCCC
-						// fall through
-					case 0x70: {
-						// invoke-direct {vD, vE, vF, vG, vA}, meth@CCCC
-						int registers = upperCodes[frame.pc++] << 16;
-						int methodIndex = codes[frame.pc++];
-						registers |= codes[frame.pc++];
-
-						String clazzName = method.methodClasses[methodIndex];
-						String methodName = method.methodNames[methodIndex];
-						String methodDescriptor = method.methodTypes[methodIndex];
-
-						setArguments(true, frame, methodDescriptor, registers);
-
-						Object object = frame.objectArguments[0];
-						if (object == null) {
-							throw new NullPointerException();
-						}
-						Clazz clazz = vm.systemClassLoader.loadClass(clazzName);
-						if (clazz != null) {
-							frame = callMethod(false, clazz.getDirectMethod(methodName, methodDescriptor), frame);
-
-							method = frame.method;
-							lowerCodes = method.lowerCodes;
-							upperCodes = method.upperCodes;
-							codes = method.codes;
-						} else {
-							if (methodName.equals("<init>")) {
-								if (!vm.handleConstructor(frame, clazzName, methodName, methodDescriptor)) {
-									throw new VirtualMachineException("not implemented constructor = " + clazzName + " - " + methodDescriptor);
-								}
+						case 0x37: {
+							// if-le vA, vB, +CCCC
+							int firstValue = intRegisters[operandsA[pc]];
+							int secondValue = intRegisters[operandsB[pc]];
+							if (firstValue <= secondValue) {
+								pc = branch(frame, pc, operandsC[pc]);
 							} else {
-								if (!vm.handleInstanceMethod(frame, clazzName, methodName, methodDescriptor)) {
-									throw new VirtualMachineException("not implemented instance method = " + clazzName + " - " + methodName + " - " + methodDescriptor);
-								}
+								pc++;
 							}
+							break;
 						}
-						break;
-					}
-					case 0x71: {
-						// invoke-static {vD, vE, vF, vG, vA}, meth@CCCC
-						int registers = upperCodes[frame.pc++] << 16;
-						int methodIndex = codes[frame.pc++];
-						registers |= codes[frame.pc++];
-
-						String clazzName = method.methodClasses[methodIndex];
-						String methodName = method.methodNames[methodIndex];
-						String methodDescriptor = method.methodTypes[methodIndex];
-
-						setArguments(false, frame, methodDescriptor, registers);
-
-						Clazz clazz = vm.systemClassLoader.loadClass(clazzName);
-						if (clazz != null) {
-							frame = callMethod(false, clazz.getDirectMethod(methodName, methodDescriptor), frame);
-
-							method = frame.method;
-							lowerCodes = method.lowerCodes;
-							upperCodes = method.upperCodes;
-							codes = method.codes;
-						} else {
-							if (!vm.handleClassMethod(frame, clazzName, methodName, methodDescriptor)) {
-								throw new VirtualMachineException("not implemented class method = " + clazzName + " - " + methodName + " - " + methodDescriptor);
+						case 0x38: {
+							// if-eqz vAA, +BBBB
+							int comparedValue = intRegisters[operandsA[pc]];
+							if (comparedValue == 0) {
+								pc = branch(frame, pc, operandsB[pc]);
+							} else {
+								pc++;
 							}
+							break;
 						}
-						break;
-					}
-					case 0x72: {
-						// invoke-interface {vD, vE, vF, vG, vA}, meth@CCCC
-						int registers = upperCodes[frame.pc++] << 16;
-						int methodIndex = codes[frame.pc++];
-						registers |= codes[frame.pc++];
-
-						String clazzName = method.methodClasses[methodIndex];
-						String methodName = method.methodNames[methodIndex];
-						String methodDescriptor = method.methodTypes[methodIndex];
-
-						setArguments(true, frame, methodDescriptor, registers);
-
-						Object object = frame.objectArguments[0];
-						if (object == null) {
-							throw new NullPointerException();
-						}
-						if (object instanceof Instance) {
-							Clazz clazz = ((Instance)object).clazz;
-							frame = callMethod(false, clazz.getVirtualMethod(methodName, methodDescriptor), frame);
-
-							method = frame.method;
-							lowerCodes = method.lowerCodes;
-							upperCodes = method.upperCodes;
-							codes = method.codes;
-						} else {
-							if (!vm.handleInterfaceMethod(frame, clazzName, methodName, methodDescriptor)) {
-								throw new VirtualMachineException("not implemented instance method = " + clazzName + " - " + methodName + " - " + methodDescriptor);
+						case 0x39: {
+							// if-nez vAA, +BBBB
+							int comparedValue = intRegisters[operandsA[pc]];
+							if (comparedValue != 0) {
+								pc = branch(frame, pc, operandsB[pc]);
+							} else {
+								pc++;
 							}
+							break;
 						}
-						break;
-					}
-						// 0x73 (unused)
-					case 0x74: {
-						// invoke-virtual/range {vCCCC .. vNNNN}, meth@BBBB
-						int range = upperCodes[frame.pc++];
-						int methodIndex = codes[frame.pc++];
-						int firstRegister = codes[frame.pc++];
-
-						String clazzName = method.methodClasses[methodIndex];
-						String methodName = method.methodNames[methodIndex];
-						String methodDescriptor = method.methodTypes[methodIndex];
-
-						setArguments(true, frame, methodDescriptor, firstRegister, range);
-
-						Object object = frame.objectArguments[0];
-						if (object == null) {
-							throw new NullPointerException();
-						}
-						if (object instanceof Instance) {
-							Instance instance = (Instance)object;
-							Method target = instance.clazz.getVirtualMethod(methodName, methodDescriptor);
-							if (target != null) {
-								frame = callMethod(true, target, frame);
-
-								method = frame.method;
-								lowerCodes = method.lowerCodes;
-								upperCodes = method.upperCodes;
-								codes = method.codes;
-								break;
-							} else if (clazzName.equals(instance.clazz.name)) {
-								clazzName = instance.clazz.superClass;
+						case 0x3A: {
+							// if-ltz vAA, +BBBB
+							int comparedValue = intRegisters[operandsA[pc]];
+							if (comparedValue < 0) {
+								pc = branch(frame, pc, operandsB[pc]);
+							} else {
+								pc++;
 							}
+							break;
 						}
-						if (!vm.handleInstanceMethod(frame, clazzName, methodName, methodDescriptor)) {
-							throw new VirtualMachineException("not implemented instance method = " + clazzName + " - " + methodName + " - " + methodDescriptor);
+						case 0x3B: {
+							// if-gez vAA, +BBBB
+							int comparedValue = intRegisters[operandsA[pc]];
+							if (comparedValue >= 0) {
+								pc = branch(frame, pc, operandsB[pc]);
+							} else {
+								pc++;
+							}
+							break;
 						}
-						break;
-					}
-					case 0x75:
-						// invoke-super/range {vCCCC .. vNNNN}, meth@BBBB
-						// fall through
-					case 0x76: {
-						// invoke-direct/range {vCCCC .. vNNNN}, meth@BBBB
-						int range = upperCodes[frame.pc++];
-						int methodIndex = codes[frame.pc++];
-						int firstRegister = codes[frame.pc++];
-
-						String clazzName = method.methodClasses[methodIndex];
-						String methodName = method.methodNames[methodIndex];
-						String methodDescriptor = method.methodTypes[methodIndex];
-
-						setArguments(true, frame, methodDescriptor, firstRegister, range);
-
-						Object object = frame.objectArguments[0];
-						if (object == null) {
-							throw new NullPointerException();
-						}
-						Clazz clazz = vm.systemClassLoader.loadClass(clazzName);
-						if (clazz != null) {
-							frame = callMethod(false, clazz.getDirectMethod(methodName, methodDescriptor), frame);
-
-							method = frame.method;
-							lowerCodes = method.lowerCodes;
-							upperCodes = method.upperCodes;
-							codes = method.codes;
-						} else {
-							if (methodName.equals("<init>")) {
-								if (!vm.handleConstructor(frame, clazzName, methodName, methodDescriptor)) {
-									throw new VirtualMachineException("not implemented constructor = " + clazzName + " - " + methodDescriptor);
-								}
+						case 0x3C: {
+							// if-gtz vAA, +BBBB
+							int comparedValue = intRegisters[operandsA[pc]];
+							if (comparedValue > 0) {
+								pc = branch(frame, pc, operandsB[pc]);
 							} else {
-								if (!vm.handleInstanceMethod(frame, clazzName, methodName, methodDescriptor)) {
-									throw new VirtualMachineException("not implemented instance method = " + clazzName + " - " + methodName + " - " + methodDescriptor);
-								}
+								pc++;
 							}
+							break;
 						}
-						break;
-					}
-					case 0x77: {
-						// invoke-static/range {vCCCC .. vNNNN}, meth@BBBB
-						int range = upperCodes[frame.pc++];
-						int methodIndex = codes[frame.pc++];
-						int firstRegister = codes[frame.pc++];
-
-						String clazzName = method.methodClasses[methodIndex];
-						String methodName = method.methodNames[methodIndex];
-						String methodDescriptor = method.methodTypes[methodIndex];
-
-						setArguments(false, frame, methodDescriptor, firstRegister, range);
-
-						Clazz clazz = vm.systemClassLoader.loadClass(clazzName);
-						if (clazz != null) {
-							frame = callMethod(false, clazz.getDirectMethod(methodName, methodDescriptor), frame);
-
-							method = frame.method;
-							lowerCodes = method.lowerCodes;
-							upperCodes = method.upperCodes;
-							codes = method.codes;
-						} else {
-							if (!vm.handleClassMethod(frame, clazzName, methodName, methodDescriptor)) {
-								throw new VirtualMachineException("not implemented class method = " + clazzName + " - " + methodName + " - " + methodDescriptor);
+						case 0x3D: {
+							// if-lez vAA, +BBBB
+							int comparedValue = intRegisters[operandsA[pc]];
+							if (comparedValue <= 0) {
+								pc = branch(frame, pc, operandsB[pc]);
+							} else {
+								pc++;
 							}
+							break;
 						}
-						break;
-					}
-					case 0x78: {
-						// invoke-interface/range {vCCCC .. vNNNN}, meth@BBBB
-						int range = upperCodes[frame.pc++];
-						int methodIndex = codes[frame.pc++];
-						int firstRegister = codes[frame.pc++];
-
-						String clazzName = method.methodClasses[methodIndex];
-						String methodName = method.methodNames[methodIndex];
-						String methodDescriptor = method.methodTypes[methodIndex];
-
-						setArguments(true, frame, methodDescriptor, firstRegister, range);
-
-						Object object = frame.objectArguments[0];
-						if (object == null) {
-							throw new NullPointerException();
-						}
-						if (object instanceof Instance) {
-							Clazz clazz = ((Instance)object).clazz;
-							frame = callMethod(false, clazz.getVirtualMethod(methodName, methodDescriptor), frame);
-
-							method = frame.method;
-							lowerCodes = method.lowerCodes;
-							upperCodes = method.upperCodes;
-							codes = method.codes;
-						} else {
-							if (!vm.handleInterfaceMethod(frame, clazzName, methodName, methodDescriptor)) {
-								throw new VirtualMachineException("not implemented instance method = " + clazzName + " - " + methodName + " - " + methodDescriptor);
+						case 0x3E: {
+							// if-eq vA, vB, +CCCC of the objects, rewritten by Verifier
+							Object firstValue = objectRegisters[operandsA[pc]];
+							Object secondValue = objectRegisters[operandsB[pc]];
+							if (firstValue == secondValue) {
+								pc = branch(frame, pc, operandsC[pc]);
+							} else {
+								pc++;
 							}
+							break;
 						}
-						break;
-					}
-						// 0x79 ... 0x7A (unused)
-					case 0x7B: {
-						// neg-int vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int value = -frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = value;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x7C: {
-						// not-int vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int value = ~frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = value;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x7D: {
-						// neg-long vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						long value = -Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4);
-						Utils.setLong(frame.intRegisters, destination, value);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x7E: {
-						// not-long vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						long value = ~Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4);
-						Utils.setLong(frame.intRegisters, destination, value);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x7F: {
-						// neg-float vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						float value = -Float.intBitsToFloat(frame.intRegisters[upperCodes[frame.pc++] >> 4]);
-						frame.intRegisters[destination] = Float.floatToIntBits(value);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x80: {
-						// neg-double vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						double value = -Double.longBitsToDouble(Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4));
-						Utils.setLong(frame.intRegisters, destination, Double.doubleToLongBits(value));
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x81: {
-						// int-to-long
-						int destination = upperCodes[frame.pc] & 0xF;
-						long value = (int)frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						Utils.setLong(frame.intRegisters, destination, value);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x82: {
-						// int-to-float vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						float value = (float)frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = Float.floatToIntBits(value);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x83: {
-						// int-to-double vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						double value = (double)frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						Utils.setLong(frame.intRegisters, destination, Double.doubleToLongBits(value));
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x84: {
-						// long-to-int
-						int destination = upperCodes[frame.pc] & 0xF;
-						int value = (int)Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4);
-						frame.intRegisters[destination] = value;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x85: {
-						// long-to-float
-						int destination = upperCodes[frame.pc] & 0xF;
-						float value = (float)Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4);
-						frame.intRegisters[destination] = Float.floatToIntBits(value);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x86: {
-						// long-to-double
-						int destination = upperCodes[frame.pc] & 0xF;
-						double value = (double)Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4);
-						Utils.setLong(frame.intRegisters, destination, Double.doubleToLongBits(value));
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x87: {
-						// float-to-int vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int value = (int)Float.intBitsToFloat(frame.intRegisters[upperCodes[frame.pc++] >> 4]);
-						frame.intRegisters[destination] = value;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x88: {
-						// float-to-long vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						long value = (long)Float.intBitsToFloat(frame.intRegisters[upperCodes[frame.pc++] >> 4]);
-						Utils.setLong(frame.intRegisters, destination, value);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x89: {
-						// float-to-double vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						double value = (double)Float.intBitsToFloat(frame.intRegisters[upperCodes[frame.pc++] >> 4]);
-						Utils.setLong(frame.intRegisters, destination, Double.doubleToLongBits(value));
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x8A: {
-						// double-to-int vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int value = (int)Double.longBitsToDouble(Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4));
-						frame.intRegisters[destination] = value;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x8B: {
-						// double-to-long vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						long value = (long)Double.longBitsToDouble(Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4));
-						Utils.setLong(frame.intRegisters, destination, value);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x8C: {
-						// double-to-float vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						float value = (float)Double.longBitsToDouble(Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4));
-						frame.intRegisters[destination] = Float.floatToIntBits(value);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x8D: {
-						// int-to-byte
-						int destination = upperCodes[frame.pc] & 0xF;
-						int value = (byte)frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = value;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x8E: {
-						// int-to-char
-						int destination = upperCodes[frame.pc] & 0xF;
-						int value = (char)frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = value;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x8F: {
-						// int-to-short
-						int destination = upperCodes[frame.pc] & 0xF;
-						int value = (short)frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = value;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x90: {
-						// add-int vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++]];
-						frame.intRegisters[destination] = firstValue + secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x91: {
-						// sub-int vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++]];
-						frame.intRegisters[destination] = firstValue - secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x92: {
-						// mul-int vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++]];
-						frame.intRegisters[destination] = firstValue * secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x93: {
-						// div-int vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++]];
-						frame.intRegisters[destination] = firstValue / secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x94: {
-						// rem-int vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++]];
-						frame.intRegisters[destination] = firstValue % secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x95: {
-						// and-int vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++]];
-						frame.intRegisters[destination] = firstValue & secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x96: {
-						// or-int vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++]];
-						frame.intRegisters[destination] = firstValue | secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x97: {
-						// xor-int vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++]];
-						frame.intRegisters[destination] = firstValue ^ secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x98: {
-						// shl-int vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++]];
-						frame.intRegisters[destination] = firstValue << secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x99: {
-						// shr-int vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++]];
-						frame.intRegisters[destination] = firstValue >> secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x9A: {
-						// ushr-int vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++]];
-						frame.intRegisters[destination] = firstValue >>> secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x9B: {
-						// add-long vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						long firstValue = Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]);
-						Utils.setLong(frame.intRegisters, destination, firstValue + secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x9C: {
-						// sub-long vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						long firstValue = Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]);
-						Utils.setLong(frame.intRegisters, destination, firstValue - secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x9D: {
-						// mul-long
-						int destination = upperCodes[frame.pc++];
-						long firstValue = Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]);
-						Utils.setLong(frame.intRegisters, destination, firstValue * secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x9E: {
-						// div-long
-						int destination = upperCodes[frame.pc++];
-						long firstValue = Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]);
-						Utils.setLong(frame.intRegisters, destination, firstValue / secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0x9F: {
-						// rem-long
-						int destination = upperCodes[frame.pc++];
-						long firstValue = Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]);
-						Utils.setLong(frame.intRegisters, destination, firstValue % secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xA0: {
-						// and-long
-						int destination = upperCodes[frame.pc++];
-						long firstValue = Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]);
-						Utils.setLong(frame.intRegisters, destination, firstValue & secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xA1: {
-						// or-long
-						int destination = upperCodes[frame.pc++];
-						long firstValue = Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]);
-						Utils.setLong(frame.intRegisters, destination, firstValue | secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xA2: {
-						// xor-long
-						int destination = upperCodes[frame.pc++];
-						long firstValue = Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]);
-						Utils.setLong(frame.intRegisters, destination, firstValue ^ secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xA3: {
-						// shl-long
-						int destination = upperCodes[frame.pc++];
-						long firstValue = Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]);
-						long secondValue = frame.intRegisters[upperCodes[frame.pc++]] & 0x3F;
-						Utils.setLong(frame.intRegisters, destination, firstValue << secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xA4: {
-						// shr-long
-						int destination = upperCodes[frame.pc++];
-						long firstValue = Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]);
-						long secondValue = frame.intRegisters[upperCodes[frame.pc++]] & 0x3F;
-						Utils.setLong(frame.intRegisters, destination, firstValue >> secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xA5: {
-						// ushr-long
-						int destination = upperCodes[frame.pc++];
-						long firstValue = Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]);
-						long secondValue = frame.intRegisters[upperCodes[frame.pc++]] & 0x3F;
-						Utils.setLong(frame.intRegisters, destination, firstValue >>> secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xA6: {
-						// add-float vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						float firstValue = Float.intBitsToFloat(frame.intRegisters[lowerCodes[frame.pc]]);
-						float secondValue = Float.intBitsToFloat(frame.intRegisters[upperCodes[frame.pc++]]);
-						frame.intRegisters[destination] = Float.floatToIntBits(firstValue + secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xA7: {
-						// sub-float vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						float firstValue = Float.intBitsToFloat(frame.intRegisters[lowerCodes[frame.pc]]);
-						float secondValue = Float.intBitsToFloat(frame.intRegisters[upperCodes[frame.pc++]]);
-						frame.intRegisters[destination] = Float.floatToIntBits(firstValue - secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xA8: {
-						// mul-float vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						float firstValue = Float.intBitsToFloat(frame.intRegisters[lowerCodes[frame.pc]]);
-						float secondValue = Float.intBitsToFloat(frame.intRegisters[upperCodes[frame.pc++]]);
-						frame.intRegisters[destination] = Float.floatToIntBits(firstValue * secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xA9: {
-						// div-float vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						float firstValue = Float.intBitsToFloat(frame.intRegisters[lowerCodes[frame.pc]]);
-						float secondValue = Float.intBitsToFloat(frame.intRegisters[upperCodes[frame.pc++]]);
-						frame.intRegisters[destination] = Float.floatToIntBits(firstValue / secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xAA: {
-						// rem-float vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						float firstValue = Float.intBitsToFloat(frame.intRegisters[lowerCodes[frame.pc]]);
-						float secondValue = Float.intBitsToFloat(frame.intRegisters[upperCodes[frame.pc++]]);
-						frame.intRegisters[destination] = Float.floatToIntBits(firstValue % secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xAB: {
-						// add-double vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						double firstValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]));
-						double secondValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]));
-						Utils.setLong(frame.intRegisters, destination, Double.doubleToLongBits(firstValue + secondValue));
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xAC: {
-						// sub-double vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						double firstValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]));
-						double secondValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]));
-						Utils.setLong(frame.intRegisters, destination, Double.doubleToLongBits(firstValue - secondValue));
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xAD: {
-						// mul-double vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						double firstValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]));
-						double secondValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]));
-						Utils.setLong(frame.intRegisters, destination, Double.doubleToLongBits(firstValue * secondValue));
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xAE: {
-						// div-double vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						double firstValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]));
-						double secondValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]));
-						Utils.setLong(frame.intRegisters, destination, Double.doubleToLongBits(firstValue / secondValue));
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xAF: {
-						// rem-double vAA, vBB, vCC
-						int destination = upperCodes[frame.pc++];
-						double firstValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, lowerCodes[frame.pc]));
-						double secondValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, upperCodes[frame.pc++]));
-						Utils.setLong(frame.intRegisters, destination, Double.doubleToLongBits(firstValue % secondValue));
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xB0: {
-						// add-int/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[destination];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = firstValue + secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xB1: {
-						// sub-int/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[destination];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = firstValue - secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xB2: {
-						// mul-int/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[destination];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = firstValue * secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xB3: {
-						// div-int/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[destination];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = firstValue / secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xB4: {
-						// rem-int/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[destination];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = firstValue % secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xB5: {
-						// and-int/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[destination];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = firstValue & secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xB6: {
-						// or-int/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[destination];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = firstValue | secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xB7: {
-						// xor-int/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[destination];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = firstValue ^ secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xB8: {
-						// shl-int/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[destination];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = firstValue << secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xB9: {
-						// shr-int/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[destination];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = firstValue >> secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xBA: {
-						// ushr-int/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[destination];
-						int secondValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						frame.intRegisters[destination] = firstValue >>> secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xBB: {
-						// add-long/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						long firstValue = Utils.getLong(frame.intRegisters, destination);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4);
-						Utils.setLong(frame.intRegisters, destination, firstValue + secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xBC: {
-						// sub-long/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						long firstValue = Utils.getLong(frame.intRegisters, destination);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4);
-						Utils.setLong(frame.intRegisters, destination, firstValue - secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xBD: {
-						// mul-long/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						long firstValue = Utils.getLong(frame.intRegisters, destination);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4);
-						Utils.setLong(frame.intRegisters, destination, firstValue * secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xBE: {
-						// div-long/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						long firstValue = Utils.getLong(frame.intRegisters, destination);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4);
-						Utils.setLong(frame.intRegisters, destination, firstValue / secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xBF: {
-						// rem-long/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						long firstValue = Utils.getLong(frame.intRegisters, destination);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4);
-						Utils.setLong(frame.intRegisters, destination, firstValue % secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xC0: {
-						// and-long/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						long firstValue = Utils.getLong(frame.intRegisters, destination);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4);
-						Utils.setLong(frame.intRegisters, destination, firstValue & secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xC1: {
-						// or-long/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						long firstValue = Utils.getLong(frame.intRegisters, destination);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4);
-						Utils.setLong(frame.intRegisters, destination, firstValue | secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xC2: {
-						// xor-long/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						long firstValue = Utils.getLong(frame.intRegisters, destination);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4);
-						Utils.setLong(frame.intRegisters, destination, firstValue ^ secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xC3: {
-						// shl-long/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						long firstValue = Utils.getLong(frame.intRegisters, destination);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4) & 0x3F;
-						Utils.setLong(frame.intRegisters, destination, firstValue << secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xC4: {
-						// shr-long/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						long firstValue = Utils.getLong(frame.intRegisters, destination);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4) & 0x3F;
-						Utils.setLong(frame.intRegisters, destination, firstValue >> secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xC5: {
-						// ushr-long/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						long firstValue = Utils.getLong(frame.intRegisters, destination);
-						long secondValue = Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4) & 0x3F;
-						Utils.setLong(frame.intRegisters, destination, firstValue >>> secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xC6: {
-						// add-float/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						float firstValue = Float.intBitsToFloat(frame.intRegisters[destination]);
-						float secondValue = Float.intBitsToFloat(frame.intRegisters[upperCodes[frame.pc++] >> 4]);
-						frame.intRegisters[destination] = Float.floatToIntBits(firstValue + secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xC7: {
-						// sub-float/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						float firstValue = Float.intBitsToFloat(frame.intRegisters[destination]);
-						float secondValue = Float.intBitsToFloat(frame.intRegisters[upperCodes[frame.pc++] >> 4]);
-						frame.intRegisters[destination] = Float.floatToIntBits(firstValue - secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xC8: {
-						// mul-float/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						float firstValue = Float.intBitsToFloat(frame.intRegisters[destination]);
-						float secondValue = Float.intBitsToFloat(frame.intRegisters[upperCodes[frame.pc++] >> 4]);
-						frame.intRegisters[destination] = Float.floatToIntBits(firstValue * secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xC9: {
-						// div-float/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						float firstValue = Float.intBitsToFloat(frame.intRegisters[destination]);
-						float secondValue = Float.intBitsToFloat(frame.intRegisters[upperCodes[frame.pc++] >> 4]);
-						frame.intRegisters[destination] = Float.floatToIntBits(firstValue / secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xCA: {
-						// rem-float/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						float firstValue = Float.intBitsToFloat(frame.intRegisters[destination]);
-						float secondValue = Float.intBitsToFloat(frame.intRegisters[upperCodes[frame.pc++] >> 4]);
-						frame.intRegisters[destination] = Float.floatToIntBits(firstValue % secondValue);
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xCB: {
-						// add-double/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						double firstValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, destination));
-						double secondValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4));
-						Utils.setLong(frame.intRegisters, destination, Double.doubleToLongBits(firstValue + secondValue));
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xCC: {
-						// sub-double/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						double firstValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, destination));
-						double secondValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4));
-						Utils.setLong(frame.intRegisters, destination, Double.doubleToLongBits(firstValue - secondValue));
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xCD: {
-						// mul-double/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						double firstValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, destination));
-						double secondValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4));
-						Utils.setLong(frame.intRegisters, destination, Double.doubleToLongBits(firstValue * secondValue));
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xCE: {
-						// div-double/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						double firstValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, destination));
-						double secondValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4));
-						Utils.setLong(frame.intRegisters, destination, Double.doubleToLongBits(firstValue / secondValue));
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xCF: {
-						// rem-double/2addr vA, vB
-						int destination = upperCodes[frame.pc] & 0xF;
-						double firstValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, destination));
-						double secondValue = Double.longBitsToDouble(Utils.getLong(frame.intRegisters, upperCodes[frame.pc++] >> 4));
-						Utils.setLong(frame.intRegisters, destination, Double.doubleToLongBits(firstValue % secondValue));
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xD0: {
-						// add-int/lit16 vA, vB, #+CCCC
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						int secondValue = (short)codes[frame.pc++];
-						frame.intRegisters[destination] = firstValue + secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xD1: {
-						// rsub-int/lit16 vA, vB, #+CCCC
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						int secondValue = (short)codes[frame.pc++];
-						frame.intRegisters[destination] = secondValue - firstValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xD2: {
-						// mul-int/lit16 vA, vB, #+CCCC
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						int secondValue = (short)codes[frame.pc++];
-						frame.intRegisters[destination] = firstValue * secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xD3: {
-						// div-int/lit16 vA, vB, #+CCCC
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						int secondValue = (short)codes[frame.pc++];
-						frame.intRegisters[destination] = firstValue / secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xD4: {
-						// rem-int/lit16 vA, vB, #+CCCC
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						int secondValue = (short)codes[frame.pc++];
-						frame.intRegisters[destination] = firstValue % secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xD5: {
-						// and-int/lit16 vA, vB, #+CCCC
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						int secondValue = (short)codes[frame.pc++];
-						frame.intRegisters[destination] = firstValue & secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xD6: {
-						// or-int/lit16 vA, vB, #+CCCC
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						int secondValue = (short)codes[frame.pc++];
-						frame.intRegisters[destination] = firstValue | secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xD7: {
-						// xor-int/lit16 vA, vB, #+CCCC
-						int destination = upperCodes[frame.pc] & 0xF;
-						int firstValue = frame.intRegisters[upperCodes[frame.pc++] >> 4];
-						int secondValue = (short)codes[frame.pc++];
-						frame.intRegisters[destination] = firstValue ^ secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xD8: {
-						// add-int/lit8 vAA, vBB, #+CC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = (byte)upperCodes[frame.pc++];
-						frame.intRegisters[destination] = firstValue + secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xD9: {
-						// rsub-int/lit8 vAA, vBB, #+CC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = (byte)upperCodes[frame.pc++];
-						frame.intRegisters[destination] = secondValue - firstValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xDA: {
-						// mul-int/lit8 vAA, vBB, #+CC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = (byte)upperCodes[frame.pc++];
-						frame.intRegisters[destination] = firstValue * secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xDB: {
-						// div-int/lit8 vAA, vBB, #+CC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = (byte)upperCodes[frame.pc++];
-						frame.intRegisters[destination] = firstValue / secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xDC: {
-						// rem-int/lit8 vAA, vBB, #+CC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = (byte)upperCodes[frame.pc++];
-						frame.intRegisters[destination] = firstValue % secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xDD: {
-						// and-int/lit8 vAA, vBB, #+CC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = (byte)upperCodes[frame.pc++];
-						frame.intRegisters[destination] = firstValue & secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xDE: {
-						// or-int/lit8 vAA, vBB, #+CC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = (byte)upperCodes[frame.pc++];
-						frame.intRegisters[destination] = firstValue | secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
-					}
-					case 0xDF: {
-						// xor-int/lit8 vAA, vBB, #+CC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = (byte)upperCodes[frame.pc++];
-						frame.intRegisters[destination] = firstValue ^ secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
+						case 0x3F: {
+							// if-ne vA, vB, +CCCC of the objects, rewritten by Verifier
+							Object firstValue = objectRegisters[operandsA[pc]];
+							Object secondValue = objectRegisters[operandsB[pc]];
+							if (firstValue != secondValue) {
+								pc = branch(frame, pc, operandsC[pc]);
+							} else {
+								pc++;
+							}
+							break;
+						}
+						case 0x40: {
+							// if-eqz vAA, +BBBB of the object, rewritten by Verifier
+							Object comparedValue = objectRegisters[operandsA[pc]];
+							if (comparedValue == null) {
+								pc = branch(frame, pc, operandsB[pc]);
+							} else {
+								pc++;
+							}
+							break;
+						}
+						case 0x41: {
+							// if-nez vAA, +BBBB of the object, rewritten by Verifier
+							Object comparedValue = objectRegisters[operandsA[pc]];
+							if (comparedValue != null) {
+								pc = branch(frame, pc, operandsB[pc]);
+							} else {
+								pc++;
+							}
+							break;
+						}
+						case 0x44: {
+							// aget vAA, vBB, vCC
+							int destination = operandsA[pc];
+							Object array = objectRegisters[operandsB[pc]];
+							int index = intRegisters[operandsC[pc]];
+							if (array == null) {
+								throw new NullPointerException();
+							} else if (array instanceof int[]) {
+								int[] intArray = (int[])array;
+								intRegisters[destination] = intArray[index];
+							} else if (array instanceof float[]) {
+								float[] floatArray = (float[])array;
+								intRegisters[destination] = Float.floatToIntBits(floatArray[index]);
+							} else {
+								throw new VirtualMachineException("not supported type:" + array.getClass());
+							}
+							pc++;
+							break;
+						}
+						case 0x46: {
+							// aget-object vAA, vBB, vCC
+							int destination = operandsA[pc];
+							Object[] array = (Object[])objectRegisters[operandsB[pc]];
+							int index = intRegisters[operandsC[pc]];
+							objectRegisters[destination] = array[index];
+							pc++;
+							break;
+						}
+						case 0x47: {
+							// aget-boolean vAA, vBB, vCC
+							int destination = operandsA[pc];
+							boolean[] array = (boolean[])objectRegisters[operandsB[pc]];
+							int index = intRegisters[operandsC[pc]];
+							intRegisters[destination] = array[index] ? 1 : 0;
+							pc++;
+							break;
+						}
+						case 0x48: {
+							// aget-byte vAA, vBB, vCC
+							int destination = operandsA[pc];
+							byte[] array = (byte[])objectRegisters[operandsB[pc]];
+							int index = intRegisters[operandsC[pc]];
+							intRegisters[destination] = array[index];
+							pc++;
+							break;
+						}
+						case 0x49: {
+							// aget-char vAA, vBB, vCC
+							int destination = operandsA[pc];
+							char[] array = (char[])objectRegisters[operandsB[pc]];
+							int index = intRegisters[operandsC[pc]];
+							intRegisters[destination] = array[index];
+							pc++;
+							break;
+						}
+						case 0x4A: {
+							// aget-short vAA, vBB, vCC
+							int destination = operandsA[pc];
+							short[] array = (short[])objectRegisters[operandsB[pc]];
+							int index = intRegisters[operandsC[pc]];
+							intRegisters[destination] = array[index];
+							pc++;
+							break;
+						}
+						case 0x4B: {
+							// aput vAA, vBB, vCC
+							int source = operandsA[pc];
+							Object array = objectRegisters[operandsB[pc]];
+							int index = intRegisters[operandsC[pc]];
+							if (array == null) {
+								throw new NullPointerException();
+							} else if (array instanceof int[]) {
+								((int[])array)[index] = intRegisters[source];
+							} else if (array instanceof float[]) {
+								((float[])array)[index] = Float.intBitsToFloat(intRegisters[source]);
+							} else {
+								throw new VirtualMachineException("not supported type:" + array.getClass());
+							}
+							pc++;
+							break;
+						}
+						case 0x4D: {
+							// aput-object vAA, vBB, vCC
+							int source = operandsA[pc];
+							Object[] array = (Object[])objectRegisters[operandsB[pc]];
+							int index = intRegisters[operandsC[pc]];
+							array[index] = (Object)objectRegisters[source];
+							pc++;
+							break;
+						}
+						case 0x4E: {
+							// aput-boolean vAA, vBB, vCC
+							int source = operandsA[pc];
+							boolean[] array = (boolean[])objectRegisters[operandsB[pc]];
+							int index = intRegisters[operandsC[pc]];
+							array[index] = intRegisters[source] != 0;
+							pc++;
+							break;
+						}
+						case 0x4F: {
+							// aput-byte vAA, vBB, vCC
+							int source = operandsA[pc];
+							byte[] array = (byte[])objectRegisters[operandsB[pc]];
+							int index = intRegisters[operandsC[pc]];
+							array[index] = (byte)intRegisters[source];
+							pc++;
+							break;
+						}
+						case 0x50: {
+							// aput-char vAA, vBB, vCC
+							int source = operandsA[pc];
+							char[] array = (char[])objectRegisters[operandsB[pc]];
+							int index = intRegisters[operandsC[pc]];
+							array[index] = (char)intRegisters[source];
+							pc++;
+							break;
+						}
+						case 0x51: {
+							// aput-short vAA, vBB, vCC
+							int source = operandsA[pc];
+							short[] array = (short[])objectRegisters[operandsB[pc]];
+							int index = intRegisters[operandsC[pc]];
+							array[index] = (short)intRegisters[source];
+							pc++;
+							break;
+						}
+						case Verifier.AGET_INT: {
+							// aget vAA, vBB, vCC of int[], rewritten by Verifier
+							intRegisters[operandsA[pc]] = ((int[])objectRegisters[operandsB[pc]])[intRegisters[operandsC[pc]]];
+							pc++;
+							break;
+						}
+						case Verifier.AGET_FLOAT: {
+							// aget vAA, vBB, vCC of float[], rewritten by Verifier
+							intRegisters[operandsA[pc]] = Float.floatToIntBits(((float[])objectRegisters[operandsB[pc]])[intRegisters[operandsC[pc]]]);
+							pc++;
+							break;
+						}
+						case Verifier.APUT_INT: {
+							// aput vAA, vBB, vCC of int[], rewritten by Verifier
+							((int[])objectRegisters[operandsB[pc]])[intRegisters[operandsC[pc]]] = intRegisters[operandsA[pc]];
+							pc++;
+							break;
+						}
+						case Verifier.APUT_FLOAT: {
+							// aput vAA, vBB, vCC of float[], rewritten by Verifier
+							((float[])objectRegisters[operandsB[pc]])[intRegisters[operandsC[pc]]] = Float.intBitsToFloat(intRegisters[operandsA[pc]]);
+							pc++;
+							break;
+						}
+						case 0x7B: {
+							// neg-int vA, vB
+							int destination = operandsA[pc];
+							int value = -intRegisters[operandsB[pc]];
+							intRegisters[destination] = value;
+							pc++;
+							break;
+						}
+						case 0x7C: {
+							// not-int vA, vB
+							int destination = operandsA[pc];
+							int value = ~intRegisters[operandsB[pc]];
+							intRegisters[destination] = value;
+							pc++;
+							break;
+						}
+						case 0x8D: {
+							// int-to-byte
+							int destination = operandsA[pc];
+							int value = (byte)intRegisters[operandsB[pc]];
+							intRegisters[destination] = value;
+							pc++;
+							break;
+						}
+						case 0x8E: {
+							// int-to-char
+							int destination = operandsA[pc];
+							int value = (char)intRegisters[operandsB[pc]];
+							intRegisters[destination] = value;
+							pc++;
+							break;
+						}
+						case 0x8F: {
+							// int-to-short
+							int destination = operandsA[pc];
+							int value = (short)intRegisters[operandsB[pc]];
+							intRegisters[destination] = value;
+							pc++;
+							break;
+						}
+						case 0x90: {
+							// add-int vAA, vBB, vCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = intRegisters[operandsC[pc]];
+							intRegisters[destination] = firstValue + secondValue;
+							pc++;
+							break;
+						}
+						case 0x91: {
+							// sub-int vAA, vBB, vCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = intRegisters[operandsC[pc]];
+							intRegisters[destination] = firstValue - secondValue;
+							pc++;
+							break;
+						}
+						case 0x92: {
+							// mul-int vAA, vBB, vCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = intRegisters[operandsC[pc]];
+							intRegisters[destination] = firstValue * secondValue;
+							pc++;
+							break;
+						}
+						case 0x93: {
+							// div-int vAA, vBB, vCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = intRegisters[operandsC[pc]];
+							intRegisters[destination] = firstValue / secondValue;
+							pc++;
+							break;
+						}
+						case 0x94: {
+							// rem-int vAA, vBB, vCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = intRegisters[operandsC[pc]];
+							intRegisters[destination] = firstValue % secondValue;
+							pc++;
+							break;
+						}
+						case 0x95: {
+							// and-int vAA, vBB, vCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = intRegisters[operandsC[pc]];
+							intRegisters[destination] = firstValue & secondValue;
+							pc++;
+							break;
+						}
+						case 0x96: {
+							// or-int vAA, vBB, vCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = intRegisters[operandsC[pc]];
+							intRegisters[destination] = firstValue | secondValue;
+							pc++;
+							break;
+						}
+						case 0x97: {
+							// xor-int vAA, vBB, vCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = intRegisters[operandsC[pc]];
+							intRegisters[destination] = firstValue ^ secondValue;
+							pc++;
+							break;
+						}
+						case 0x98: {
+							// shl-int vAA, vBB, vCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = intRegisters[operandsC[pc]];
+							intRegisters[destination] = firstValue << secondValue;
+							pc++;
+							break;
+						}
+						case 0x99: {
+							// shr-int vAA, vBB, vCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = intRegisters[operandsC[pc]];
+							intRegisters[destination] = firstValue >> secondValue;
+							pc++;
+							break;
+						}
+						case 0x9A: {
+							// ushr-int vAA, vBB, vCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = intRegisters[operandsC[pc]];
+							intRegisters[destination] = firstValue >>> secondValue;
+							pc++;
+							break;
+						}
+						case 0xB0: {
+							// add-int/2addr vA, vB
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[destination];
+							int secondValue = intRegisters[operandsB[pc]];
+							intRegisters[destination] = firstValue + secondValue;
+							pc++;
+							break;
+						}
+						case 0xB1: {
+							// sub-int/2addr vA, vB
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[destination];
+							int secondValue = intRegisters[operandsB[pc]];
+							intRegisters[destination] = firstValue - secondValue;
+							pc++;
+							break;
+						}
+						case 0xB2: {
+							// mul-int/2addr vA, vB
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[destination];
+							int secondValue = intRegisters[operandsB[pc]];
+							intRegisters[destination] = firstValue * secondValue;
+							pc++;
+							break;
+						}
+						case 0xB3: {
+							// div-int/2addr vA, vB
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[destination];
+							int secondValue = intRegisters[operandsB[pc]];
+							intRegisters[destination] = firstValue / secondValue;
+							pc++;
+							break;
+						}
+						case 0xB4: {
+							// rem-int/2addr vA, vB
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[destination];
+							int secondValue = intRegisters[operandsB[pc]];
+							intRegisters[destination] = firstValue % secondValue;
+							pc++;
+							break;
+						}
+						case 0xB5: {
+							// and-int/2addr vA, vB
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[destination];
+							int secondValue = intRegisters[operandsB[pc]];
+							intRegisters[destination] = firstValue & secondValue;
+							pc++;
+							break;
+						}
+						case 0xB6: {
+							// or-int/2addr vA, vB
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[destination];
+							int secondValue = intRegisters[operandsB[pc]];
+							intRegisters[destination] = firstValue | secondValue;
+							pc++;
+							break;
+						}
+						case 0xB7: {
+							// xor-int/2addr vA, vB
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[destination];
+							int secondValue = intRegisters[operandsB[pc]];
+							intRegisters[destination] = firstValue ^ secondValue;
+							pc++;
+							break;
+						}
+						case 0xB8: {
+							// shl-int/2addr vA, vB
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[destination];
+							int secondValue = intRegisters[operandsB[pc]];
+							intRegisters[destination] = firstValue << secondValue;
+							pc++;
+							break;
+						}
+						case 0xB9: {
+							// shr-int/2addr vA, vB
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[destination];
+							int secondValue = intRegisters[operandsB[pc]];
+							intRegisters[destination] = firstValue >> secondValue;
+							pc++;
+							break;
+						}
+						case 0xBA: {
+							// ushr-int/2addr vA, vB
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[destination];
+							int secondValue = intRegisters[operandsB[pc]];
+							intRegisters[destination] = firstValue >>> secondValue;
+							pc++;
+							break;
+						}
+						case 0xD0: {
+							// add-int/lit16 vA, vB, #+CCCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue + secondValue;
+							pc++;
+							break;
+						}
+						case 0xD1: {
+							// rsub-int/lit16 vA, vB, #+CCCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = secondValue - firstValue;
+							pc++;
+							break;
+						}
+						case 0xD2: {
+							// mul-int/lit16 vA, vB, #+CCCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue * secondValue;
+							pc++;
+							break;
+						}
+						case 0xD3: {
+							// div-int/lit16 vA, vB, #+CCCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue / secondValue;
+							pc++;
+							break;
+						}
+						case 0xD4: {
+							// rem-int/lit16 vA, vB, #+CCCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue % secondValue;
+							pc++;
+							break;
+						}
+						case 0xD5: {
+							// and-int/lit16 vA, vB, #+CCCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue & secondValue;
+							pc++;
+							break;
+						}
+						case 0xD6: {
+							// or-int/lit16 vA, vB, #+CCCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue | secondValue;
+							pc++;
+							break;
+						}
+						case 0xD7: {
+							// xor-int/lit16 vA, vB, #+CCCC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue ^ secondValue;
+							pc++;
+							break;
+						}
+						case 0xD8: {
+							// add-int/lit8 vAA, vBB, #+CC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue + secondValue;
+							pc++;
+							break;
+						}
+						case 0xD9: {
+							// rsub-int/lit8 vAA, vBB, #+CC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = secondValue - firstValue;
+							pc++;
+							break;
+						}
+						case 0xDA: {
+							// mul-int/lit8 vAA, vBB, #+CC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue * secondValue;
+							pc++;
+							break;
+						}
+						case 0xDB: {
+							// div-int/lit8 vAA, vBB, #+CC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue / secondValue;
+							pc++;
+							break;
+						}
+						case 0xDC: {
+							// rem-int/lit8 vAA, vBB, #+CC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue % secondValue;
+							pc++;
+							break;
+						}
+						case 0xDD: {
+							// and-int/lit8 vAA, vBB, #+CC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue & secondValue;
+							pc++;
+							break;
+						}
+						case 0xDE: {
+							// or-int/lit8 vAA, vBB, #+CC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue | secondValue;
+							pc++;
+							break;
+						}
+						case 0xDF: {
+							// xor-int/lit8 vAA, vBB, #+CC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue ^ secondValue;
+							pc++;
+							break;
+						}
+						case 0xE0: {
+							// shl-int/lit8 vAA, vBB, #+CC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue << secondValue;
+							pc++;
+							break;
+						}
+						case 0xE1: {
+							// shr-int/lit8 vAA, vBB, #+CC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue >> secondValue;
+							pc++;
+							break;
+						}
+						case 0xE2: {
+							// ushr-int/lit8 vAA, vBB, #+CC
+							int destination = operandsA[pc];
+							int firstValue = intRegisters[operandsB[pc]];
+							int secondValue = operandsC[pc];
+							intRegisters[destination] = firstValue >>> secondValue;
+							pc++;
+							break;
+						}
+						case 0xE3: {
+							// sget-quick vAA, slot@BBBB
+							int destination = operandsA[pc];
+							intRegisters[destination] = ((int[])resolvedReferences[pc])[operandsB[pc]];
+							pc++;
+							break;
+						}
+						case 0xE4: {
+							// sget-wide-quick vAA, slot@BBBB
+							longRegisters[operandsA[pc]] = Utils.getLong((int[])resolvedReferences[pc], operandsB[pc]);
+							pc++;
+							break;
+						}
+						case 0xE5: {
+							// sget-object-quick vAA, slot@BBBB
+							int destination = operandsA[pc];
+							objectRegisters[destination] = ((Object[])resolvedReferences[pc])[operandsB[pc]];
+							pc++;
+							break;
+						}
+						case 0xE6:
+							// sput-quick vAA, slot@BBBB
+							((int[])resolvedReferences[pc])[operandsB[pc]] = intRegisters[operandsA[pc]];
+							pc++;
+							break;
+						case 0xE7: {
+							// sput-wide-quick vAA, slot@BBBB
+							Utils.setLong((int[])resolvedReferences[pc], operandsB[pc], longRegisters[operandsA[pc]]);
+							pc++;
+							break;
+						}
+						case 0xE8:
+							// sput-object-quick vAA, slot@BBBB
+							((Object[])resolvedReferences[pc])[operandsB[pc]] = objectRegisters[operandsA[pc]];
+							pc++;
+							break;
+						case 0xF2: {
+							// iget-quick vA, vB, slot@CCCC
+							int destination = operandsA[pc];
+							Instance instance = (Instance)objectRegisters[operandsB[pc]];
+							intRegisters[destination] = instance.intFields[operandsC[pc]];
+							pc++;
+							break;
+						}
+						case 0xF3: {
+							// iget-wide-quick vA, vB, slot@CCCC
+							Instance instance = (Instance)objectRegisters[operandsB[pc]];
+							longRegisters[operandsA[pc]] = Utils.getLong(instance.intFields, operandsC[pc]);
+							pc++;
+							break;
+						}
+						case 0xF4: {
+							// iget-object-quick vA, vB, slot@CCCC
+							int destination = operandsA[pc];
+							Instance instance = (Instance)objectRegisters[operandsB[pc]];
+							objectRegisters[destination] = instance.objectFields[operandsC[pc]];
+							pc++;
+							break;
+						}
+						case 0xF5: {
+							// iput-quick vA, vB, slot@CCCC
+							Instance instance = (Instance)objectRegisters[operandsB[pc]];
+							instance.intFields[operandsC[pc]] = intRegisters[operandsA[pc]];
+							pc++;
+							break;
+						}
+						case 0xF6: {
+							// iput-wide-quick vA, vB, slot@CCCC
+							Instance instance = (Instance)objectRegisters[operandsB[pc]];
+							Utils.setLong(instance.intFields, operandsC[pc], longRegisters[operandsA[pc]]);
+							pc++;
+							break;
+						}
+						case 0xF7: {
+							// iput-object-quick vA, vB, slot@CCCC
+							Instance instance = (Instance)objectRegisters[operandsB[pc]];
+							instance.objectFields[operandsC[pc]] = objectRegisters[operandsA[pc]];
+							pc++;
+							break;
+						}
+						case 0xE9:
+							// execute-compiled
+							if (endless || vm.threads.size() == 1) {
+								// No other thread waits for the time slice
+								pc = method.compiledCode.execute(frame, pc, Integer.MAX_VALUE);
+							} else {
+								pc = method.compiledCode.execute(frame, pc, count);
+								count = frame.remainingCount;
+							}
+							break;
+						case 0x52:
+						case 0x53:
+						case 0x54:
+						case 0x55:
+						case 0x56:
+						case 0x57:
+						case 0x58:
+						case 0x59:
+						case 0x5A:
+						case 0x5B:
+						case 0x5C:
+						case 0x5D:
+						case 0x5E:
+						case 0x5F:
+						case 0x60:
+						case 0x61:
+						case 0x62:
+						case 0x63:
+						case 0x64:
+						case 0x65:
+						case 0x66:
+						case 0x67:
+						case 0x68:
+						case 0x69:
+						case 0x6A:
+						case 0x6B:
+						case 0x6C:
+						case 0x6D:
+							// field operations
+							pc = executeFieldOperation(frame, pc);
+							break;
+						case 0x6E:
+						case 0x6F:
+						case 0x70:
+						case 0x71:
+						case 0x72:
+						case 0x74:
+						case 0x75:
+						case 0x76:
+						case 0x77:
+						case 0x78:
+						case 0xF8:
+						case 0xF9:
+						case 0xFA:
+						case 0xFB:
+						case 0xFC:
+						case 0xFD:
+						case 0xFE:
+						case 0xFF:
+							// method invocations
+							frame.pc = pc + 1;
+							frame = executeInvocation(frame, pc);
+							continue frameLoop;
+						case 0x1C:
+						case 0x1D:
+						case 0x1E:
+						case 0x1F:
+						case 0x20:
+						case 0x22:
+						case 0x23:
+						case 0x24:
+						case 0x25:
+						case 0x26:
+						case 0x27:
+							// object operations
+							pc = executeObjectOperation(frame, pc);
+							break;
+						case 0x2B:
+						case 0x2C:
+							// switch operations
+							pc = executeSwitchOperation(frame, pc);
+							break;
+						case 0x31:
+						case 0x45:
+						case 0x4C:
+						case Verifier.AGET_LONG:
+						case Verifier.AGET_DOUBLE:
+						case Verifier.APUT_LONG:
+						case Verifier.APUT_DOUBLE:
+						case 0x7D:
+						case 0x7E:
+						case 0x9B:
+						case 0x9C:
+						case 0x9D:
+						case 0x9E:
+						case 0x9F:
+						case 0xA0:
+						case 0xA1:
+						case 0xA2:
+						case 0xA3:
+						case 0xA4:
+						case 0xA5:
+						case 0xBB:
+						case 0xBC:
+						case 0xBD:
+						case 0xBE:
+						case 0xBF:
+						case 0xC0:
+						case 0xC1:
+						case 0xC2:
+						case 0xC3:
+						case 0xC4:
+						case 0xC5:
+							// long operations
+							pc = executeLongOperation(frame, pc);
+							break;
+						case 0x2D:
+						case 0x2E:
+						case 0x2F:
+						case 0x30:
+						case 0x7F:
+						case 0x80:
+						case 0xA6:
+						case 0xA7:
+						case 0xA8:
+						case 0xA9:
+						case 0xAA:
+						case 0xAB:
+						case 0xAC:
+						case 0xAD:
+						case 0xAE:
+						case 0xAF:
+						case 0xC6:
+						case 0xC7:
+						case 0xC8:
+						case 0xC9:
+						case 0xCA:
+						case 0xCB:
+						case 0xCC:
+						case 0xCD:
+						case 0xCE:
+						case 0xCF:
+							// float and double operations
+							pc = executeFloatingPointOperation(frame, pc);
+							break;
+						case 0x81:
+						case 0x82:
+						case 0x83:
+						case 0x84:
+						case 0x85:
+						case 0x86:
+						case 0x87:
+						case 0x88:
+						case 0x89:
+						case 0x8A:
+						case 0x8B:
+						case 0x8C:
+							// primitive conversions
+							pc = executeConversion(frame, pc);
+							break;
+						default:
+							throw new RuntimeException("not implemented instruction: 0x" + Integer.toHexString(opcodes[pc]));
 					}
-					case 0xE0: {
-						// shl-int/lit8 vAA, vBB, #+CC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = (byte)upperCodes[frame.pc++];
-						frame.intRegisters[destination] = firstValue << secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
+				}
+				// Save the position to resume this thread from
+				frame.pc = pc;
+				return;
+			} catch (Throwable e) {
+				// The compiled code has already pointed into the failed instruction
+				if (!(e instanceof ChangeThreadException) && opcodes[pc] != JitCompiler.EXECUTE_COMPILED) {
+					// Point into the failed instruction to find its exception handler
+					frame.pc = pc + 1;
+				}
+				frame = handleThrowable(e, frame);
+			}
+		}
+	}
+
+	private int executeFieldOperation(final Frame frame, final int pc) {
+		Method method = frame.method;
+		int[] opcodes = method.opcodes;
+		int[] operandsA = method.operandsA;
+		int[] operandsB = method.operandsB;
+		int[] operandsC = method.operandsC;
+
+		switch (opcodes[pc]) {
+			case 0x52:
+				// iget vA, vB, field@CCCC
+			case 0x53:
+				// iget-wide vA, vB, field@CCCC
+			case 0x54:
+				// iget-object vA, vB, field@CCCC
+			case 0x55:
+				// iget-boolean vA, vB, field@CCCC
+			case 0x56:
+				// iget-byte vA, vB, field@CCCC
+			case 0x57:
+				// iget-char vA, vB, field@CCCC
+			case 0x58: {
+				// iget-short vA, vB, field@CCCC
+				if (InstructionQuickener.quicken(method, pc)) {
+					// Execute again in the quick form
+					return pc;
+				}
+				int destination = operandsA[pc];
+				int fieldIndex = operandsC[pc];
+				getField(false, frame, fieldIndex, destination);
+				return pc + 1;
+			}
+			case 0x59:
+				// iput vA, vB, field@CCCC
+			case 0x5A:
+				// iput-wide vA, vB, field@CCCC
+			case 0x5B:
+				// iput-object vA, vB, field@CCCC
+			case 0x5C:
+				// iput-boolean vA, vB, field@CCCC
+			case 0x5D:
+				// iput-byte vA, vB, field@CCCC
+			case 0x5E:
+				// iput-char vA, vB, field@CCCC
+			case 0x5F: {
+				// iput-short vA, vB, field@CCCC
+				if (InstructionQuickener.quicken(method, pc)) {
+					// Execute again in the quick form
+					return pc;
+				}
+				int source = operandsA[pc];
+				int fieldIndex = operandsC[pc];
+				setField(false, frame, source, fieldIndex);
+				return pc + 1;
+			}
+			case 0x60:
+				// sget
+			case 0x61:
+				// sget-wide
+			case 0x62:
+				// sget-object
+			case 0x63:
+				// sget-boolean
+			case 0x64:
+				// sget-byte
+			case 0x65:
+				// sget-boolean
+			case 0x66: {
+				// sget-short
+				if (InstructionQuickener.quicken(method, pc)) {
+					// Execute again in the quick form
+					return pc;
+				}
+				int destination = operandsA[pc];
+				int fieldIndex = operandsB[pc];
+				getField(true, frame, fieldIndex, destination);
+				return pc + 1;
+			}
+			case 0x67:
+				// sput
+			case 0x68:
+				// sput-wide
+			case 0x69:
+				// sput-object
+			case 0x6A:
+				// sput-boolean
+			case 0x6B:
+				// sput-byte
+			case 0x6C:
+				// sput-char
+			case 0x6D: {
+				// sput-short
+				if (InstructionQuickener.quicken(method, pc)) {
+					// Execute again in the quick form
+					return pc;
+				}
+				int source = operandsA[pc];
+				int fieldIndex = operandsB[pc];
+				setField(true, frame, source, fieldIndex);
+				return pc + 1;
+			}
+			default:
+				throw new RuntimeException("not implemented instruction: 0x" + Integer.toHexString(opcodes[pc]));
+		}
+	}
+
+	private Frame executeInvocation(final Frame frame, final int pc) throws Exception {
+		Method method = frame.method;
+		int[] opcodes = method.opcodes;
+		int[] operandsA = method.operandsA;
+		int[] operandsB = method.operandsB;
+		int[] operandsC = method.operandsC;
+		Object[] resolvedReferences = method.resolvedReferences;
+		frame.releaseDeadObjects(pc);
+
+		switch (opcodes[pc]) {
+			case 0x6E: {
+				// invoke-virtual {vD, vE, vF, vG, vA}, meth@CCCC
+				if (InstructionQuickener.quicken(method, pc)) {
+					return executeInvocation(frame, pc);
+				}
+				int methodIndex = operandsB[pc];
+				return invokeVirtual(frame, methodIndex);
+			}
+			case 0x6F:
+				// invoke-super {vD, vE, vF, vG, vA}, meth@CCCC
+				// fall through
+			case 0x70: {
+				// invoke-direct {vD, vE, vF, vG, vA}, meth@CCCC
+				if (InstructionQuickener.quicken(method, pc)) {
+					return executeInvocation(frame, pc);
+				}
+				int methodIndex = operandsB[pc];
+				return invokeDirect(frame, methodIndex);
+			}
+			case 0x71: {
+				// invoke-static {vD, vE, vF, vG, vA}, meth@CCCC
+				if (InstructionQuickener.quicken(method, pc)) {
+					return executeInvocation(frame, pc);
+				}
+				int methodIndex = operandsB[pc];
+				return invokeStatic(frame, methodIndex);
+			}
+			case 0x72: {
+				// invoke-interface {vD, vE, vF, vG, vA}, meth@CCCC
+				if (InstructionQuickener.quicken(method, pc)) {
+					return executeInvocation(frame, pc);
+				}
+				int methodIndex = operandsB[pc];
+				return invokeInterface(frame, methodIndex);
+			}
+			case 0x74: {
+				// invoke-virtual/range {vCCCC .. vNNNN}, meth@BBBB
+				if (InstructionQuickener.quicken(method, pc)) {
+					return executeInvocation(frame, pc);
+				}
+				int methodIndex = operandsB[pc];
+				return invokeVirtual(frame, methodIndex);
+			}
+			case 0x75:
+				// invoke-super/range {vCCCC .. vNNNN}, meth@BBBB
+				// fall through
+			case 0x76: {
+				// invoke-direct/range {vCCCC .. vNNNN}, meth@BBBB
+				if (InstructionQuickener.quicken(method, pc)) {
+					return executeInvocation(frame, pc);
+				}
+				int methodIndex = operandsB[pc];
+				return invokeDirect(frame, methodIndex);
+			}
+			case 0x77: {
+				// invoke-static/range {vCCCC .. vNNNN}, meth@BBBB
+				if (InstructionQuickener.quicken(method, pc)) {
+					return executeInvocation(frame, pc);
+				}
+				int methodIndex = operandsB[pc];
+				return invokeStatic(frame, methodIndex);
+			}
+			case 0x78: {
+				// invoke-interface/range {vCCCC .. vNNNN}, meth@BBBB
+				if (InstructionQuickener.quicken(method, pc)) {
+					return executeInvocation(frame, pc);
+				}
+				int methodIndex = operandsB[pc];
+				return invokeInterface(frame, methodIndex);
+			}
+			case 0xF8: {
+				// invoke-virtual-quick {vD, vE, vF, vG, vA}, meth@CCCC
+				InlineCache cache = (InlineCache)resolvedReferences[pc];
+				return invoke(frame, cache, operandsB[pc]);
+			}
+			case 0xF9: {
+				// invoke-virtual-quick/range {vCCCC .. vNNNN}, meth@BBBB
+				InlineCache cache = (InlineCache)resolvedReferences[pc];
+				return invoke(frame, cache, operandsB[pc]);
+			}
+			case 0xFA: {
+				// invoke-direct-quick {vD, vE, vF, vG, vA}, meth@CCCC
+				Method target = (Method)resolvedReferences[pc];
+				return invokeDirect(frame, target);
+			}
+			case 0xFB: {
+				// invoke-direct-quick/range {vCCCC .. vNNNN}, meth@BBBB
+				Method target = (Method)resolvedReferences[pc];
+				return invokeDirect(frame, target);
+			}
+			case 0xFC: {
+				// invoke-static-quick {vD, vE, vF, vG, vA}, meth@CCCC
+				Method target = (Method)resolvedReferences[pc];
+				return callMethod(target, frame);
+			}
+			case 0xFD: {
+				// invoke-static-quick/range {vCCCC .. vNNNN}, meth@BBBB
+				Method target = (Method)resolvedReferences[pc];
+				return callMethod(target, frame);
+			}
+			case 0xFE: {
+				// invoke-interface-quick {vD, vE, vF, vG, vA}, meth@CCCC
+				InlineCache cache = (InlineCache)resolvedReferences[pc];
+				return invoke(frame, cache, operandsB[pc]);
+			}
+			case 0xFF: {
+				// invoke-interface-quick/range {vCCCC .. vNNNN}, meth@BBBB
+				InlineCache cache = (InlineCache)resolvedReferences[pc];
+				return invoke(frame, cache, operandsB[pc]);
+			}
+			default:
+				throw new RuntimeException("not implemented instruction: 0x" + Integer.toHexString(opcodes[pc]));
+		}
+	}
+
+	private int executeObjectOperation(final Frame frame, final int pc) throws Throwable {
+		Method method = frame.method;
+		int[] opcodes = method.opcodes;
+		int[] operandsA = method.operandsA;
+		int[] operandsB = method.operandsB;
+		int[] operandsC = method.operandsC;
+		int[] codes = method.codes;
+		int[] intRegisters = frame.intRegisters;
+		Object[] objectRegisters = frame.objectRegisters;
+
+		switch (opcodes[pc]) {
+			case 0x1C: {
+				//  const-class vAA, type@BBBB
+				int destination = operandsA[pc];
+				Object value = method.dexCache.resolveClassObject(vm, operandsB[pc]);
+				objectRegisters[destination] = value;
+				return pc + 1;
+			}
+			case 0x1D: {
+				// monitor-enter vAA
+				Object instance = objectRegisters[operandsA[pc]];
+				if (instance == null) {
+					throw new NullPointerException();
+				}
+				// Resume from the next instruction when this thread gets the lock later
+				frame.pc = pc + 1;
+				frame.thread.acquireLock(instance, true);
+				return pc + 1;
+			}
+			case 0x1E: {
+				// monitor-exit vAA
+				Object instance = objectRegisters[operandsA[pc]];
+				if (instance == null) {
+					throw new NullPointerException();
+				}
+				frame.thread.releaseLock(instance);
+				return pc + 1;
+			}
+			case 0x1F: {
+				// check-cast vAA, type@BBBB
+				Object checked = objectRegisters[operandsA[pc]];
+				if (checked != null && !isInstance(checked, method.dexCache, operandsB[pc])) {
+					throw new ClassCastException();
+				}
+				return pc + 1;
+			}
+			case 0x20: {
+				// instance-of vA, vB, type@CCCC
+				int destination = operandsA[pc];
+				Object object = objectRegisters[operandsB[pc]];
+				intRegisters[destination] = Utils.toInt(isInstance(object, method.dexCache, operandsC[pc]));
+				return pc + 1;
+			}
+			case 0x22: {
+				// new-instance vAA, type@BBBB
+				int destination = operandsA[pc];
+				DexCache dexCache = method.dexCache;
+				Clazz clazz = dexCache.resolveClass(operandsB[pc]);
+				if (clazz != null) {
+					objectRegisters[destination] = new Instance(clazz);
+				} else {
+					String type = dexCache.types[operandsB[pc]];
+					objectRegisters[destination] = new String(type.substring(1, type.length() - 1)); // This instance will be replaced when executing invokespecial
+				}
+				return pc + 1;
+			}
+			case 0x23: {
+				// new-array vA, vB, type@CCCC
+				int destination = operandsA[pc];
+				int size = intRegisters[operandsB[pc]];
+				String type = method.dexCache.types[operandsC[pc]];
+
+				objectRegisters[destination] = handleNewArray(type, 1, size, -1, -1);
+				return pc + 1;
+			}
+			case 0x24: {
+				// filled-new-array {vD, vE, vF, vG, vA}, type@CCCC
+				int elements = operandsC[pc];
+				String type = method.dexCache.types[operandsB[pc]];
+
+				if ("[I".equals(type)) {
+					int[] value = new int[operandsA[pc]];
+					for (int i = 0, length = value.length; i < length; i++) {
+						value[i] = intRegisters[(elements >> (i * 4)) & 0xF];
 					}
-					case 0xE1: {
-						// shr-int/lit8 vAA, vBB, #+CC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = (byte)upperCodes[frame.pc++];
-						frame.intRegisters[destination] = firstValue >> secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
+					frame.objectReturn = value;
+				} else {
+					throw new VirtualMachineException("not supported array type: " + type);
+				}
+				return pc + 1;
+			}
+			case 0x25: {
+				// filled-new-array/range {vCCCC .. vNNNN}, type@BBBB
+				int size = operandsA[pc];
+				String type = method.dexCache.types[operandsB[pc]];
+				int firstRegister = operandsC[pc];
+
+				if ("[I".equals(type)) {
+					int[] array = new int[size];
+					for (int i = 0, length = array.length; i < length; i++) {
+						array[i] = intRegisters[firstRegister + i];
+					}
+					frame.objectReturn = array;
+				} else {
+					throw new VirtualMachineException("not supported array type: " + type);
+				}
+				return pc + 1;
+			}
+			case 0x26: {
+				// fill-array-data vAA, +BBBBBBBB
+				Object array = objectRegisters[operandsA[pc]];
+				int address = operandsB[pc];
+				if (codes[address] != 0x0300) {
+					throw new RuntimeException("illegal array data header");
+				}
+				if (array instanceof int[]) {
+					int[] intArray = (int[])array;
+					if (codes[address + 1] != 4) {
+						throw new RuntimeException("illegal array element size");
 					}
-					case 0xE2: {
-						// ushr-int/lit8 vAA, vBB, #+CC
-						int destination = upperCodes[frame.pc++];
-						int firstValue = frame.intRegisters[lowerCodes[frame.pc]];
-						int secondValue = (byte)upperCodes[frame.pc++];
-						frame.intRegisters[destination] = firstValue >>> secondValue;
-						frame.isObjectRegister[destination] = false;
-						break;
+					int elementCount = (codes[address + 3] << 16) | codes[address + 2];
+					for (int i = 0; i < elementCount; i++) {
+						int elementAddress = address + 4 + i * 2;
+						intArray[i] = (codes[elementAddress + 1] << 16) | codes[elementAddress];
 					}
-						// 0xE3 ... 0xFF (unused)
-					default:
-						throw new RuntimeException("not implemented instruction: 0x" + Integer.toHexString(lowerCodes[frame.pc]));
+				} else {
+					throw new RuntimeException("not supported array type: " + array.getClass().getName());
 				}
-			} catch (Throwable e) {
-				frame = handleThrowable(e, frame);
-
-				method = frame.method;
-				lowerCodes = method.lowerCodes;
-				upperCodes = method.upperCodes;
-				codes = method.codes;
+				return pc + 1;
 			}
+			case 0x27: {
+				// throw vAA
+				Throwable throwable = (Throwable)objectRegisters[operandsA[pc]];
+				if (throwable == null) {
+					throw new NullPointerException();
+				}
+				throw throwable;
+			}
+			default:
+				throw new RuntimeException("not implemented instruction: 0x" + Integer.toHexString(opcodes[pc]));
 		}
 	}
 
-	private static final Object POINTER_OBJECT = new Object();
+	private static int executeSwitchOperation(final Frame frame, final int pc) {
+		Method method = frame.method;
+		int[] opcodes = method.opcodes;
+
+		switch (opcodes[pc]) {
+			case 0x2B:
+			case 0x2C: {
+				// packed-switch and sparse-switch vAA, +BBBBBBBB with the jump table or the binary search of the decoded payload
+				int target = ((SwitchTable)method.resolvedReferences[pc]).getTarget(frame.intRegisters[method.operandsA[pc]]);
+				if (target == -1) {
+					return pc + 1;
+				}
+				return target;
+			}
+			default:
+				throw new RuntimeException("not implemented instruction: 0x" + Integer.toHexString(opcodes[pc]));
+		}
+	}
 
-	private static Object toObject(final int value) {
-		return value == 0 ? null : POINTER_OBJECT;
+	private static int executeLongOperation(final Frame frame, final int pc) {
+		Method method = frame.method;
+		int[] opcodes = method.opcodes;
+		int[] operandsA = method.operandsA;
+		int[] operandsB = method.operandsB;
+		int[] operandsC = method.operandsC;
+		int[] intRegisters = frame.intRegisters;
+		Object[] objectRegisters = frame.objectRegisters;
+		long[] longRegisters = frame.longRegisters;
+
+		switch (opcodes[pc]) {
+			case 0x31: {
+				// cmp-long vAA, vBB, vCC
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[operandsB[pc]];
+				long secondValue = longRegisters[operandsC[pc]];
+				if (firstValue < secondValue) {
+					intRegisters[destination] = -1;
+				} else if (firstValue == secondValue) {
+					intRegisters[destination] = 0;
+				} else {
+					intRegisters[destination] = 1;
+				}
+				return pc + 1;
+			}
+			case 0x45: {
+				// aget-wide vAA, vBB, vCC
+				int destination = operandsA[pc];
+				Object array = objectRegisters[operandsB[pc]];
+				int index = intRegisters[operandsC[pc]];
+				if (array == null) {
+					throw new NullPointerException();
+				} else if (array instanceof long[]) {
+					long[] longArray = (long[])array;
+					longRegisters[destination] = longArray[index];
+				} else if (array instanceof double[]) {
+					double[] doubleArray = (double[])array;
+					longRegisters[destination] = Double.doubleToLongBits(doubleArray[index]);
+				} else {
+					throw new VirtualMachineException("not supported type:" + array.getClass());
+				}
+				return pc + 1;
+			}
+			case 0x4C: {
+				// aput-wide vAA, vBB, vCC
+				int source = operandsA[pc];
+				Object array = objectRegisters[operandsB[pc]];
+				int index = intRegisters[operandsC[pc]];
+				if (array == null) {
+					throw new NullPointerException();
+				} else if (array instanceof long[]) {
+					((long[])array)[index] = longRegisters[source];
+				} else if (array instanceof double[]) {
+					((double[])array)[index] = Double.longBitsToDouble(longRegisters[source]);
+				} else {
+					throw new VirtualMachineException("not supported type:" + array.getClass());
+				}
+				return pc + 1;
+			}
+			case Verifier.AGET_LONG:
+				// aget-wide vAA, vBB, vCC of long[], rewritten by Verifier
+				longRegisters[operandsA[pc]] = ((long[])objectRegisters[operandsB[pc]])[intRegisters[operandsC[pc]]];
+				return pc + 1;
+			case Verifier.AGET_DOUBLE:
+				// aget-wide vAA, vBB, vCC of double[], rewritten by Verifier
+				longRegisters[operandsA[pc]] = Double.doubleToLongBits(((double[])objectRegisters[operandsB[pc]])[intRegisters[operandsC[pc]]]);
+				return pc + 1;
+			case Verifier.APUT_LONG:
+				// aput-wide vAA, vBB, vCC of long[], rewritten by Verifier
+				((long[])objectRegisters[operandsB[pc]])[intRegisters[operandsC[pc]]] = longRegisters[operandsA[pc]];
+				return pc + 1;
+			case Verifier.APUT_DOUBLE:
+				// aput-wide vAA, vBB, vCC of double[], rewritten by Verifier
+				((double[])objectRegisters[operandsB[pc]])[intRegisters[operandsC[pc]]] = Double.longBitsToDouble(longRegisters[operandsA[pc]]);
+				return pc + 1;
+			case 0x7D: {
+				// neg-long vA, vB
+				int destination = operandsA[pc];
+				long value = -longRegisters[operandsB[pc]];
+				longRegisters[destination] = value;
+				return pc + 1;
+			}
+			case 0x7E: {
+				// not-long vA, vB
+				int destination = operandsA[pc];
+				long value = ~longRegisters[operandsB[pc]];
+				longRegisters[destination] = value;
+				return pc + 1;
+			}
+			case 0x9B: {
+				// add-long vAA, vBB, vCC
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[operandsB[pc]];
+				long secondValue = longRegisters[operandsC[pc]];
+				longRegisters[destination] = firstValue + secondValue;
+				return pc + 1;
+			}
+			case 0x9C: {
+				// sub-long vAA, vBB, vCC
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[operandsB[pc]];
+				long secondValue = longRegisters[operandsC[pc]];
+				longRegisters[destination] = firstValue - secondValue;
+				return pc + 1;
+			}
+			case 0x9D: {
+				// mul-long
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[operandsB[pc]];
+				long secondValue = longRegisters[operandsC[pc]];
+				longRegisters[destination] = firstValue * secondValue;
+				return pc + 1;
+			}
+			case 0x9E: {
+				// div-long
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[operandsB[pc]];
+				long secondValue = longRegisters[operandsC[pc]];
+				longRegisters[destination] = firstValue / secondValue;
+				return pc + 1;
+			}
+			case 0x9F: {
+				// rem-long
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[operandsB[pc]];
+				long secondValue = longRegisters[operandsC[pc]];
+				longRegisters[destination] = firstValue % secondValue;
+				return pc + 1;
+			}
+			case 0xA0: {
+				// and-long
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[operandsB[pc]];
+				long secondValue = longRegisters[operandsC[pc]];
+				longRegisters[destination] = firstValue & secondValue;
+				return pc + 1;
+			}
+			case 0xA1: {
+				// or-long
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[operandsB[pc]];
+				long secondValue = longRegisters[operandsC[pc]];
+				longRegisters[destination] = firstValue | secondValue;
+				return pc + 1;
+			}
+			case 0xA2: {
+				// xor-long
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[operandsB[pc]];
+				long secondValue = longRegisters[operandsC[pc]];
+				longRegisters[destination] = firstValue ^ secondValue;
+				return pc + 1;
+			}
+			case 0xA3: {
+				// shl-long
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[operandsB[pc]];
+				long secondValue = intRegisters[operandsC[pc]] & 0x3F;
+				longRegisters[destination] = firstValue << secondValue;
+				return pc + 1;
+			}
+			case 0xA4: {
+				// shr-long
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[operandsB[pc]];
+				long secondValue = intRegisters[operandsC[pc]] & 0x3F;
+				longRegisters[destination] = firstValue >> secondValue;
+				return pc + 1;
+			}
+			case 0xA5: {
+				// ushr-long
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[operandsB[pc]];
+				long secondValue = intRegisters[operandsC[pc]] & 0x3F;
+				longRegisters[destination] = firstValue >>> secondValue;
+				return pc + 1;
+			}
+			case 0xBB: {
+				// add-long/2addr vA, vB
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[destination];
+				long secondValue = longRegisters[operandsB[pc]];
+				longRegisters[destination] = firstValue + secondValue;
+				return pc + 1;
+			}
+			case 0xBC: {
+				// sub-long/2addr vA, vB
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[destination];
+				long secondValue = longRegisters[operandsB[pc]];
+				longRegisters[destination] = firstValue - secondValue;
+				return pc + 1;
+			}
+			case 0xBD: {
+				// mul-long/2addr vA, vB
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[destination];
+				long secondValue = longRegisters[operandsB[pc]];
+				longRegisters[destination] = firstValue * secondValue;
+				return pc + 1;
+			}
+			case 0xBE: {
+				// div-long/2addr vA, vB
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[destination];
+				long secondValue = longRegisters[operandsB[pc]];
+				longRegisters[destination] = firstValue / secondValue;
+				return pc + 1;
+			}
+			case 0xBF: {
+				// rem-long/2addr vA, vB
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[destination];
+				long secondValue = longRegisters[operandsB[pc]];
+				longRegisters[destination] = firstValue % secondValue;
+				return pc + 1;
+			}
+			case 0xC0: {
+				// and-long/2addr vA, vB
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[destination];
+				long secondValue = longRegisters[operandsB[pc]];
+				longRegisters[destination] = firstValue & secondValue;
+				return pc + 1;
+			}
+			case 0xC1: {
+				// or-long/2addr vA, vB
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[destination];
+				long secondValue = longRegisters[operandsB[pc]];
+				longRegisters[destination] = firstValue | secondValue;
+				return pc + 1;
+			}
+			case 0xC2: {
+				// xor-long/2addr vA, vB
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[destination];
+				long secondValue = longRegisters[operandsB[pc]];
+				longRegisters[destination] = firstValue ^ secondValue;
+				return pc + 1;
+			}
+			case 0xC3: {
+				// shl-long/2addr vA, vB
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[destination];
+				long secondValue = intRegisters[operandsB[pc]] & 0x3F;
+				longRegisters[destination] = firstValue << secondValue;
+				return pc + 1;
+			}
+			case 0xC4: {
+				// shr-long/2addr vA, vB
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[destination];
+				long secondValue = intRegisters[operandsB[pc]] & 0x3F;
+				longRegisters[destination] = firstValue >> secondValue;
+				return pc + 1;
+			}
+			case 0xC5: {
+				// ushr-long/2addr vA, vB
+				int destination = operandsA[pc];
+				long firstValue = longRegisters[destination];
+				long secondValue = intRegisters[operandsB[pc]] & 0x3F;
+				longRegisters[destination] = firstValue >>> secondValue;
+				return pc + 1;
+			}
+			default:
+				throw new RuntimeException("not implemented instruction: 0x" + Integer.toHexString(opcodes[pc]));
+		}
 	}
 
-	private void setField(final boolean isStatic, final Frame frame, final int source, final int destination, final int fieldIndex) {
+	private static int executeFloatingPointOperation(final Frame frame, final int pc) {
 		Method method = frame.method;
-		String clazzName = method.fieldClasses[fieldIndex];
-		String fieldName = method.fieldNames[fieldIndex];
-		String fieldType = method.fieldTypes[fieldIndex];
-
-		Field field = getField(isStatic, frame, clazzName, fieldName, destination);
-		if (field != null) {
-			switch (fieldType.charAt(0)) {
-				case 'C':
-				case 'B':
-				case 'S':
-				case 'I':
-				case 'Z':
-					field.intValue = frame.intRegisters[source];
-					break;
-				case 'J':
-					field.longValue = Utils.getLong(frame.intRegisters, source);
-					break;
-				case 'L':
-				case '[':
-					field.objectValue = frame.objectRegisters[source];
-					break;
-				default:
-					throw new VirtualMachineException("not supported field type");
+		int[] opcodes = method.opcodes;
+		int[] operandsA = method.operandsA;
+		int[] operandsB = method.operandsB;
+		int[] operandsC = method.operandsC;
+		int[] intRegisters = frame.intRegisters;
+		long[] longRegisters = frame.longRegisters;
+
+		switch (opcodes[pc]) {
+			case 0x2D: {
+				// cmpl-float vAA, vBB, vCC
+				int destination = operandsA[pc];
+				float firstValue = Float.intBitsToFloat(intRegisters[operandsB[pc]]);
+				float secondValue = Float.intBitsToFloat(intRegisters[operandsC[pc]]);
+				if (Float.isNaN(firstValue) || Float.isNaN(secondValue)) {
+					intRegisters[destination] = -1;
+				} else if (firstValue == secondValue) {
+					intRegisters[destination] = 0;
+				} else if (firstValue < secondValue) {
+					intRegisters[destination] = -1;
+				} else {
+					intRegisters[destination] = 1;
+				}
+				return pc + 1;
 			}
-		} else {
-			if (isStatic) {
-				if (!vm.handleClassFieldSetter(frame, source, clazzName, fieldName, fieldType)) {
-					throw new VirtualMachineException("not implemented class field = " + clazzName + " - " + fieldName + " - " + fieldType);
+			case 0x2E: {
+				// cmpg-float vAA, vBB, vCC
+				int destination = operandsA[pc];
+				float firstValue = Float.intBitsToFloat(intRegisters[operandsB[pc]]);
+				float secondValue = Float.intBitsToFloat(intRegisters[operandsC[pc]]);
+				if (Float.isNaN(firstValue) || Float.isNaN(secondValue)) {
+					intRegisters[destination] = 1;
+				} else if (firstValue == secondValue) {
+					intRegisters[destination] = 0;
+				} else if (firstValue < secondValue) {
+					intRegisters[destination] = -1;
+				} else {
+					intRegisters[destination] = 1;
 				}
-			} else {
-				throw new VirtualMachineException("not implemented instance field = " + clazzName + " - " + fieldName + " - " + fieldType);
+				return pc + 1;
+			}
+			case 0x2F: {
+				// cmpl-double vAA, vBB, vCC
+				int destination = operandsA[pc];
+				double firstValue = Double.longBitsToDouble(longRegisters[operandsB[pc]]);
+				double secondValue = Double.longBitsToDouble(longRegisters[operandsC[pc]]);
+				if (Double.isNaN(firstValue) || Double.isNaN(secondValue)) {
+					intRegisters[destination] = -1;
+				} else if (firstValue == secondValue) {
+					intRegisters[destination] = 0;
+				} else if (firstValue < secondValue) {
+					intRegisters[destination] = -1;
+				} else {
+					intRegisters[destination] = 1;
+				}
+				return pc + 1;
+			}
+			case 0x30: {
+				// cmpg-double vAA, vBB, vCC
+				int destination = operandsA[pc];
+				double firstValue = Double.longBitsToDouble(longRegisters[operandsB[pc]]);
+				double secondValue = Double.longBitsToDouble(longRegisters[operandsC[pc]]);
+				if (Double.isNaN(firstValue) || Double.isNaN(secondValue)) {
+					intRegisters[destination] = 1;
+				} else if (firstValue == secondValue) {
+					intRegisters[destination] = 0;
+				} else if (firstValue < secondValue) {
+					intRegisters[destination] = -1;
+				} else {
+					intRegisters[destination] = 1;
+				}
+				return pc + 1;
+			}
+			case 0x7F: {
+				// neg-float vA, vB
+				int destination = operandsA[pc];
+				float value = -Float.intBitsToFloat(intRegisters[operandsB[pc]]);
+				intRegisters[destination] = Float.floatToIntBits(value);
+				return pc + 1;
+			}
+			case 0x80: {
+				// neg-double vA, vB
+				int destination = operandsA[pc];
+				double value = -Double.longBitsToDouble(longRegisters[operandsB[pc]]);
+				longRegisters[destination] = Double.doubleToLongBits(value);
+				return pc + 1;
+			}
+			case 0xA6: {
+				// add-float vAA, vBB, vCC
+				int destination = operandsA[pc];
+				float firstValue = Float.intBitsToFloat(intRegisters[operandsB[pc]]);
+				float secondValue = Float.intBitsToFloat(intRegisters[operandsC[pc]]);
+				intRegisters[destination] = Float.floatToIntBits(firstValue + secondValue);
+				return pc + 1;
+			}
+			case 0xA7: {
+				// sub-float vAA, vBB, vCC
+				int destination = operandsA[pc];
+				float firstValue = Float.intBitsToFloat(intRegisters[operandsB[pc]]);
+				float secondValue = Float.intBitsToFloat(intRegisters[operandsC[pc]]);
+				intRegisters[destination] = Float.floatToIntBits(firstValue - secondValue);
+				return pc + 1;
+			}
+			case 0xA8: {
+				// mul-float vAA, vBB, vCC
+				int destination = operandsA[pc];
+				float firstValue = Float.intBitsToFloat(intRegisters[operandsB[pc]]);
+				float secondValue = Float.intBitsToFloat(intRegisters[operandsC[pc]]);
+				intRegisters[destination] = Float.floatToIntBits(firstValue * secondValue);
+				return pc + 1;
+			}
+			case 0xA9: {
+				// div-float vAA, vBB, vCC
+				int destination = operandsA[pc];
+				float firstValue = Float.intBitsToFloat(intRegisters[operandsB[pc]]);
+				float secondValue = Float.intBitsToFloat(intRegisters[operandsC[pc]]);
+				intRegisters[destination] = Float.floatToIntBits(firstValue / secondValue);
+				return pc + 1;
+			}
+			case 0xAA: {
+				// rem-float vAA, vBB, vCC
+				int destination = operandsA[pc];
+				float firstValue = Float.intBitsToFloat(intRegisters[operandsB[pc]]);
+				float secondValue = Float.intBitsToFloat(intRegisters[operandsC[pc]]);
+				intRegisters[destination] = Float.floatToIntBits(firstValue % secondValue);
+				return pc + 1;
+			}
+			case 0xAB: {
+				// add-double vAA, vBB, vCC
+				int destination = operandsA[pc];
+				double firstValue = Double.longBitsToDouble(longRegisters[operandsB[pc]]);
+				double secondValue = Double.longBitsToDouble(longRegisters[operandsC[pc]]);
+				longRegisters[destination] = Double.doubleToLongBits(firstValue + secondValue);
+				return pc + 1;
+			}
+			case 0xAC: {
+				// sub-double vAA, vBB, vCC
+				int destination = operandsA[pc];
+				double firstValue = Double.longBitsToDouble(longRegisters[operandsB[pc]]);
+				double secondValue = Double.longBitsToDouble(longRegisters[operandsC[pc]]);
+				longRegisters[destination] = Double.doubleToLongBits(firstValue - secondValue);
+				return pc + 1;
+			}
+			case 0xAD: {
+				// mul-double vAA, vBB, vCC
+				int destination = operandsA[pc];
+				double firstValue = Double.longBitsToDouble(longRegisters[operandsB[pc]]);
+				double secondValue = Double.longBitsToDouble(longRegisters[operandsC[pc]]);
+				longRegisters[destination] = Double.doubleToLongBits(firstValue * secondValue);
+				return pc + 1;
+			}
+			case 0xAE: {
+				// div-double vAA, vBB, vCC
+				int destination = operandsA[pc];
+				double firstValue = Double.longBitsToDouble(longRegisters[operandsB[pc]]);
+				double secondValue = Double.longBitsToDouble(longRegisters[operandsC[pc]]);
+				longRegisters[destination] = Double.doubleToLongBits(firstValue / secondValue);
+				return pc + 1;
+			}
+			case 0xAF: {
+				// rem-double vAA, vBB, vCC
+				int destination = operandsA[pc];
+				double firstValue = Double.longBitsToDouble(longRegisters[operandsB[pc]]);
+				double secondValue = Double.longBitsToDouble(longRegisters[operandsC[pc]]);
+				longRegisters[destination] = Double.doubleToLongBits(firstValue % secondValue);
+				return pc + 1;
+			}
+			case 0xC6: {
+				// add-float/2addr vA, vB
+				int destination = operandsA[pc];
+				float firstValue = Float.intBitsToFloat(intRegisters[destination]);
+				float secondValue = Float.intBitsToFloat(intRegisters[operandsB[pc]]);
+				intRegisters[destination] = Float.floatToIntBits(firstValue + secondValue);
+				return pc + 1;
+			}
+			case 0xC7: {
+				// sub-float/2addr vA, vB
+				int destination = operandsA[pc];
+				float firstValue = Float.intBitsToFloat(intRegisters[destination]);
+				float secondValue = Float.intBitsToFloat(intRegisters[operandsB[pc]]);
+				intRegisters[destination] = Float.floatToIntBits(firstValue - secondValue);
+				return pc + 1;
+			}
+			case 0xC8: {
+				// mul-float/2addr vA, vB
+				int destination = operandsA[pc];
+				float firstValue = Float.intBitsToFloat(intRegisters[destination]);
+				float secondValue = Float.intBitsToFloat(intRegisters[operandsB[pc]]);
+				intRegisters[destination] = Float.floatToIntBits(firstValue * secondValue);
+				return pc + 1;
+			}
+			case 0xC9: {
+				// div-float/2addr vA, vB
+				int destination = operandsA[pc];
+				float firstValue = Float.intBitsToFloat(intRegisters[destination]);
+				float secondValue = Float.intBitsToFloat(intRegisters[operandsB[pc]]);
+				intRegisters[destination] = Float.floatToIntBits(firstValue / secondValue);
+				return pc + 1;
+			}
+			case 0xCA: {
+				// rem-float/2addr vA, vB
+				int destination = operandsA[pc];
+				float firstValue = Float.intBitsToFloat(intRegisters[destination]);
+				float secondValue = Float.intBitsToFloat(intRegisters[operandsB[pc]]);
+				intRegisters[destination] = Float.floatToIntBits(firstValue % secondValue);
+				return pc + 1;
+			}
+			case 0xCB: {
+				// add-double/2addr vA, vB
+				int destination = operandsA[pc];
+				double firstValue = Double.longBitsToDouble(longRegisters[destination]);
+				double secondValue = Double.longBitsToDouble(longRegisters[operandsB[pc]]);
+				longRegisters[destination] = Double.doubleToLongBits(firstValue + secondValue);
+				return pc + 1;
+			}
+			case 0xCC: {
+				// sub-double/2addr vA, vB
+				int destination = operandsA[pc];
+				double firstValue = Double.longBitsToDouble(longRegisters[destination]);
+				double secondValue = Double.longBitsToDouble(longRegisters[operandsB[pc]]);
+				longRegisters[destination] = Double.doubleToLongBits(firstValue - secondValue);
+				return pc + 1;
+			}
+			case 0xCD: {
+				// mul-double/2addr vA, vB
+				int destination = operandsA[pc];
+				double firstValue = Double.longBitsToDouble(longRegisters[destination]);
+				double secondValue = Double.longBitsToDouble(longRegisters[operandsB[pc]]);
+				longRegisters[destination] = Double.doubleToLongBits(firstValue * secondValue);
+				return pc + 1;
 			}
+			case 0xCE: {
+				// div-double/2addr vA, vB
+				int destination = operandsA[pc];
+				double firstValue = Double.longBitsToDouble(longRegisters[destination]);
+				double secondValue = Double.longBitsToDouble(longRegisters[operandsB[pc]]);
+				longRegisters[destination] = Double.doubleToLongBits(firstValue / secondValue);
+				return pc + 1;
+			}
+			case 0xCF: {
+				// rem-double/2addr vA, vB
+				int destination = operandsA[pc];
+				double firstValue = Double.longBitsToDouble(longRegisters[destination]);
+				double secondValue = Double.longBitsToDouble(longRegisters[operandsB[pc]]);
+				longRegisters[destination] = Double.doubleToLongBits(firstValue % secondValue);
+				return pc + 1;
+			}
+			default:
+				throw new RuntimeException("not implemented instruction: 0x" + Integer.toHexString(opcodes[pc]));
 		}
 	}
 
-	private void getField(final boolean isStatic, final Frame frame, final int source, final int fieldIndex, final int destination) {
+	private static int executeConversion(final Frame frame, final int pc) {
 		Method method = frame.method;
-		String clazzName = method.fieldClasses[fieldIndex];
-		String fieldName = method.fieldNames[fieldIndex];
-		String fieldType = method.fieldTypes[fieldIndex];
-
-		Field field = getField(isStatic, frame, clazzName, fieldName, source);
-		if (field != null) {
-			switch (fieldType.charAt(0)) {
-				case 'C':
-				case 'B':
-				case 'S':
-				case 'I':
-				case 'Z':
-					frame.intRegisters[destination] = field.intValue;
-					frame.isObjectRegister[destination] = false;
-					break;
-				case 'J':
-					Utils.setLong(frame.intRegisters, destination, field.longValue);
-					frame.isObjectRegister[destination] = false;
-					break;
-				case 'L':
-				case '[':
-					frame.objectRegisters[destination] = field.objectValue;
-					frame.isObjectRegister[destination] = true;
-					break;
-				default:
-					throw new VirtualMachineException("not supported field type");
+		int[] opcodes = method.opcodes;
+		int[] operandsA = method.operandsA;
+		int[] operandsB = method.operandsB;
+		int[] intRegisters = frame.intRegisters;
+		long[] longRegisters = frame.longRegisters;
+
+		switch (opcodes[pc]) {
+			case 0x81: {
+				// int-to-long
+				int destination = operandsA[pc];
+				long value = (int)intRegisters[operandsB[pc]];
+				longRegisters[destination] = value;
+				return pc + 1;
+			}
+			case 0x82: {
+				// int-to-float vA, vB
+				int destination = operandsA[pc];
+				float value = (float)intRegisters[operandsB[pc]];
+				intRegisters[destination] = Float.floatToIntBits(value);
+				return pc + 1;
+			}
+			case 0x83: {
+				// int-to-double vA, vB
+				int destination = operandsA[pc];
+				double value = (double)intRegisters[operandsB[pc]];
+				longRegisters[destination] = Double.doubleToLongBits(value);
+				return pc + 1;
+			}
+			case 0x84: {
+				// long-to-int
+				int destination = operandsA[pc];
+				int value = (int)longRegisters[operandsB[pc]];
+				intRegisters[destination] = value;
+				return pc + 1;
+			}
+			case 0x85: {
+				// long-to-float
+				int destination = operandsA[pc];
+				float value = (float)longRegisters[operandsB[pc]];
+				intRegisters[destination] = Float.floatToIntBits(value);
+				return pc + 1;
+			}
+			case 0x86: {
+				// long-to-double
+				int destination = operandsA[pc];
+				double value = (double)longRegisters[operandsB[pc]];
+				longRegisters[destination] = Double.doubleToLongBits(value);
+				return pc + 1;
+			}
+			case 0x87: {
+				// float-to-int vA, vB
+				int destination = operandsA[pc];
+				int value = (int)Float.intBitsToFloat(intRegisters[operandsB[pc]]);
+				intRegisters[destination] = value;
+				return pc + 1;
+			}
+			case 0x88: {
+				// float-to-long vA, vB
+				int destination = operandsA[pc];
+				long value = (long)Float.intBitsToFloat(intRegisters[operandsB[pc]]);
+				longRegisters[destination] = value;
+				return pc + 1;
+			}
+			case 0x89: {
+				// float-to-double vA, vB
+				int destination = operandsA[pc];
+				double value = (double)Float.intBitsToFloat(intRegisters[operandsB[pc]]);
+				longRegisters[destination] = Double.doubleToLongBits(value);
+				return pc + 1;
+			}
+			case 0x8A: {
+				// double-to-int vA, vB
+				int destination = operandsA[pc];
+				int value = (int)Double.longBitsToDouble(longRegisters[operandsB[pc]]);
+				intRegisters[destination] = value;
+				return pc + 1;
+			}
+			case 0x8B: {
+				// double-to-long vA, vB
+				int destination = operandsA[pc];
+				long value = (long)Double.longBitsToDouble(longRegisters[operandsB[pc]]);
+				longRegisters[destination] = value;
+				return pc + 1;
+			}
+			case 0x8C: {
+				// double-to-float vA, vB
+				int destination = operandsA[pc];
+				float value = (float)Double.longBitsToDouble(longRegisters[operandsB[pc]]);
+				intRegisters[destination] = Float.floatToIntBits(value);
+				return pc + 1;
+			}
+			default:
+				throw new RuntimeException("not implemented instruction: 0x" + Integer.toHexString(opcodes[pc]));
+		}
+	}
+
+	// The fields of the classes in this virtual machine are accessed by the quick forms
+	private void setField(final boolean isStatic, final Frame frame, final int source, final int fieldIndex) {
+		Method method = frame.method;
+		String clazzName = method.dexCache.fieldClasses[fieldIndex];
+		String fieldName = method.dexCache.fieldNames[fieldIndex];
+		String fieldType = method.dexCache.fieldTypes[fieldIndex];
+
+		if (isStatic) {
+			if (!vm.handleClassFieldSetter(frame, source, clazzName, fieldName, fieldType)) {
+				throw new VirtualMachineException("not implemented class field = " + clazzName + " - " + fieldName + " - " + fieldType);
 			}
 		} else {
-			if (isStatic) {
-				if (!vm.handleClassFieldGetter(frame, clazzName, fieldName, fieldType, destination)) {
-					throw new VirtualMachineException("not implemented class field = " + clazzName + " - " + fieldName + " - " + fieldType);
-				}
-			} else {
-				//				if (!vm.handleInstanceFieldGetter(frame, clazzName, fieldName, fieldType, register)) {
-				throw new VirtualMachineException("not implemented instance field = " + clazzName + " - " + fieldName + " - " + fieldType);
-				//				}
+			throw new VirtualMachineException("not implemented instance field = " + clazzName + " - " + fieldName + " - " + fieldType);
+		}
+	}
+
+	private void getField(final boolean isStatic, final Frame frame, final int fieldIndex, final int destination) {
+		Method method = frame.method;
+		String clazzName = method.dexCache.fieldClasses[fieldIndex];
+		String fieldName = method.dexCache.fieldNames[fieldIndex];
+		String fieldType = method.dexCache.fieldTypes[fieldIndex];
+
+		if (isStatic) {
+			if (!vm.handleClassFieldGetter(frame, clazzName, fieldName, fieldType, destination)) {
+				throw new VirtualMachineException("not implemented class field = " + clazzName + " - " + fieldName + " - " + fieldType);
 			}
+		} else {
+			//				if (!vm.handleInstanceFieldGetter(frame, clazzName, fieldName, fieldType, register)) {
+			throw new VirtualMachineException("not implemented instance field = " + clazzName + " - " + fieldName + " - " + fieldType);
+			//				}
 		}
 	}
 
-	private boolean isInstance(final Object checked, final String type) throws ClassNotFoundException {
+	private boolean isInstance(final Object checked, final DexCache dexCache, final int typeIndex) throws ClassNotFoundException {
 		if (checked == null) {
 			return false;
 		}
-		String className = type.startsWith("L") ? type.substring(1, type.length() - 1) : type;
-		Clazz vmClass = vm.systemClassLoader.loadClass(className);
+		Clazz vmClass = dexCache.resolveClass(typeIndex);
 		if (vmClass != null) {
-			if (checked instanceof Instance) {
-				Clazz instanceClazz = ((Instance)checked).clazz;
-				while (vmClass != null) {
-					if (instanceClazz == vmClass) {
-						return true;
-					}
-					vmClass = vm.systemClassLoader.loadClass(vmClass.superClass);
-				}
-			}
-			return false;
+			return checked instanceof Instance && ((Instance)checked).clazz.isSubclassOf(vmClass);
 		} else {
-			Class nativeClass = Class.forName(className.replace('/', '.'));
+			Class nativeClass = dexCache.resolveHostClass(vm, typeIndex);
 			if (checked instanceof Instance) {
 				return nativeClass.isInstance(((Instance)checked).parentInstance);
 			} else {
@@ -2361,188 +2435,226 @@ final strictfp class Thread {
 		}
 	}
 
-	private static void setArguments(boolean isVirtual, Frame frame, String descriptor, int firstRegister, int range) {
-		int argumentPosition = 0;
-		if (isVirtual) {
-			frame.setArgument(0, frame.objectRegisters[firstRegister]);
-			argumentPosition++;
+	private Frame invokeVirtual(final Frame frame, final int methodIndex) throws Exception {
+		Method method = frame.method;
+		String clazzName = method.dexCache.methodClasses[methodIndex];
+		String methodName = method.dexCache.methodNames[methodIndex];
+		String methodDescriptor = method.dexCache.methodTypes[methodIndex];
+
+		Object object = getReceiver(frame);
+		if (object == null) {
+			throw new NullPointerException();
 		}
-		for (int i = 1, length = descriptor.indexOf(')'); i < length; i++) {
-			int register = firstRegister + argumentPosition;
-			switch (descriptor.charAt(i)) {
-				case 'C':
-				case 'B':
-				case 'S':
-				case 'I':
-				case 'Z':
-					frame.setArgument(argumentPosition, frame.intRegisters[register]);
-					argumentPosition++;
-					break;
-				case 'J':
-					frame.setArgument(argumentPosition, Utils.getLong(frame.intRegisters, register));
-					argumentPosition += 2;
-					break;
-				case 'F':
-					// Copy as int because bits data is important
-					frame.setArgument(argumentPosition, frame.intRegisters[register]);
-					argumentPosition++;
-					break;
-				case 'D':
-					// Copy as long because bits data is important
-					frame.setArgument(argumentPosition, Utils.getLong(frame.intRegisters, register));
-					argumentPosition += 2;
-					break;
-				case 'L': {
-					frame.setArgument(argumentPosition, frame.objectRegisters[register]);
-					argumentPosition++;
-					i = descriptor.indexOf(';', i);
-					break;
+		if (object instanceof Instance) {
+			Instance instance = (Instance)object;
+			Method target = instance.clazz.getVirtualMethod(methodName, methodDescriptor);
+			if (target != null) {
+				return callMethod(target, frame);
+			} else if (clazzName.equals(instance.clazz.name)) {
+				clazzName = instance.clazz.superClass;
+			}
+		}
+		setArguments(true, frame, method.dexCache.resolveArgumentShape(methodIndex));
+		if (!vm.handleInstanceMethod(frame, clazzName, methodName, methodDescriptor)) {
+			throw new VirtualMachineException("not implemented instance method = " + clazzName + " - " + methodName + " - " + methodDescriptor);
+		}
+		return frame;
+	}
+
+	private Frame invokeDirect(final Frame frame, final int methodIndex) throws Exception {
+		Method method = frame.method;
+		String clazzName = method.dexCache.methodClasses[methodIndex];
+		String methodName = method.dexCache.methodNames[methodIndex];
+		String methodDescriptor = method.dexCache.methodTypes[methodIndex];
+
+		Object object = getReceiver(frame);
+		if (object == null) {
+			throw new NullPointerException();
+		}
+		Clazz clazz = vm.systemClassLoader.loadClass(clazzName);
+		if (clazz != null) {
+			return callMethod(clazz.getDirectMethod(methodName, methodDescriptor), frame);
+		} else {
+			setArguments(true, frame, method.dexCache.resolveArgumentShape(methodIndex));
+			if (methodName.equals("<init>")) {
+				if (!vm.handleConstructor(frame, clazzName, methodName, methodDescriptor)) {
+					throw new VirtualMachineException("not implemented constructor = " + clazzName + " - " + methodDescriptor);
 				}
-				case '[': {
-					int startIndex = i;
-					while (i + 1 < length && descriptor.charAt(i + 1) == '[') {
-						i++;
-					}
-					i++;
-					switch (descriptor.charAt(i)) {
-						case 'C':
-						case 'B':
-						case 'S':
-						case 'I':
-						case 'Z':
-						case 'J':
-						case 'F':
-						case 'D':
-							break;
-						case 'L':
-							i = descriptor.indexOf(';', i);
-							break;
-						default:
-							throw new VirtualMachineException("not implemented type = " + descriptor.substring(startIndex, i + 1));
-					}
-					frame.setArgument(argumentPosition, frame.objectRegisters[register]);
-					argumentPosition++;
-					break;
+			} else {
+				if (!vm.handleInstanceMethod(frame, clazzName, methodName, methodDescriptor)) {
+					throw new VirtualMachineException("not implemented instance method = " + clazzName + " - " + methodName + " - " + methodDescriptor);
 				}
-				default:
-					throw new VirtualMachineException("not implemented type = " + descriptor.charAt(i));
 			}
+			return frame;
+		}
+	}
+
+	private Frame invoke(final Frame frame, final InlineCache cache, final int methodIndex) throws Exception {
+		Object object = getReceiver(frame);
+		if (object == null) {
+			throw new NullPointerException();
+		}
+		if (object instanceof Instance) {
+			Method target = cache.lookup(((Instance)object).clazz);
+			if (target != null) {
+				return callMethod(target, frame);
+			}
+		}
+		if (cache.isInterface) {
+			return invokeInterface(frame, methodIndex);
+		} else {
+			return invokeVirtual(frame, methodIndex);
+		}
+	}
+
+	private Frame invokeDirect(final Frame frame, final Method method) {
+		if (getReceiver(frame) == null) {
+			throw new NullPointerException();
+		}
+		return callMethod(method, frame);
+	}
+
+	private Frame invokeStatic(final Frame frame, final int methodIndex) throws Exception {
+		Method method = frame.method;
+		String clazzName = method.dexCache.methodClasses[methodIndex];
+		String methodName = method.dexCache.methodNames[methodIndex];
+		String methodDescriptor = method.dexCache.methodTypes[methodIndex];
+
+		Clazz clazz = vm.systemClassLoader.loadClass(clazzName);
+		if (clazz != null) {
+			return callMethod(clazz.getDirectMethod(methodName, methodDescriptor), frame);
+		} else {
+			setArguments(false, frame, method.dexCache.resolveArgumentShape(methodIndex));
+			if (!vm.handleClassMethod(frame, clazzName, methodName, methodDescriptor)) {
+				throw new VirtualMachineException("not implemented class method = " + clazzName + " - " + methodName + " - " + methodDescriptor);
+			}
+			return frame;
+		}
+	}
+
+	private Frame invokeInterface(final Frame frame, final int methodIndex) throws Exception {
+		Method method = frame.method;
+		String clazzName = method.dexCache.methodClasses[methodIndex];
+		String methodName = method.dexCache.methodNames[methodIndex];
+		String methodDescriptor = method.dexCache.methodTypes[methodIndex];
+
+		Object object = getReceiver(frame);
+		if (object == null) {
+			throw new NullPointerException();
+		}
+		if (object instanceof Instance) {
+			Clazz clazz = ((Instance)object).clazz;
+			return callMethod(clazz.getVirtualMethod(methodName, methodDescriptor), frame);
+		} else {
+			setArguments(true, frame, method.dexCache.resolveArgumentShape(methodIndex));
+			if (!vm.handleInterfaceMethod(frame, clazzName, methodName, methodDescriptor)) {
+				throw new VirtualMachineException("not implemented instance method = " + clazzName + " - " + methodName + " - " + methodDescriptor);
+			}
+			return frame;
+		}
+	}
+
+	private static boolean isRangeInvocation(final int opcode) {
+		return (0x74 <= opcode && opcode <= 0x78) || (0xF8 <= opcode && (opcode & 1) != 0);
+	}
+
+	// The receiver of the invocation instruction which the frame is executing
+	private static Object getReceiver(final Frame frame) {
+		Method method = frame.method;
+		int invocation = frame.pc - 1;
+		int registers = method.operandsC[invocation];
+		if (isRangeInvocation(method.opcodes[invocation])) {
+			return frame.objectRegisters[registers];
+		} else {
+			return frame.objectRegisters[registers & 0xF];
 		}
 	}
 
-	private static void setArguments(final boolean isVirtual, final Frame frame, final String descriptor, final int registers) {
-		int argumentPosition = 0;
+	// The host methods of VirtualMachine receive the arguments of the invocation instruction which the frame is executing in Frame#intArguments and Frame#objectArguments
+	private static void setArguments(final boolean isVirtual, final Frame frame, final byte[] shape) {
+		Method method = frame.method;
+		int invocation = frame.pc - 1;
+		int registers = method.operandsC[invocation];
+		boolean isRange = isRangeInvocation(method.opcodes[invocation]);
+		int position = 0;
 		if (isVirtual) {
-			frame.setArgument(0, frame.objectRegisters[registers & 0xF]);
-			argumentPosition++;
+			frame.setArgument(0, frame.objectRegisters[isRange ? registers : registers & 0xF]);
+			position++;
 		}
-		for (int i = 1, length = descriptor.indexOf(')'); i < length; i++) {
-			int register = (registers >> (argumentPosition * 4)) & 0xF;
-			switch (descriptor.charAt(i)) {
-				case 'C':
-				case 'B':
-				case 'S':
-				case 'I':
-				case 'Z':
-					frame.setArgument(argumentPosition, frame.intRegisters[register]);
-					argumentPosition++;
-					break;
-				case 'J':
-					frame.setArgument(argumentPosition, Utils.getLong(frame.intRegisters, register));
-					argumentPosition += 2;
-					break;
-				case 'F':
-					// Copy as int because bits data is important
-					frame.setArgument(argumentPosition, frame.intRegisters[register]);
-					argumentPosition++;
-					break;
-				case 'D':
-					// Copy as long because bits data is important
-					frame.setArgument(argumentPosition, Utils.getLong(frame.intRegisters, register));
-					argumentPosition += 2;
+		for (int i = 0; i < shape.length; i++, position++) {
+			int register = isRange ? registers + position : (registers >> (position * 4)) & 0xF;
+			switch (shape[i]) {
+				case DexCache.ARGUMENT_INT:
+					// float is copied as int because bits data is important
+					frame.setArgument(position, frame.intRegisters[register]);
 					break;
-				case 'L': {
-					frame.setArgument(argumentPosition, frame.objectRegisters[register]);
-					argumentPosition++;
-					i = descriptor.indexOf(';', i);
+				case DexCache.ARGUMENT_WIDE:
+					frame.setArgument(position, frame.longRegisters[register]);
 					break;
-				}
-				case '[': {
-					int startIndex = i;
-					while (i + 1 < length && descriptor.charAt(i + 1) == '[') {
-						i++;
-					}
-					i++;
-					switch (descriptor.charAt(i)) {
-						case 'C':
-						case 'B':
-						case 'S':
-						case 'I':
-						case 'Z':
-						case 'J':
-						case 'F':
-						case 'D':
-							break;
-						case 'L':
-							i = descriptor.indexOf(';', i);
-							break;
-						default:
-							throw new VirtualMachineException("not implemented type = " + descriptor.substring(startIndex, i + 1));
-					}
-					frame.setArgument(argumentPosition, frame.objectRegisters[register]);
-					argumentPosition++;
+				case DexCache.ARGUMENT_OBJECT:
+					frame.setArgument(position, frame.objectRegisters[register]);
 					break;
-				}
-				default:
-					throw new VirtualMachineException("not implemented type = " + descriptor.charAt(i));
 			}
 		}
 	}
 
-	private static Field getField(final boolean isStatic, final Frame frame, final String clazzName, final String fieldName, final int instance) {
-		if (isStatic) {
-			Clazz clazz = frame.method.clazz.classLoader.loadClass(clazzName);
-			if (clazz != null) {
-				return clazz.getStaticField(fieldName);
-			} else {
-				return null;
+	// Count the backward branch as a loop iteration for TieredPolicy, and return the target
+	private int branch(final Frame frame, final int pc, final int target) {
+		if (target <= pc) {
+			Method method = frame.method;
+			if (method.invocationCount + ++method.backwardBranchCount >= method.nextTierCount) {
+				vm.tieredPolicy.update(method);
 			}
-		} else {
-			Object object = frame.objectRegisters[instance];
-			if (object instanceof Instance) {
-				Field field = ((Instance)object).getField(clazzName, fieldName);
-				if (field != null) {
-					return field;
-				} else {
-					return null;
-				}
-			} else {
-				return null;
+			int[] loopCounts = method.loopCounts;
+			if (loopCounts != null && ++loopCounts[target] == vm.tieredPolicy.osrThreshold) {
+				vm.tieredPolicy.updateLoop(method);
 			}
+			frame.releaseDeadObjects(target);
 		}
+		return target;
 	}
 
-	private Frame callMethod(final boolean isVirtual, Method method, final Frame frame) {
-		Frame newFrame = pushFrame();
-
-		Object instance = null;
-		if (method.isInstance) {
-			instance = frame.objectRegisters[0];
-			if (isVirtual && instance != null && instance instanceof Instance) {
-				// Handle override method
-				method = ((Instance)instance).clazz.getVirtualMethod(method.name, method.descriptor);
-			}
+	private Frame callMethod(final Method method, final Frame frame) {
+		if (++method.invocationCount + method.backwardBranchCount >= method.nextTierCount) {
+			vm.tieredPolicy.update(method);
 		}
+
+		Frame newFrame = pushFrame();
 		newFrame.init(method);
 
+		// Copy the argument registers of the invocation instruction into the last registers of the callee directly, without Frame#intArguments and Frame#objectArguments
+		Method caller = frame.method;
+		int invocation = frame.pc - 1;
+		int registers = caller.operandsC[invocation];
 		int argumentCount = method.incomingArgumentCount;
 		int destPos = newFrame.registerCount - argumentCount;
-		System.arraycopy(frame.intArguments, 0, newFrame.intRegisters, destPos, argumentCount);
-		System.arraycopy(frame.objectArguments, 0, newFrame.objectRegisters, destPos, argumentCount);
+		int[] intRegisters = frame.intRegisters;
+		Object[] objectRegisters = frame.objectRegisters;
+		int[] newIntRegisters = newFrame.intRegisters;
+		Object[] newObjectRegisters = newFrame.objectRegisters;
+		boolean isRange = isRangeInvocation(caller.opcodes[invocation]);
+		if (isRange) {
+			System.arraycopy(intRegisters, registers, newIntRegisters, destPos, argumentCount);
+			System.arraycopy(objectRegisters, registers, newObjectRegisters, destPos, argumentCount);
+		} else {
+			for (int i = 0; i < argumentCount; i++) {
+				int register = (registers >> (i * 4)) & 0xF;
+				newIntRegisters[destPos + i] = intRegisters[register];
+				newObjectRegisters[destPos + i] = objectRegisters[register];
+			}
+		}
+		int[] wideArgumentOffsets = method.wideArgumentOffsets;
+		if (wideArgumentOffsets != null) {
+			for (int i = 0; i < wideArgumentOffsets.length; i++) {
+				int offset = wideArgumentOffsets[i];
+				int register = isRange ? registers + offset : (registers >> (offset * 4)) & 0xF;
+				newFrame.longRegisters[destPos + offset] = frame.longRegisters[register];
+			}
+		}
 
 		if (method.isSynchronized) {
 			if (method.isInstance) {
-				newFrame.monitor = instance;
+				newFrame.monitor = newObjectRegisters[destPos];
 			} else {
 				newFrame.monitor = method.clazz;
 			}
@@ -2763,27 +2875,18 @@ final strictfp class Thread {
 		// At the end, #popFrameByThrowable throws a ChangeThreadException exception
 		while (true) {
 			Method method = frame.method;
-			if (method.exceptionStartAddresses != null) {
-				int handlerIndex = -1;
-				{
-					int[] exceptionStartAddresses = method.exceptionStartAddresses;
-					int[] exceptionEndAddresses = method.exceptionEndAdresses;
-					for (int i = 0, length = exceptionStartAddresses.length; i < length; i++) {
-						if (exceptionStartAddresses[i] < frame.pc && frame.pc <= exceptionEndAddresses[i]) {
-							handlerIndex = method.exceptionHandlerIndexes[i];
-							// Don't exit this loop to search the outer block
-						}
-					}
-				}
-				if (handlerIndex != -1) {
-					String[] exceptionHandlerTypes = method.exceptionHandlerTypes[handlerIndex];
-					int[] exceptionHandlerAddresses = method.exceptionHandlerAddresses[handlerIndex];
-					for (int i = 0, length = exceptionHandlerTypes.length; i < length; i++) {
-						if (vm.isSubClass(e, exceptionHandlerTypes[i])) {
-							frame.throwableReturn = e;
-							frame.pc = exceptionHandlerAddresses[i];
-							return frame;
-						}
+			int[] instructionHandlerIndexes = method.instructionHandlerIndexes;
+			// The frame points just after the failed instruction
+			int pc = frame.pc - 1;
+			if (instructionHandlerIndexes != null && 0 <= pc && instructionHandlerIndexes[pc] != -1) {
+				int handlerIndex = instructionHandlerIndexes[pc];
+				Class[] exceptionHandlerClasses = resolveExceptionHandlerClasses(method, handlerIndex);
+				int[] exceptionHandlerAddresses = method.exceptionHandlerAddresses[handlerIndex];
+				for (int i = 0, length = exceptionHandlerClasses.length; i < length; i++) {
+					if (exceptionHandlerClasses[i] != null && exceptionHandlerClasses[i].isInstance(e)) {
+						frame.throwableReturn = e;
+						frame.pc = exceptionHandlerAddresses[i];
+						return frame;
 					}
 				}
 			}
@@ -2791,6 +2894,23 @@ final strictfp class Thread {
 		}
 	}
 
+	private Class[] resolveExceptionHandlerClasses(final Method method, final int handlerIndex) {
+		Class[] exceptionHandlerClasses = method.exceptionHandlerClasses[handlerIndex];
+		if (exceptionHandlerClasses == null) {
+			String[] exceptionHandlerTypes = method.exceptionHandlerTypes[handlerIndex];
+			exceptionHandlerClasses = new Class[exceptionHandlerTypes.length];
+			for (int i = 0; i < exceptionHandlerTypes.length; i++) {
+				try {
+					exceptionHandlerClasses[i] = vm.resolveHostClass(exceptionHandlerTypes[i]);
+				} catch (ClassNotFoundException e) {
+					// Catch no exception
+				}
+			}
+			method.exceptionHandlerClasses[handlerIndex] = exceptionHandlerClasses;
+		}
+		return exceptionHandlerClasses;
+	}
+
 	static Thread currentThread(final Frame frame) {
 		return frame.thread;
 	}
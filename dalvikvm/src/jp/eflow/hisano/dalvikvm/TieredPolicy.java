@@ -0,0 +1,119 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm;
+
+// Move the methods from the interpreter to the profiled tier, where the loops are counted, and then to the code compiled by JitCompiler.
+// The interpreter only adds the invocations and the backward branches of a method and calls this when their sum reaches Method#nextTierCount.
+// A loop which reaches osrThreshold in the profiled tier has the method compiled earlier, and the running activation enters the compiled code
+// at the loop head on the next backward branch, where the compiled code loads the registers from the frame (on-stack replacement).
+final class TieredPolicy {
+	static final int TIER_INTERPRETED = 0;
+	static final int TIER_PROFILED = 1;
+	static final int TIER_OPTIMIZED = 2;
+
+	private static final String[] TIER_NAMES = { "interpreted", "profiled", "optimized" };
+
+	private static final int DEFAULT_PROFILE_THRESHOLD = 200;
+	private static final int DEFAULT_OPTIMIZE_THRESHOLD = 1000;
+	private static final int DEFAULT_OSR_THRESHOLD = 500;
+
+	private final JitCompiler jitCompiler;
+
+	private int profileThreshold = DEFAULT_PROFILE_THRESHOLD;
+	private int optimizeThreshold = HiddenClassDefiner.isAvailable() ? DEFAULT_OPTIMIZE_THRESHOLD : 0;
+	// Compared by the interpreter with the loop counts of the profiled tier
+	int osrThreshold = HiddenClassDefiner.isAvailable() ? DEFAULT_OSR_THRESHOLD : 0;
+
+	TieredPolicy(final JitCompiler jitCompiler) {
+		this.jitCompiler = jitCompiler;
+	}
+
+	void setProfileThreshold(final int profileThreshold) {
+		this.profileThreshold = profileThreshold;
+	}
+
+	void setOptimizeThreshold(final int optimizeThreshold) {
+		if (HiddenClassDefiner.isAvailable()) {
+			this.optimizeThreshold = optimizeThreshold;
+		}
+	}
+
+	void setOsrThreshold(final int osrThreshold) {
+		if (HiddenClassDefiner.isAvailable()) {
+			this.osrThreshold = osrThreshold;
+		}
+	}
+
+	// Called by the interpreter when a loop count of the method reaches osrThreshold
+	void updateLoop(final Method method) {
+		if (method.tier == TIER_PROFILED) {
+			method.tier = TIER_OPTIMIZED;
+			method.nextTierCount = Integer.MAX_VALUE;
+			jitCompiler.request(method);
+		}
+	}
+
+	// Called when an assumption the compiled code was generated with no longer holds.
+	// The activations of the compiled code always stand at an instruction left to the interpreter with the registers written back into their frames,
+	// so they continue in the interpreter from there, and the method is compiled again after optimizeThreshold more invocations and backward branches.
+	void deoptimize(final Method method) {
+		JitCompiler.uninstall(method);
+		method.tier = TIER_PROFILED;
+		method.loopCounts = new int[method.opcodes.length];
+		int count = method.invocationCount + method.backwardBranchCount;
+		method.nextTierCount = 0 < optimizeThreshold && count < Integer.MAX_VALUE - optimizeThreshold ? count + optimizeThreshold : Integer.MAX_VALUE;
+	}
+
+	void update(final Method method) {
+		int count = method.invocationCount + method.backwardBranchCount;
+		if (0 < optimizeThreshold && optimizeThreshold <= count) {
+			method.tier = TIER_OPTIMIZED;
+			method.nextTierCount = Integer.MAX_VALUE;
+			jitCompiler.request(method);
+		} else if (0 < profileThreshold && profileThreshold <= count) {
+			if (method.tier == TIER_INTERPRETED) {
+				method.tier = TIER_PROFILED;
+				method.loopCounts = new int[method.opcodes.length];
+			}
+			method.nextTierCount = 0 < optimizeThreshold ? optimizeThreshold : Integer.MAX_VALUE;
+		} else {
+			method.nextTierCount = getNextThreshold(count);
+		}
+	}
+
+	private int getNextThreshold(final int count) {
+		int nextThreshold = Integer.MAX_VALUE;
+		if (count < profileThreshold) {
+			nextThreshold = profileThreshold;
+		}
+		if (count < optimizeThreshold && optimizeThreshold < nextThreshold) {
+			nextThreshold = optimizeThreshold;
+		}
+		return nextThreshold;
+	}
+
+	static String getTierName(final int tier) {
+		return TIER_NAMES[tier];
+	}
+}
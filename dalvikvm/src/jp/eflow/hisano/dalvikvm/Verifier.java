@@ -0,0 +1,968 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm;
+
+import java.util.Vector;
+
+// Verify the instructions of a method when its class is linked by Clazz#link, following doc/google/verifier.html, by finding the type of every register before every instruction.
+// The types specialize the comparisons of the objects and the array accesses of the known element types into the opcodes which are not used in dex files.
+final class Verifier {
+	static final int IF_EQ_OBJECT = 0x3E;
+	static final int IF_NE_OBJECT = 0x3F;
+	static final int IF_EQZ_OBJECT = 0x40;
+	static final int IF_NEZ_OBJECT = 0x41;
+	static final int AGET_INT = 0xEA;
+	static final int AGET_FLOAT = 0xEB;
+	static final int AGET_LONG = 0xEC;
+	static final int AGET_DOUBLE = 0xED;
+	static final int APUT_INT = 0xEE;
+	static final int APUT_FLOAT = 0xEF;
+	static final int APUT_LONG = 0xF0;
+	static final int APUT_DOUBLE = 0xF1;
+
+	// Not written on a path, or written with the conflicting types
+	private static final int TYPE_UNDEFINED = 0;
+	// The constant 0 written into both of the int and the object register
+	private static final int TYPE_ZERO = 1;
+	// int, float, boolean, byte, char or short
+	private static final int TYPE_PRIMITIVE = 2;
+	// The registers of long or double
+	private static final int TYPE_WIDE_LOW = 3;
+	private static final int TYPE_WIDE_HIGH = 4;
+	// The reference of an unknown class, and the larger types are the references of Verifier#descriptors
+	private static final int TYPE_REFERENCE = 5;
+
+	// The first characters of the types accessed by the array and field instructions in the order of the 32 bit, wide, object, boolean, byte, char and short variants
+	private static final String[] VALUE_TYPES = { "IF", "JD", "L[", "Z", "B", "C", "S" };
+
+	private final Method method;
+	private final DexCache dexCache;
+	private final int[] opcodes;
+	private final int[] operandsA;
+	private final int[] operandsB;
+	private final int[] operandsC;
+	private final int registerCount;
+
+	private final Vector descriptors = new Vector();
+	// The types of the registers before each instruction, or null if the instruction is never executed
+	private int[][] states;
+	private boolean[] isHandler;
+	// The registers whose objects are read and written by each instruction, recorded when the instruction is verified first
+	private int[][] objectReads;
+	private int[] objectWrites;
+	private int[] readRegisters = new int[4];
+	private int readCount;
+	private int writtenRegister;
+	// The instruction being verified
+	private int pc;
+
+	Verifier(final Method method) {
+		this.method = method;
+		dexCache = method.dexCache;
+		opcodes = method.opcodes;
+		operandsA = method.operandsA;
+		operandsB = method.operandsB;
+		operandsC = method.operandsC;
+		registerCount = method.registerCount;
+	}
+
+	void verify() {
+		int instructionCount = opcodes.length;
+		if (instructionCount == 0) {
+			fail("no instruction");
+		}
+		isHandler = new boolean[instructionCount];
+		int[][] handlerAddresses = method.exceptionHandlerAddresses;
+		for (int i = 0; handlerAddresses != null && i < handlerAddresses.length; i++) {
+			for (int j = 0; j < handlerAddresses[i].length; j++) {
+				isHandler[handlerAddresses[i][j]] = true;
+			}
+		}
+
+		states = new int[instructionCount][];
+		states[0] = getParameterTypes();
+		objectReads = new int[instructionCount][];
+		objectWrites = new int[instructionCount];
+		int[] workList = new int[instructionCount];
+		boolean[] isInWorkList = new boolean[instructionCount];
+		int workCount = 0;
+		workList[workCount++] = 0;
+		isInWorkList[0] = true;
+		int[] targets = new int[getMaxSuccessorCount()];
+		int[] types = new int[registerCount];
+		while (workCount != 0) {
+			pc = workList[--workCount];
+			isInWorkList[pc] = false;
+
+			// The exception handlers see the registers before the instruction
+			int[] handlers = getHandlers();
+			for (int i = 0; handlers != null && i < handlers.length; i++) {
+				if (merge(handlers[i], states[pc]) && !isInWorkList[handlers[i]]) {
+					isInWorkList[handlers[i]] = true;
+					workList[workCount++] = handlers[i];
+				}
+			}
+
+			System.arraycopy(states[pc], 0, types, 0, registerCount);
+			readCount = 0;
+			writtenRegister = -1;
+			verifyInstruction(types);
+			if (objectReads[pc] == null) {
+				objectReads[pc] = new int[readCount];
+				System.arraycopy(readRegisters, 0, objectReads[pc], 0, readCount);
+				objectWrites[pc] = writtenRegister;
+			}
+			int targetCount = getSuccessors(targets);
+			for (int i = 0; i < targetCount; i++) {
+				int target = targets[i];
+				if (target == instructionCount) {
+					fail("not terminated code");
+				} else if (target < 0 || instructionCount < target) {
+					fail("not valid branch target = " + target);
+				}
+				if (merge(target, types) && !isInWorkList[target]) {
+					isInWorkList[target] = true;
+					workList[workCount++] = target;
+				}
+			}
+		}
+
+		boolean[] isObjectRegister = findObjectRegisters();
+		findDeadObjects(isObjectRegister);
+		specialize();
+	}
+
+	private void fail(final String message) {
+		throw new VirtualMachineException("not verified method = " + method + " [" + pc + "] - " + message);
+	}
+
+	private boolean merge(final int target, final int[] types) {
+		int[] state = states[target];
+		if (state == null) {
+			states[target] = types.clone();
+			return true;
+		}
+		boolean isChanged = false;
+		for (int i = 0; i < registerCount; i++) {
+			int type = mergeType(state[i], types[i]);
+			if (type != state[i]) {
+				state[i] = type;
+				isChanged = true;
+			}
+		}
+		return isChanged;
+	}
+
+	private static int mergeType(final int first, final int second) {
+		if (first == second) {
+			return first;
+		} else if (first == TYPE_ZERO && (second == TYPE_PRIMITIVE || TYPE_REFERENCE <= second)) {
+			return second;
+		} else if (second == TYPE_ZERO && (first == TYPE_PRIMITIVE || TYPE_REFERENCE <= first)) {
+			return first;
+		} else if (TYPE_REFERENCE <= first && TYPE_REFERENCE <= second) {
+			// The common super class is not looked for
+			return TYPE_REFERENCE;
+		} else {
+			return TYPE_UNDEFINED;
+		}
+	}
+
+	// The arguments are in the last registers. Also sets Method#wideArgumentOffsets for Thread#callMethod
+	private int[] getParameterTypes() {
+		int[] types = new int[registerCount];
+		if (registerCount < method.incomingArgumentCount) {
+			fail("not matched argument count = " + method.incomingArgumentCount);
+		}
+		int firstRegister = registerCount - method.incomingArgumentCount;
+		int register = firstRegister;
+		if (method.isInstance) {
+			types[register++] = getReferenceType("L" + method.clazz.name + ";");
+		}
+		String descriptor = method.descriptor;
+		int[] wideArgumentOffsets = new int[method.incomingArgumentCount];
+		int wideArgumentCount = 0;
+		for (int i = 1, length = descriptor.indexOf(')'); i < length; i++) {
+			int end = getTypeEnd(descriptor, i);
+			int category = getCategory(descriptor.charAt(i));
+			if (registerCount <= register + (category == TYPE_WIDE_LOW ? 1 : 0)) {
+				fail("not matched argument count = " + method.incomingArgumentCount);
+			}
+			switch (category) {
+				case TYPE_WIDE_LOW:
+					wideArgumentOffsets[wideArgumentCount++] = register - firstRegister;
+					types[register++] = TYPE_WIDE_LOW;
+					types[register++] = TYPE_WIDE_HIGH;
+					break;
+				case TYPE_REFERENCE:
+					types[register++] = getReferenceType(descriptor.substring(i, end));
+					break;
+				default:
+					types[register++] = TYPE_PRIMITIVE;
+					break;
+			}
+			i = end - 1;
+		}
+		if (register != registerCount) {
+			fail("not matched argument count = " + method.incomingArgumentCount);
+		}
+		if (wideArgumentCount != 0) {
+			method.wideArgumentOffsets = new int[wideArgumentCount];
+			System.arraycopy(wideArgumentOffsets, 0, method.wideArgumentOffsets, 0, wideArgumentCount);
+		}
+		return types;
+	}
+
+	private int[] getHandlers() {
+		int[] handlerIndexes = method.instructionHandlerIndexes;
+		if (handlerIndexes == null || handlerIndexes[pc] == -1) {
+			return null;
+		}
+		return method.exceptionHandlerAddresses[handlerIndexes[pc]];
+	}
+
+	private void verifyInstruction(final int[] types) {
+		int opcode = opcodes[pc];
+		int operandA = operandsA[pc];
+		int operandB = operandsB[pc];
+		int operandC = operandsC[pc];
+		switch (opcode) {
+			case 0x00:
+			case 0x28:
+			case 0x29:
+			case 0x2A:
+				// nop and goto
+				break;
+			case 0x01:
+			case 0x02:
+			case 0x03:
+				// move vA, vB copies only the int register
+				readPrimitive(types, operandB);
+				write(types, operandA, TYPE_PRIMITIVE);
+				break;
+			case 0x04:
+			case 0x05:
+			case 0x06:
+				// move-wide vA, vB
+				readWide(types, operandB);
+				writeWide(types, operandA);
+				break;
+			case 0x07:
+			case 0x08:
+			case 0x09: {
+				// move-object vA, vB copies only the object register
+				int type = readReference(types, operandB);
+				write(types, operandA, type == TYPE_ZERO ? TYPE_REFERENCE : type);
+				break;
+			}
+			case 0x0A:
+			case 0x0B:
+			case 0x0C:
+				// move-result vAA
+				verifyMoveResult(types, opcode, operandA);
+				break;
+			case 0x0D:
+				// move-exception vAA
+				if (!isHandler[pc]) {
+					fail("not first instruction of exception handler");
+				}
+				write(types, operandA, TYPE_REFERENCE);
+				break;
+			case 0x0E:
+				// return-void
+				verifyReturn(TYPE_UNDEFINED);
+				break;
+			case 0x0F:
+				// return vAA
+				readPrimitive(types, operandA);
+				verifyReturn(TYPE_PRIMITIVE);
+				break;
+			case 0x10:
+				// return-wide vAA
+				readWide(types, operandA);
+				verifyReturn(TYPE_WIDE_LOW);
+				break;
+			case 0x11:
+				// return-object vAA
+				readReference(types, operandA);
+				verifyReturn(TYPE_REFERENCE);
+				break;
+			case 0x12:
+			case 0x13:
+			case 0x14:
+			case 0x15:
+				// const vAA, #+BBBBBBBB
+				write(types, operandA, operandB == 0 ? TYPE_ZERO : TYPE_PRIMITIVE);
+				break;
+			case 0x16:
+			case 0x17:
+			case 0x18:
+			case 0x19:
+				// const-wide vAA, #+BBBBBBBBBBBBBBBB
+				writeWide(types, operandA);
+				break;
+			case 0x1A:
+			case 0x1B:
+				// const-string vAA, string@BBBBBBBB
+				write(types, operandA, getReferenceType("Ljava/lang/String;"));
+				break;
+			case 0x1C:
+				// const-class vAA, type@BBBB
+				write(types, operandA, getReferenceType("Ljava/lang/Class;"));
+				break;
+			case 0x1D:
+			case 0x1E:
+			case 0x26:
+			case 0x27:
+				// monitor-enter, monitor-exit, fill-array-data and throw vAA
+				readReference(types, operandA);
+				break;
+			case 0x1F:
+				// check-cast vAA, type@BBBB
+				readReference(types, operandA);
+				write(types, operandA, getReferenceType(dexCache.types[operandB]));
+				break;
+			case 0x20:
+			case 0x21:
+				// instance-of vA, vB, type@CCCC and array-length vA, vB
+				readReference(types, operandB);
+				write(types, operandA, TYPE_PRIMITIVE);
+				break;
+			case 0x22:
+				// new-instance vAA, type@BBBB
+				write(types, operandA, getReferenceType(dexCache.types[operandB]));
+				break;
+			case 0x23:
+				// new-array vA, vB, type@CCCC
+				readPrimitive(types, operandB);
+				if (dexCache.types[operandC].charAt(0) != '[') {
+					fail("not array type = " + dexCache.types[operandC]);
+				}
+				write(types, operandA, getReferenceType(dexCache.types[operandC]));
+				break;
+			case 0x24:
+			case 0x25: {
+				// filled-new-array {vD, vE, vF, vG, vA}, type@CCCC, whose elements are int or references
+				String descriptor = dexCache.types[operandB];
+				int category = descriptor.charAt(0) == '[' ? getCategory(descriptor.charAt(1)) : TYPE_UNDEFINED;
+				if (category != TYPE_REFERENCE && descriptor.charAt(1) != 'I') {
+					fail("not filled array type = " + descriptor);
+				}
+				for (int i = 0; i < operandA; i++) {
+					readValue(types, getArgumentRegister(opcode == 0x25, i), category);
+				}
+				break;
+			}
+			case 0x2B:
+			case 0x2C:
+				// packed-switch and sparse-switch vAA, +BBBBBBBB
+				readPrimitive(types, operandA);
+				break;
+			case 0x2D:
+			case 0x2E:
+				// cmpl-float and cmpg-float vAA, vBB, vCC
+				readPrimitive(types, operandB);
+				readPrimitive(types, operandC);
+				write(types, operandA, TYPE_PRIMITIVE);
+				break;
+			case 0x2F:
+			case 0x30:
+			case 0x31:
+				// cmpl-double, cmpg-double and cmp-long vAA, vBB, vCC
+				readWide(types, operandB);
+				readWide(types, operandC);
+				write(types, operandA, TYPE_PRIMITIVE);
+				break;
+			case 0x32:
+			case 0x33: {
+				// if-eq and if-ne vA, vB, +CCCC of the ints or the references
+				int firstType = getType(types, operandA);
+				int secondType = getType(types, operandB);
+				if (!(isPrimitive(firstType) && isPrimitive(secondType)) && !(isReference(firstType) && isReference(secondType))) {
+					fail("not comparable registers = v" + operandA + ", v" + operandB);
+				}
+				break;
+			}
+			case 0x34:
+			case 0x35:
+			case 0x36:
+			case 0x37:
+				// if-lt, if-ge, if-gt and if-le vA, vB, +CCCC
+				readPrimitive(types, operandA);
+				readPrimitive(types, operandB);
+				break;
+			case 0x38:
+			case 0x39: {
+				// if-eqz and if-nez vAA, +BBBB of the int or the reference
+				int type = getType(types, operandA);
+				if (!isPrimitive(type) && !isReference(type)) {
+					fail("not comparable register = v" + operandA);
+				}
+				break;
+			}
+			case 0x3A:
+			case 0x3B:
+			case 0x3C:
+			case 0x3D:
+				// if-ltz, if-gez, if-gtz and if-lez vAA, +BBBB
+				readPrimitive(types, operandA);
+				break;
+			default:
+				if (0x44 <= opcode && opcode <= 0x51) {
+					// aget and aput vAA, vBB, vCC
+					int arrayType = readReference(types, operandB);
+					readPrimitive(types, operandC);
+					int variant = (opcode - 0x44) % 7;
+					String componentDescriptor = null;
+					if (TYPE_REFERENCE < arrayType) {
+						String arrayDescriptor = getDescriptor(arrayType);
+						if (arrayDescriptor.charAt(0) != '[') {
+							fail("not array register = v" + operandB);
+						}
+						componentDescriptor = arrayDescriptor.substring(1);
+					}
+					verifyValue(types, operandA, variant, 0x4B <= opcode, componentDescriptor);
+				} else if (0x52 <= opcode && opcode <= 0x5F) {
+					// iget and iput vA, vB, field@CCCC
+					readReference(types, operandB);
+					verifyValue(types, operandA, (opcode - 0x52) % 7, 0x59 <= opcode, dexCache.fieldTypes[operandC]);
+				} else if (0x60 <= opcode && opcode <= 0x6D) {
+					// sget and sput vAA, field@BBBB
+					verifyValue(types, operandA, (opcode - 0x60) % 7, 0x67 <= opcode, dexCache.fieldTypes[operandB]);
+				} else if ((0x6E <= opcode && opcode <= 0x72) || (0x74 <= opcode && opcode <= 0x78)) {
+					verifyInvoke(types, opcode);
+				} else if (0x7B <= opcode && opcode <= 0x8F) {
+					// unop vA, vB
+					readValue(types, operandB, isWideSource(opcode) ? TYPE_WIDE_LOW : TYPE_PRIMITIVE);
+					writeValue(types, operandA, isWideResult(opcode) ? TYPE_WIDE_LOW : TYPE_PRIMITIVE);
+				} else if (0x90 <= opcode && opcode <= 0xCF) {
+					// binop vAA, vBB, vCC and binop/2addr vA, vB of int, long, float and double in this order
+					int operation = (opcode - 0x90) % 0x20;
+					int category = (11 <= operation && operation < 22) || 27 <= operation ? TYPE_WIDE_LOW : TYPE_PRIMITIVE;
+					boolean isTwoAddress = 0xB0 <= opcode;
+					readValue(types, isTwoAddress ? operandA : operandB, category);
+					// The distances of the long shifts are ints
+					readValue(types, isTwoAddress ? operandB : operandC, 19 <= operation && operation < 22 ? TYPE_PRIMITIVE : category);
+					writeValue(types, operandA, category);
+				} else if (0xD0 <= opcode && opcode <= 0xE2) {
+					// binop/lit16 vA, vB, #+CCCC and binop/lit8 vAA, vBB, #+CC
+					readPrimitive(types, operandB);
+					write(types, operandA, TYPE_PRIMITIVE);
+				} else {
+					fail("not valid opcode = 0x" + Integer.toHexString(opcode));
+				}
+				break;
+		}
+	}
+
+	// The move-result instructions follow the instructions which return the values
+	private void verifyMoveResult(final int[] types, final int opcode, final int register) {
+		int previousOpcode = pc == 0 ? -1 : opcodes[pc - 1];
+		String descriptor;
+		if ((0x6E <= previousOpcode && previousOpcode <= 0x72) || (0x74 <= previousOpcode && previousOpcode <= 0x78)) {
+			String methodDescriptor = dexCache.methodTypes[operandsB[pc - 1]];
+			descriptor = methodDescriptor.substring(methodDescriptor.indexOf(')') + 1);
+		} else if (previousOpcode == 0x24 || previousOpcode == 0x25) {
+			descriptor = dexCache.types[operandsB[pc - 1]];
+		} else {
+			fail("not after invoke or filled-new-array");
+			return;
+		}
+		int category = getCategory(descriptor.charAt(0));
+		if (category != (opcode == 0x0A ? TYPE_PRIMITIVE : opcode == 0x0B ? TYPE_WIDE_LOW : TYPE_REFERENCE)) {
+			fail("not matched result type = " + descriptor);
+		}
+		if (category == TYPE_REFERENCE) {
+			write(types, register, getReferenceType(descriptor));
+		} else {
+			writeValue(types, register, category);
+		}
+	}
+
+	private void verifyReturn(final int category) {
+		String descriptor = method.descriptor;
+		if (getCategory(descriptor.charAt(descriptor.indexOf(')') + 1)) != category) {
+			fail("not matched return type = " + descriptor);
+		}
+	}
+
+	// The value of the array and field instructions. The descriptor is the type of the value, or null if unknown
+	private void verifyValue(final int[] types, final int register, final int variant, final boolean isPut, final String descriptor) {
+		if (descriptor != null && VALUE_TYPES[variant].indexOf(descriptor.charAt(0)) == -1) {
+			fail("not matched value type = " + descriptor);
+		}
+		int category = variant == 1 ? TYPE_WIDE_LOW : variant == 2 ? TYPE_REFERENCE : TYPE_PRIMITIVE;
+		if (isPut) {
+			readValue(types, register, category);
+		} else if (category == TYPE_REFERENCE) {
+			write(types, register, descriptor == null ? TYPE_REFERENCE : getReferenceType(descriptor));
+		} else {
+			writeValue(types, register, category);
+		}
+	}
+
+	private void verifyInvoke(final int[] types, final int opcode) {
+		boolean isRange = 0x74 <= opcode;
+		String descriptor = dexCache.methodTypes[operandsB[pc]];
+		int argument = 0;
+		if (opcode != 0x71 && opcode != 0x77) {
+			// The receiver of the instance method
+			readReference(types, getArgumentRegister(isRange, argument++));
+		}
+		for (int i = 1, length = descriptor.indexOf(')'); i < length; i++) {
+			int end = getTypeEnd(descriptor, i);
+			int category = getCategory(descriptor.charAt(i));
+			int register = getArgumentRegister(isRange, argument++);
+			readValue(types, register, category);
+			if (category == TYPE_WIDE_LOW && getArgumentRegister(isRange, argument++) != register + 1) {
+				fail("not wide argument = v" + register);
+			}
+			i = end - 1;
+		}
+		if (argument != operandsA[pc]) {
+			fail("not matched argument count = " + operandsA[pc]);
+		}
+	}
+
+	private int getArgumentRegister(final boolean isRange, final int argument) {
+		if (operandsA[pc] <= argument) {
+			fail("not matched argument count = " + operandsA[pc]);
+		}
+		if (isRange) {
+			return operandsC[pc] + argument;
+		} else {
+			return (operandsC[pc] >> (argument * 4)) & 0xF;
+		}
+	}
+
+	private static boolean isWideSource(final int opcode) {
+		switch (opcode) {
+			case 0x7D:
+			case 0x7E:
+			case 0x80:
+			case 0x84:
+			case 0x85:
+			case 0x86:
+			case 0x8A:
+			case 0x8B:
+			case 0x8C:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	private static boolean isWideResult(final int opcode) {
+		switch (opcode) {
+			case 0x7D:
+			case 0x7E:
+			case 0x80:
+			case 0x81:
+			case 0x83:
+			case 0x86:
+			case 0x88:
+			case 0x89:
+			case 0x8B:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	private int getType(final int[] types, final int register) {
+		if (register < 0 || registerCount <= register) {
+			fail("not valid register = v" + register);
+		}
+		return types[register];
+	}
+
+	private static boolean isPrimitive(final int type) {
+		return type == TYPE_ZERO || type == TYPE_PRIMITIVE;
+	}
+
+	private static boolean isReference(final int type) {
+		return type == TYPE_ZERO || TYPE_REFERENCE <= type;
+	}
+
+	private void readValue(final int[] types, final int register, final int category) {
+		switch (category) {
+			case TYPE_WIDE_LOW:
+				readWide(types, register);
+				break;
+			case TYPE_REFERENCE:
+				readReference(types, register);
+				break;
+			default:
+				readPrimitive(types, register);
+				break;
+		}
+	}
+
+	private void readPrimitive(final int[] types, final int register) {
+		if (!isPrimitive(getType(types, register))) {
+			fail("not primitive register = v" + register);
+		}
+	}
+
+	private void readWide(final int[] types, final int register) {
+		if (getType(types, register) != TYPE_WIDE_LOW || getType(types, register + 1) != TYPE_WIDE_HIGH) {
+			fail("not wide register = v" + register);
+		}
+	}
+
+	private int readReference(final int[] types, final int register) {
+		int type = getType(types, register);
+		if (!isReference(type)) {
+			fail("not reference register = v" + register);
+		}
+		if (readCount == readRegisters.length) {
+			int[] newReadRegisters = new int[readCount * 2];
+			System.arraycopy(readRegisters, 0, newReadRegisters, 0, readCount);
+			readRegisters = newReadRegisters;
+		}
+		readRegisters[readCount++] = register;
+		return type;
+	}
+
+	private void writeValue(final int[] types, final int register, final int category) {
+		if (category == TYPE_WIDE_LOW) {
+			writeWide(types, register);
+		} else {
+			write(types, register, category);
+		}
+	}
+
+	private void write(final int[] types, final int register, final int type) {
+		invalidateWide(types, register);
+		types[register] = type;
+		if (type == TYPE_ZERO || TYPE_REFERENCE <= type) {
+			// The constant 0 is also written into the object register
+			writtenRegister = register;
+		}
+	}
+
+	private void writeWide(final int[] types, final int register) {
+		invalidateWide(types, register);
+		invalidateWide(types, register + 1);
+		types[register] = TYPE_WIDE_LOW;
+		types[register + 1] = TYPE_WIDE_HIGH;
+	}
+
+	// The other half of the overwritten wide register is not usable any more
+	private void invalidateWide(final int[] types, final int register) {
+		int type = getType(types, register);
+		if (type == TYPE_WIDE_LOW && register + 1 < registerCount) {
+			types[register + 1] = TYPE_UNDEFINED;
+		} else if (type == TYPE_WIDE_HIGH && 0 < register) {
+			types[register - 1] = TYPE_UNDEFINED;
+		}
+	}
+
+	// TYPE_PRIMITIVE, TYPE_WIDE_LOW, TYPE_REFERENCE or TYPE_UNDEFINED for void
+	private static int getCategory(final char descriptor) {
+		switch (descriptor) {
+			case 'V':
+				return TYPE_UNDEFINED;
+			case 'J':
+			case 'D':
+				return TYPE_WIDE_LOW;
+			case 'L':
+			case '[':
+				return TYPE_REFERENCE;
+			default:
+				return TYPE_PRIMITIVE;
+		}
+	}
+
+	// The index after the type starting at the index of the descriptor
+	private static int getTypeEnd(final String descriptor, int index) {
+		while (descriptor.charAt(index) == '[') {
+			index++;
+		}
+		if (descriptor.charAt(index) == 'L') {
+			index = descriptor.indexOf(';', index);
+		}
+		return index + 1;
+	}
+
+	private int getReferenceType(final String descriptor) {
+		int index = descriptors.indexOf(descriptor);
+		if (index == -1) {
+			index = descriptors.size();
+			descriptors.addElement(descriptor);
+		}
+		return TYPE_REFERENCE + 1 + index;
+	}
+
+	private String getDescriptor(final int type) {
+		return (String)descriptors.elementAt(type - TYPE_REFERENCE - 1);
+	}
+
+	private int getMaxSuccessorCount() {
+		int maxCount = 2;
+		for (int i = 0; i < opcodes.length; i++) {
+			if (opcodes[i] == 0x2B || opcodes[i] == 0x2C) {
+				maxCount = Math.max(maxCount, ((SwitchTable)method.resolvedReferences[i]).targets.length + 1);
+			}
+		}
+		return maxCount;
+	}
+
+	// The instructions executed after the instruction, other than the exception handlers
+	private int getSuccessors(final int[] targets) {
+		int opcode = opcodes[pc];
+		switch (opcode) {
+			case 0x0E:
+			case 0x0F:
+			case 0x10:
+			case 0x11:
+			case 0x27:
+				// return and throw
+				return 0;
+			case 0x28:
+			case 0x29:
+			case 0x2A:
+				targets[0] = operandsA[pc];
+				return 1;
+			case 0x2B:
+			case 0x2C: {
+				// packed-switch and sparse-switch
+				int[] switchTargets = ((SwitchTable)method.resolvedReferences[pc]).targets;
+				int size = switchTargets.length;
+				System.arraycopy(switchTargets, 0, targets, 0, size);
+				targets[size] = pc + 1;
+				return size + 1;
+			}
+			default:
+				if (0x32 <= opcode && opcode <= 0x37) {
+					targets[0] = operandsC[pc];
+					targets[1] = pc + 1;
+					return 2;
+				} else if (0x38 <= opcode && opcode <= 0x3D) {
+					targets[0] = operandsB[pc];
+					targets[1] = pc + 1;
+					return 2;
+				}
+				targets[0] = pc + 1;
+				return 1;
+		}
+	}
+
+	private void specialize() {
+		for (int i = 0; i < opcodes.length; i++) {
+			int[] types = states[i];
+			if (types == null) {
+				// Never executed
+				continue;
+			}
+			switch (opcodes[i]) {
+				case 0x32:
+					if (isObjectComparison(i)) {
+						opcodes[i] = IF_EQ_OBJECT;
+					}
+					break;
+				case 0x33:
+					if (isObjectComparison(i)) {
+						opcodes[i] = IF_NE_OBJECT;
+					}
+					break;
+				case 0x38:
+					if (isObjectComparison(i)) {
+						opcodes[i] = IF_EQZ_OBJECT;
+					}
+					break;
+				case 0x39:
+					if (isObjectComparison(i)) {
+						opcodes[i] = IF_NEZ_OBJECT;
+					}
+					break;
+				case 0x44:
+					opcodes[i] = getArrayOpcode(types[operandsB[i]], 0x44, "[I", AGET_INT, "[F", AGET_FLOAT);
+					break;
+				case 0x45:
+					opcodes[i] = getArrayOpcode(types[operandsB[i]], 0x45, "[J", AGET_LONG, "[D", AGET_DOUBLE);
+					break;
+				case 0x4B:
+					opcodes[i] = getArrayOpcode(types[operandsB[i]], 0x4B, "[I", APUT_INT, "[F", APUT_FLOAT);
+					break;
+				case 0x4C:
+					opcodes[i] = getArrayOpcode(types[operandsB[i]], 0x4C, "[J", APUT_LONG, "[D", APUT_DOUBLE);
+					break;
+			}
+		}
+	}
+
+	// The if-eq, if-ne, if-eqz and if-nez instructions of the objects, which read the object registers
+	private boolean isObjectComparison(final int index) {
+		int[] types = states[index];
+		switch (opcodes[index]) {
+			case 0x32:
+			case 0x33:
+				return TYPE_REFERENCE <= types[operandsA[index]] || TYPE_REFERENCE <= types[operandsB[index]];
+			case 0x38:
+			case 0x39:
+				return TYPE_REFERENCE <= types[operandsA[index]];
+			default:
+				return false;
+		}
+	}
+
+	// The registers which may keep the objects, which are the arguments copied with both of the int and object registers by Thread#callMethod
+	// and the registers written with the objects. Sets Method#objectRegisterIndexes for Frame#destroy
+	private boolean[] findObjectRegisters() {
+		boolean[] isObjectRegister = new boolean[registerCount];
+		for (int i = registerCount - method.incomingArgumentCount; i < registerCount; i++) {
+			isObjectRegister[i] = true;
+		}
+		for (int i = 0; i < opcodes.length; i++) {
+			if (states[i] != null && objectWrites[i] != -1) {
+				isObjectRegister[objectWrites[i]] = true;
+			}
+		}
+		int count = 0;
+		for (int i = 0; i < registerCount; i++) {
+			if (isObjectRegister[i]) {
+				count++;
+			}
+		}
+		method.objectRegisterIndexes = new int[count];
+		for (int i = 0, j = 0; i < registerCount; i++) {
+			if (isObjectRegister[i]) {
+				method.objectRegisterIndexes[j++] = i;
+			}
+		}
+		return isObjectRegister;
+	}
+
+	// Find the registers whose objects are not read at and after the invocations and the targets of the backward branches,
+	// where Frame#releaseDeadObjects releases the objects left in the registers by the backward liveness analysis
+	private void findDeadObjects(final boolean[] isObjectRegister) {
+		int instructionCount = opcodes.length;
+		int wordCount = (registerCount + 31) >>> 5;
+		// The bits of the registers whose objects may be read at or after each instruction
+		int[][] liveRegisters = new int[instructionCount][wordCount];
+		int[] live = new int[wordCount];
+		int[] targets = new int[getMaxSuccessorCount()];
+		boolean isChanged = true;
+		while (isChanged) {
+			isChanged = false;
+			for (pc = instructionCount - 1; 0 <= pc; pc--) {
+				if (states[pc] == null) {
+					// Never executed
+					continue;
+				}
+				for (int i = 0; i < wordCount; i++) {
+					live[i] = 0;
+				}
+				for (int i = 0, length = getSuccessors(targets); i < length; i++) {
+					addRegisters(live, liveRegisters[targets[i]]);
+				}
+				int written = objectWrites[pc];
+				if (written != -1) {
+					live[written >>> 5] &= ~(1 << written);
+				}
+				// The exception handlers may be entered before the register is written
+				int[] handlers = getHandlers();
+				for (int i = 0; handlers != null && i < handlers.length; i++) {
+					addRegisters(live, liveRegisters[handlers[i]]);
+				}
+				int[] reads = objectReads[pc];
+				for (int i = 0; i < reads.length; i++) {
+					live[reads[i] >>> 5] |= 1 << reads[i];
+				}
+				if (isObjectComparison(pc)) {
+					live[operandsA[pc] >>> 5] |= 1 << operandsA[pc];
+					if (opcodes[pc] == 0x32 || opcodes[pc] == 0x33) {
+						live[operandsB[pc] >>> 5] |= 1 << operandsB[pc];
+					}
+				}
+				for (int i = 0; i < wordCount; i++) {
+					if (liveRegisters[pc][i] != live[i]) {
+						liveRegisters[pc][i] = live[i];
+						isChanged = true;
+					}
+				}
+			}
+		}
+
+		boolean[] isReleasePoint = new boolean[instructionCount];
+		for (pc = 0; pc < instructionCount; pc++) {
+			if (states[pc] == null) {
+				continue;
+			}
+			int opcode = opcodes[pc];
+			if ((0x6E <= opcode && opcode <= 0x72) || (0x74 <= opcode && opcode <= 0x78)) {
+				isReleasePoint[pc] = true;
+			} else if ((0x28 <= opcode && opcode <= 0x2A) || (0x32 <= opcode && opcode <= 0x3D)) {
+				// The backward branches counted by Thread#branch
+				for (int i = 0, length = getSuccessors(targets); i < length; i++) {
+					if (targets[i] <= pc) {
+						isReleasePoint[targets[i]] = true;
+					}
+				}
+			}
+		}
+
+		int[] deadRegisters = new int[registerCount];
+		for (int i = 0; i < instructionCount; i++) {
+			if (!isReleasePoint[i]) {
+				continue;
+			}
+			int deadCount = 0;
+			for (int j = 0; j < registerCount; j++) {
+				if (isObjectRegister[j] && (liveRegisters[i][j >>> 5] & (1 << j)) == 0) {
+					deadRegisters[deadCount++] = j;
+				}
+			}
+			if (deadCount != 0) {
+				if (method.deadObjectRegisters == null) {
+					method.deadObjectRegisters = new int[instructionCount][];
+				}
+				method.deadObjectRegisters[i] = new int[deadCount];
+				System.arraycopy(deadRegisters, 0, method.deadObjectRegisters[i], 0, deadCount);
+			}
+		}
+	}
+
+	private static void addRegisters(final int[] registers, final int[] addedRegisters) {
+		for (int i = 0; i < registers.length; i++) {
+			registers[i] |= addedRegisters[i];
+		}
+	}
+
+	// The array accesses whose array types are known need not test the element types
+	private int getArrayOpcode(final int arrayType, final int opcode, final String firstDescriptor, final int firstOpcode, final String secondDescriptor, final int secondOpcode) {
+		if (arrayType <= TYPE_REFERENCE) {
+			return opcode;
+		}
+		String descriptor = getDescriptor(arrayType);
+		if (descriptor.equals(firstDescriptor)) {
+			return firstOpcode;
+		} else if (descriptor.equals(secondDescriptor)) {
+			return secondOpcode;
+		} else {
+			return opcode;
+		}
+	}
+}
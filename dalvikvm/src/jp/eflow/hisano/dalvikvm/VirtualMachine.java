@@ -28,6 +28,8 @@ import java.lang.ref.*;
 import java.util.*;
 
 public class VirtualMachine {
+	private static final Object HOST_CLASS_NOT_FOUND = new Object();
+
 	final ClassLoader systemClassLoader;
 
 	private volatile boolean isEnd = true;
@@ -36,8 +38,14 @@ public class VirtualMachine {
 
 	Vector threads = new Vector();
 
+	final JitCompiler jitCompiler = new JitCompiler();
+	final TieredPolicy tieredPolicy = new TieredPolicy(jitCompiler);
+
 	private final Vector waitSets = new Vector();
 
+	// The host classes, or HOST_CLASS_NOT_FOUND, by the type descriptors
+	private final Hashtable hostClasses = new Hashtable();
+
 	public VirtualMachine() {
 		systemClassLoader = new ClassLoader(this);
 	}
@@ -46,6 +54,12 @@ public class VirtualMachine {
 		systemClassLoader.loadClasses(dexFileContent);
 	}
 
+	// Load the dex file with the jar written by AheadOfTimeCompiler for it
+	public final void load(final byte[] dexFileContent, final byte[] precompiledJarFileContent) {
+		systemClassLoader.loadClasses(dexFileContent);
+		AheadOfTimeCompiler.load(systemClassLoader, dexFileContent, precompiledJarFileContent);
+	}
+
 	public final void run(final String mainClass, final String[] args) {
 		Clazz clazz = systemClassLoader.loadClass(mainClass.replace('.', '/'));
 		if (clazz == null) {
@@ -63,6 +77,7 @@ public class VirtualMachine {
 			main.start();
 			do {
 				for (int i = 0; i < threads.size(); i++) {
+					jitCompiler.installCompiledCodes();
 					try {
 						Thread thread = (Thread)threads.elementAt(i);
 						switch (thread.status) {
@@ -136,23 +151,119 @@ public class VirtualMachine {
 		return isEnd;
 	}
 
-	protected void error(final Throwable e) {
-		error(e.getClass().getName() + ":" + e.getMessage());
+	// Profile the loops of the methods after this number of invocations and backward branches, or never profile if not positive
+	public final void setProfileThreshold(final int profileThreshold) {
+		tieredPolicy.setProfileThreshold(profileThreshold);
 	}
 
-	protected void error(final String message) {
-		System.out.println(message);
+	// Compile the methods into JVM bytecode after this number of invocations and backward branches, or never compile if not positive
+	public final void setCompileThreshold(final int compileThreshold) {
+		tieredPolicy.setOptimizeThreshold(compileThreshold);
 	}
 
-	boolean isSubClass(final Throwable checked, final String targetClassName) {
-		if (targetClassName == null) {
-			return true;
+	// Compile on a background thread, or on the interpreter thread to have the compiled code run at once
+	public final void setBackgroundCompilation(final boolean isBackground) {
+		jitCompiler.isBackground = isBackground;
+	}
+
+	// One line per method which has been compiled into JVM bytecode
+	public final String getCompiledMethods() {
+		StringBuffer compiledMethods = new StringBuffer();
+		for (Enumeration e = systemClassLoader.getClasses(); e.hasMoreElements();) {
+			Clazz clazz = (Clazz)e.nextElement();
+			appendCompiledMethods(compiledMethods, clazz.directMethods);
+			appendCompiledMethods(compiledMethods, clazz.virtualMethods);
 		}
-		try {
-			return java.lang.Class.forName(targetClassName.replace('/', '.')).isAssignableFrom(checked.getClass());
-		} catch (ClassNotFoundException e) {
-			return false;
+		return compiledMethods.toString();
+	}
+
+	private static void appendCompiledMethods(final StringBuffer compiledMethods, final Method[] methods) {
+		if (methods == null) {
+			return;
+		}
+		for (int i = 0; i < methods.length; i++) {
+			if (methods[i].compiledCode != null) {
+				compiledMethods.append(methods[i]).append('\n');
+			}
+		}
+	}
+
+	// Compile the method of a loop after this number of iterations in the profiled tier, to replace the running interpreted loop, or never if not positive
+	public final void setOsrThreshold(final int osrThreshold) {
+		tieredPolicy.setOsrThreshold(osrThreshold);
+	}
+
+	// One line per method which has been executed, with its tier, counters and the loops counted in the profiled tier
+	public final String getMethodTiers() {
+		StringBuffer methodTiers = new StringBuffer();
+		for (Enumeration e = systemClassLoader.getClasses(); e.hasMoreElements();) {
+			Clazz clazz = (Clazz)e.nextElement();
+			appendMethodTiers(methodTiers, clazz.directMethods);
+			appendMethodTiers(methodTiers, clazz.virtualMethods);
+		}
+		return methodTiers.toString();
+	}
+
+	private static void appendMethodTiers(final StringBuffer methodTiers, final Method[] methods) {
+		if (methods == null) {
+			return;
+		}
+		for (int i = 0; i < methods.length; i++) {
+			Method method = methods[i];
+			if (method.invocationCount == 0 && method.backwardBranchCount == 0) {
+				continue;
+			}
+			methodTiers.append(method).append(": ").append(TieredPolicy.getTierName(method.tier));
+			methodTiers.append(", invocations = ").append(method.invocationCount);
+			methodTiers.append(", backward branches = ").append(method.backwardBranchCount);
+			int[] loopCounts = method.loopCounts;
+			if (loopCounts != null) {
+				for (int j = 0; j < loopCounts.length; j++) {
+					if (loopCounts[j] != 0) {
+						methodTiers.append(", loop at ").append(j).append(" = ").append(loopCounts[j]);
+					}
+				}
+			}
+			methodTiers.append('\n');
+		}
+	}
+
+	// One line per invoke-virtual and invoke-interface call site which has been executed, where the sites bound by the class hierarchy analysis are marked as devirtualized
+	public final String getInlineCacheStatistics() {
+		StringBuffer statistics = new StringBuffer();
+		for (Enumeration e = systemClassLoader.getClasses(); e.hasMoreElements();) {
+			Clazz clazz = (Clazz)e.nextElement();
+			appendInlineCacheStatistics(statistics, clazz.directMethods);
+			appendInlineCacheStatistics(statistics, clazz.virtualMethods);
+		}
+		return statistics.toString();
+	}
+
+	private static void appendInlineCacheStatistics(final StringBuffer statistics, final Method[] methods) {
+		if (methods == null) {
+			return;
 		}
+		for (int i = 0; i < methods.length; i++) {
+			Object[] resolvedReferences = methods[i].resolvedReferences;
+			if (resolvedReferences == null) {
+				continue;
+			}
+			for (int j = 0; j < resolvedReferences.length; j++) {
+				if (resolvedReferences[j] instanceof InlineCache) {
+					statistics.append(methods[i]).append(" [").append(j).append("] -> ").append(resolvedReferences[j]).append('\n');
+				} else if (InstructionQuickener.isBound(methods[i], j)) {
+					statistics.append(methods[i]).append(" [").append(j).append("] -> ").append(resolvedReferences[j]).append(" (devirtualized)\n");
+				}
+			}
+		}
+	}
+
+	protected void error(final Throwable e) {
+		error(e.getClass().getName() + ":" + e.getMessage());
+	}
+
+	protected void error(final String message) {
+		System.out.println(message);
 	}
 
 	Object handleNewObjectArray(final String absoluteClassName, final int dimension, final int lengthNumber, final int length1, final int length2, final int length3) {
@@ -316,21 +427,17 @@ public class VirtualMachine {
 			if ("Boolean".equals(className)) {
 				if ("TRUE".equals(fieldName)) {
 					frame.objectRegisters[destination] = Boolean.TRUE;
-					frame.isObjectRegister[destination] = true;
 					return true;
 				} else if ("FALSE".equals(fieldName)) {
 					frame.objectRegisters[destination] = Boolean.FALSE;
-					frame.isObjectRegister[destination] = true;
 					return true;
 				}
 			} else if ("System".equals(className)) {
 				if ("out".equals(fieldName)) {
 					frame.objectRegisters[destination] = System.out;
-					frame.isObjectRegister[destination] = true;
 					return true;
 				} else if ("err".equals(fieldName)) {
 					frame.objectRegisters[destination] = System.err;
-					frame.isObjectRegister[destination] = true;
 					return true;
 				}
 			}
@@ -724,185 +831,182 @@ public class VirtualMachine {
 	}
 
 	protected Object multiNewArray(final Class componentType, final int[] dimensions) {
-		try {
-			if (componentType == Boolean.class) {
-				switch (dimensions.length) {
-					case 1:
-						return new boolean[dimensions[0]];
-					case 2:
-						return new boolean[dimensions[0]][dimensions[1]];
-					case 3:
-						return new boolean[dimensions[0]][dimensions[1]][dimensions[2]];
-				}
-			} else if (componentType == Class.forName("[Z")) {
-				switch (dimensions.length) {
-					case 1:
-						return new boolean[dimensions[0]][];
-					case 2:
-						return new boolean[dimensions[0]][dimensions[1]][];
-				}
-			} else if (componentType == Byte.class) {
-				switch (dimensions.length) {
-					case 1:
-						return new byte[dimensions[0]];
-					case 2:
-						return new byte[dimensions[0]][dimensions[1]];
-					case 3:
-						return new byte[dimensions[0]][dimensions[1]][dimensions[2]];
-				}
-			} else if (componentType == Class.forName("[B")) {
-				switch (dimensions.length) {
-					case 1:
-						return new byte[dimensions[0]][];
-					case 2:
-						return new byte[dimensions[0]][dimensions[1]][];
-				}
-			} else if (componentType == Short.class) {
-				switch (dimensions.length) {
-					case 1:
-						return new short[dimensions[0]];
-					case 2:
-						return new short[dimensions[0]][dimensions[1]];
-					case 3:
-						return new short[dimensions[0]][dimensions[1]][dimensions[2]];
-				}
-			} else if (componentType == Class.forName("[S")) {
-				switch (dimensions.length) {
-					case 1:
-						return new short[dimensions[0]][];
-					case 2:
-						return new short[dimensions[0]][dimensions[1]][];
-				}
-			} else if (componentType == Integer.class) {
-				switch (dimensions.length) {
-					case 1:
-						return new int[dimensions[0]];
-					case 2:
-						return new int[dimensions[0]][dimensions[1]];
-					case 3:
-						return new int[dimensions[0]][dimensions[1]][dimensions[2]];
-				}
-			} else if (componentType == Class.forName("[I")) {
-				switch (dimensions.length) {
-					case 1:
-						return new int[dimensions[0]][];
-					case 2:
-						return new int[dimensions[0]][dimensions[1]][];
-				}
-			} else if (componentType == Long.class) {
-				switch (dimensions.length) {
-					case 1:
-						return new long[dimensions[0]];
-					case 2:
-						return new long[dimensions[0]][dimensions[1]];
-					case 3:
-						return new long[dimensions[0]][dimensions[1]][dimensions[2]];
-				}
-			} else if (componentType == Class.forName("[J")) {
-				switch (dimensions.length) {
-					case 1:
-						return new long[dimensions[0]][];
-					case 2:
-						return new long[dimensions[0]][dimensions[1]][];
-				}
-			} else if (componentType == Float.class) {
-				switch (dimensions.length) {
-					case 1:
-						return new float[dimensions[0]];
-					case 2:
-						return new float[dimensions[0]][dimensions[1]];
-					case 3:
-						return new float[dimensions[0]][dimensions[1]][dimensions[2]];
-				}
-			} else if (componentType == Class.forName("[F")) {
-				switch (dimensions.length) {
-					case 1:
-						return new float[dimensions[0]][];
-					case 2:
-						return new float[dimensions[0]][dimensions[1]][];
-				}
-			} else if (componentType == Double.class) {
-				switch (dimensions.length) {
-					case 1:
-						return new double[dimensions[0]];
-					case 2:
-						return new double[dimensions[0]][dimensions[1]];
-					case 3:
-						return new double[dimensions[0]][dimensions[1]][dimensions[2]];
-				}
-			} else if (componentType == Class.forName("[D")) {
-				switch (dimensions.length) {
-					case 1:
-						return new double[dimensions[0]][];
-					case 2:
-						return new double[dimensions[0]][dimensions[1]][];
-				}
-			} else if (componentType == Character.class) {
-				switch (dimensions.length) {
-					case 1:
-						return new char[dimensions[0]];
-					case 2:
-						return new char[dimensions[0]][dimensions[1]];
-					case 3:
-						return new char[dimensions[0]][dimensions[1]][dimensions[2]];
-				}
-			} else if (componentType == Class.forName("[C")) {
-				switch (dimensions.length) {
-					case 1:
-						return new char[dimensions[0]][];
-					case 2:
-						return new char[dimensions[0]][dimensions[1]][];
-				}
-			} else if (componentType == Object.class) {
-				switch (dimensions.length) {
-					case 1:
-						return new Object[dimensions[0]];
-					case 2:
-						return new Object[dimensions[0]][dimensions[1]];
-					case 3:
-						return new Object[dimensions[0]][dimensions[1]][dimensions[2]];
-				}
-			} else if (componentType == Object[].class) {
-				switch (dimensions.length) {
-					case 1:
-						return new Object[dimensions[0]][];
-					case 2:
-						return new Object[dimensions[0]][dimensions[1]][];
-				}
-			} else if (componentType == String.class) {
-				switch (dimensions.length) {
-					case 1:
-						return new String[dimensions[0]];
-					case 2:
-						return new String[dimensions[0]][dimensions[1]];
-					case 3:
-						return new String[dimensions[0]][dimensions[1]][dimensions[2]];
-				}
-			} else if (componentType == String[].class) {
-				switch (dimensions.length) {
-					case 1:
-						return new String[dimensions[0]][];
-					case 2:
-						return new String[dimensions[0]][dimensions[1]][];
-				}
-			} else if (componentType == Vector.class) {
-				switch (dimensions.length) {
-					case 1:
-						return new Vector[dimensions[0]];
-					case 2:
-						return new Vector[dimensions[0]][dimensions[1]];
-					case 3:
-						return new Vector[dimensions[0]][dimensions[1]][dimensions[2]];
-				}
-			} else if (componentType == Vector[].class) {
-				switch (dimensions.length) {
-					case 1:
-						return new Vector[dimensions[0]][];
-					case 2:
-						return new Vector[dimensions[0]][dimensions[1]][];
-				}
+		if (componentType == Boolean.class) {
+			switch (dimensions.length) {
+				case 1:
+					return new boolean[dimensions[0]];
+				case 2:
+					return new boolean[dimensions[0]][dimensions[1]];
+				case 3:
+					return new boolean[dimensions[0]][dimensions[1]][dimensions[2]];
+			}
+		} else if (componentType == boolean[].class) {
+			switch (dimensions.length) {
+				case 1:
+					return new boolean[dimensions[0]][];
+				case 2:
+					return new boolean[dimensions[0]][dimensions[1]][];
+			}
+		} else if (componentType == Byte.class) {
+			switch (dimensions.length) {
+				case 1:
+					return new byte[dimensions[0]];
+				case 2:
+					return new byte[dimensions[0]][dimensions[1]];
+				case 3:
+					return new byte[dimensions[0]][dimensions[1]][dimensions[2]];
+			}
+		} else if (componentType == byte[].class) {
+			switch (dimensions.length) {
+				case 1:
+					return new byte[dimensions[0]][];
+				case 2:
+					return new byte[dimensions[0]][dimensions[1]][];
+			}
+		} else if (componentType == Short.class) {
+			switch (dimensions.length) {
+				case 1:
+					return new short[dimensions[0]];
+				case 2:
+					return new short[dimensions[0]][dimensions[1]];
+				case 3:
+					return new short[dimensions[0]][dimensions[1]][dimensions[2]];
+			}
+		} else if (componentType == short[].class) {
+			switch (dimensions.length) {
+				case 1:
+					return new short[dimensions[0]][];
+				case 2:
+					return new short[dimensions[0]][dimensions[1]][];
+			}
+		} else if (componentType == Integer.class) {
+			switch (dimensions.length) {
+				case 1:
+					return new int[dimensions[0]];
+				case 2:
+					return new int[dimensions[0]][dimensions[1]];
+				case 3:
+					return new int[dimensions[0]][dimensions[1]][dimensions[2]];
+			}
+		} else if (componentType == int[].class) {
+			switch (dimensions.length) {
+				case 1:
+					return new int[dimensions[0]][];
+				case 2:
+					return new int[dimensions[0]][dimensions[1]][];
+			}
+		} else if (componentType == Long.class) {
+			switch (dimensions.length) {
+				case 1:
+					return new long[dimensions[0]];
+				case 2:
+					return new long[dimensions[0]][dimensions[1]];
+				case 3:
+					return new long[dimensions[0]][dimensions[1]][dimensions[2]];
+			}
+		} else if (componentType == long[].class) {
+			switch (dimensions.length) {
+				case 1:
+					return new long[dimensions[0]][];
+				case 2:
+					return new long[dimensions[0]][dimensions[1]][];
+			}
+		} else if (componentType == Float.class) {
+			switch (dimensions.length) {
+				case 1:
+					return new float[dimensions[0]];
+				case 2:
+					return new float[dimensions[0]][dimensions[1]];
+				case 3:
+					return new float[dimensions[0]][dimensions[1]][dimensions[2]];
+			}
+		} else if (componentType == float[].class) {
+			switch (dimensions.length) {
+				case 1:
+					return new float[dimensions[0]][];
+				case 2:
+					return new float[dimensions[0]][dimensions[1]][];
+			}
+		} else if (componentType == Double.class) {
+			switch (dimensions.length) {
+				case 1:
+					return new double[dimensions[0]];
+				case 2:
+					return new double[dimensions[0]][dimensions[1]];
+				case 3:
+					return new double[dimensions[0]][dimensions[1]][dimensions[2]];
+			}
+		} else if (componentType == double[].class) {
+			switch (dimensions.length) {
+				case 1:
+					return new double[dimensions[0]][];
+				case 2:
+					return new double[dimensions[0]][dimensions[1]][];
+			}
+		} else if (componentType == Character.class) {
+			switch (dimensions.length) {
+				case 1:
+					return new char[dimensions[0]];
+				case 2:
+					return new char[dimensions[0]][dimensions[1]];
+				case 3:
+					return new char[dimensions[0]][dimensions[1]][dimensions[2]];
+			}
+		} else if (componentType == char[].class) {
+			switch (dimensions.length) {
+				case 1:
+					return new char[dimensions[0]][];
+				case 2:
+					return new char[dimensions[0]][dimensions[1]][];
+			}
+		} else if (componentType == Object.class) {
+			switch (dimensions.length) {
+				case 1:
+					return new Object[dimensions[0]];
+				case 2:
+					return new Object[dimensions[0]][dimensions[1]];
+				case 3:
+					return new Object[dimensions[0]][dimensions[1]][dimensions[2]];
+			}
+		} else if (componentType == Object[].class) {
+			switch (dimensions.length) {
+				case 1:
+					return new Object[dimensions[0]][];
+				case 2:
+					return new Object[dimensions[0]][dimensions[1]][];
+			}
+		} else if (componentType == String.class) {
+			switch (dimensions.length) {
+				case 1:
+					return new String[dimensions[0]];
+				case 2:
+					return new String[dimensions[0]][dimensions[1]];
+				case 3:
+					return new String[dimensions[0]][dimensions[1]][dimensions[2]];
+			}
+		} else if (componentType == String[].class) {
+			switch (dimensions.length) {
+				case 1:
+					return new String[dimensions[0]][];
+				case 2:
+					return new String[dimensions[0]][dimensions[1]][];
+			}
+		} else if (componentType == Vector.class) {
+			switch (dimensions.length) {
+				case 1:
+					return new Vector[dimensions[0]];
+				case 2:
+					return new Vector[dimensions[0]][dimensions[1]];
+				case 3:
+					return new Vector[dimensions[0]][dimensions[1]][dimensions[2]];
+			}
+		} else if (componentType == Vector[].class) {
+			switch (dimensions.length) {
+				case 1:
+					return new Vector[dimensions[0]][];
+				case 2:
+					return new Vector[dimensions[0]][dimensions[1]][];
 			}
-		} catch (ClassNotFoundException e) {
 		}
 		// TODO Add types
 		throw new IllegalArgumentException("not supported array type: " + componentType.getName());
@@ -2734,29 +2838,24 @@ public class VirtualMachine {
 		return null;
 	}
 
-	// TODO Add types
-	protected Class handleClassGetter(String type) throws ClassNotFoundException {
-		if (type.startsWith("L")) {
-			type = type.substring(1, type.length() - 1).replace('/', '.');
-			return Class.forName(type);
-		} else if (type.startsWith("[L")) {
-			type = type.substring(2, type.length() - 1);
-			String packageName = type.substring(0, type.lastIndexOf('/'));
-			String className = type.substring(type.lastIndexOf('/') + 1);
-			if ("java/lang".equals(packageName)) {
-				if ("Object".equals(className)) {
-					return Object[].class;
-				} else if ("String".equals(className)) {
-					return String[].class;
-				}
-			} else if ("java/util".endsWith(packageName)) {
-				if ("Vector".equals(className)) {
-					return Vector[].class;
-				}
+	protected Class handleClassGetter(final String type) throws ClassNotFoundException {
+		return resolveHostClass(type);
+	}
+
+	// Resolve a type descriptor including the array ones into the host class once, and remember the descriptors not found too
+	Class resolveHostClass(final String type) throws ClassNotFoundException {
+		Object hostClass = hostClasses.get(type);
+		if (hostClass == null) {
+			try {
+				hostClass = Class.forName(type.charAt(0) == 'L' ? type.substring(1, type.length() - 1).replace('/', '.') : type.replace('/', '.'));
+			} catch (ClassNotFoundException e) {
+				hostClass = HOST_CLASS_NOT_FOUND;
 			}
-			throw new ClassNotFoundException();
-		} else {
-			return Class.forName(type);
+			hostClasses.put(type, hostClass);
+		}
+		if (hostClass == HOST_CLASS_NOT_FOUND) {
+			throw new ClassNotFoundException(type);
 		}
+		return (Class)hostClass;
 	}
 }
@@ -47,6 +47,22 @@ public class VirtualMachineTest extends TestCase {
 		assertEquals("default", getLine());
 	}
 
+	public void test0x2B() {
+		runByClass(Test0x2B.class);
+
+		assertEquals("default", getLine());
+		assertEquals("1", getLine());
+		assertEquals("2", getLine());
+		assertEquals("3", getLine());
+		assertEquals("default", getLine());
+	}
+
+	public void testSwitch() {
+		runByClass(SwitchTest.class);
+		assertEquals("--abde-----", getLine());
+		assertEquals("AB-C--D-EFG", getLine());
+	}
+
 	public void test0x52to0x5F() {
 		runByClass(Test0x52to0x5F.class);
 
@@ -60,6 +76,13 @@ public class VirtualMachineTest extends TestCase {
 		assertEquals("" + -0x12345678, getLine());
 	}
 
+	public void testTest0x18() {
+		runByClass(Test0x18.class);
+
+		assertEquals("" + 0x123456789ABCDEF0L, getLine());
+		assertEquals("" + -0x123456789ABCDEF0L, getLine());
+	}
+
 	public void testDouble() {
 		runByClass(DoubleTest.class);
 
@@ -256,6 +279,15 @@ public class VirtualMachineTest extends TestCase {
 		assertEquals("result", getLine());
 	}
 
+	public void testSubInterface() {
+		runByClass(SubInterfaceTest.class, new Class[] { Interface.class, SubInterface.class, Implementation.class, ChildImplementation.class });
+
+		assertEquals("child", getLine());
+		assertEquals("result", getLine());
+		assertEquals("message0", getLine());
+		assertEquals("message1", getLine());
+	}
+
 	public void testInheritance() {
 		runByClass(InheritanceTest.class, new Class[] { ParentClass.class, ChildClass.class });
 
@@ -267,6 +299,167 @@ public class VirtualMachineTest extends TestCase {
 		assertEquals("child_hidden", getLine());
 	}
 
+	public void testPolymorphicCallSite() {
+		runByClass(PolymorphicCallSiteTest.class, new Class[] { ParentClass.class, ChildClass.class });
+
+		assertEquals("parent_hidden", getLine());
+		assertEquals("field0", getLine());
+		assertEquals("child_hidden", getLine());
+		assertEquals("field1", getLine());
+		assertEquals("parent_hidden", getLine());
+		assertEquals("field2", getLine());
+	}
+
+	public void testInlineCacheStatistics() {
+		VirtualMachine vm = runByClass(PolymorphicCallSiteTest.class, new Class[] { ParentClass.class, ChildClass.class });
+
+		String statistics = vm.getInlineCacheStatistics();
+		assertTrue(statistics, statistics.indexOf("ParentClass#hiddenMethod()V (polymorphic): hits = 1, misses = 2") != -1);
+	}
+
+	public void testDevirtualization() {
+		VirtualMachine vm = runByClass(DevirtualizationTest.class, new Class[] { ParentClass.class, ChildClass.class });
+		assertEquals("parent_hidden", getLine());
+		assertEquals("parent_hidden", getLine());
+		assertEquals("child_hidden", getLine());
+		assertEquals("parent_hidden", getLine());
+		assertEquals("parent", getLine());
+
+		String statistics = vm.getInlineCacheStatistics();
+		assertTrue(statistics, statistics.indexOf("DevirtualizationTest#call(Ljp/eflow/hisano/dalvikvm/jvmtests/ParentClass;)V [0] -> jp/eflow/hisano/dalvikvm/jvmtests/ParentClass#hiddenMethod()V (polymorphic): hits = 0, misses = 2") != -1);
+		assertTrue(statistics, statistics.indexOf("jp/eflow/hisano/dalvikvm/jvmtests/ParentClass#parentMethod()V (devirtualized)") != -1);
+	}
+
+	public void testFloatingPointFields() {
+		runByClass(FloatingPointFieldsTest.class);
+
+		assertEquals("1.5", getLine());
+		assertEquals("2.5", getLine());
+		assertEquals("4886718345", getLine());
+		assertEquals("0.5", getLine());
+	}
+
+	public void testSuperMethodCall() {
+		runByClass(SuperMethodCallTest.class, new Class[] { ParentClass.class, ChildClass.class, SuperCallChild.class });
+		assertEquals("child_hidden", getLine());
+		assertEquals("parent_hidden", getLine());
+		assertEquals("child_hidden", getLine());
+		assertEquals("parent_hidden", getLine());
+		assertEquals("not_child", getLine());
+	}
+
+	public void testCompiledCode() {
+		compileThreshold = 3;
+		VirtualMachine vm = runByClass(CompiledCodeTest.class);
+		assertEquals("sum = 49500", getLine());
+		assertEquals("average = 24.75", getLine());
+		assertEquals("zeroonetwomanymany", getLine());
+		assertEquals("found = -148", getLine());
+
+		// The interpreter runs all of the methods on the platforms which cannot define the generated classes
+		if (HiddenClassDefiner.isAvailable()) {
+			String compiledMethods = vm.getCompiledMethods();
+			assertTrue(compiledMethods, compiledMethods.indexOf("CompiledCodeTest#sum([I)J") != -1);
+			assertTrue(compiledMethods, compiledMethods.indexOf("CompiledCodeTest#average([I)D") != -1);
+			assertTrue(compiledMethods, compiledMethods.indexOf("CompiledCodeTest#find([II)I") != -1);
+
+			String methodTiers = vm.getMethodTiers();
+			assertTrue(methodTiers, methodTiers.indexOf("CompiledCodeTest#sum([I)J: optimized") != -1);
+		}
+	}
+
+	public void testMethodTiers() {
+		compileThreshold = -1;
+		profileThreshold = 3;
+		osrThreshold = -1;
+		VirtualMachine vm = runByClass(CompiledCodeTest.class);
+		assertEquals("sum = 49500", getLine());
+
+		String methodTiers = vm.getMethodTiers();
+		assertTrue(methodTiers, methodTiers.indexOf("CompiledCodeTest#sum([I)J: profiled, invocations = 10, backward branches = 1000, loop at 2 = 999") != -1);
+		assertTrue(methodTiers, methodTiers.indexOf("CompiledCodeTest#main([Ljava/lang/String;)V: profiled, invocations = 0") != -1);
+	}
+
+	public void testOnStackReplacement() {
+		compileThreshold = 1000000;
+		profileThreshold = 10;
+		osrThreshold = 100;
+		VirtualMachine vm = runByClass(OnStackReplacementTest.class);
+		assertEquals("sum = 169172475000", getLine());
+
+		// The loop runs in the compiled code after the backward branch which reaches the threshold
+		if (HiddenClassDefiner.isAvailable()) {
+			String methodTiers = vm.getMethodTiers();
+			assertTrue(methodTiers, methodTiers.indexOf("OnStackReplacementTest#main([Ljava/lang/String;)V: optimized, invocations = 0, backward branches = 109,") != -1);
+		}
+	}
+
+	public void testCompiledLoopPreemption() {
+		compileThreshold = 1000000;
+		profileThreshold = 10;
+		osrThreshold = 100;
+		runByClass(CompiledLoopPreemptionTest.class, new Class[0], new String[] { CompiledLoopPreemptionTest.class.getName() + "$1" });
+		// The other thread would loop 100000s of times before the main thread gets its time slice again without the preemption
+		String line = getLine();
+		assertTrue(line, line.startsWith("count = "));
+		assertTrue(line, Integer.parseInt(line.substring("count = ".length())) < 10000);
+	}
+
+	public void testRegisterKinds() {
+		compileThreshold = 3;
+		VirtualMachine vm = runByClass(RegisterKindsTest.class);
+		assertEquals("zerosamenullothernullsame", getLine());
+		assertEquals("total = 1.4660155035E10", getLine());
+
+		if (HiddenClassDefiner.isAvailable()) {
+			String compiledMethods = vm.getCompiledMethods();
+			assertTrue(compiledMethods, compiledMethods.indexOf("RegisterKindsTest#describe(Ljava/lang/Object;I)Ljava/lang/String;") != -1);
+		}
+	}
+
+	public void testArgumentPassing() {
+		runByClass(ArgumentPassingTest.class);
+		assertEquals("test:1,2,three,4.5,f,6.5,7", getLine());
+		assertEquals("a1b2c3.0", getLine());
+		assertEquals("15", getLine());
+	}
+
+	public void testTryCatch() {
+		runByClass(TryCatchTest.class);
+		assertEquals("10", getLine());
+		assertEquals("none,inner,runtime,outer", getLine());
+		assertEquals("1000", getLine());
+	}
+
+	public void testVerifier() {
+		String[] relatedClassNames = new String[] { VerifierTest.class.getName() + "$Broken" };
+		runByClass(VerifierTest.class, new Class[0], relatedClassNames);
+		assertEquals("loaded", getLine());
+		assertEquals("4661", getLine());
+
+		// Only the class of the rejected method fails, when it is initialized
+		returnObjectClassName = relatedClassNames[0];
+		runByClass(VerifierTest.class, new Class[0], relatedClassNames);
+		assertEquals("loaded", getLine());
+		assertEquals("not verified", getLine());
+	}
+
+	public void testPrecompiledCode() {
+		compileThreshold = -1;
+		isPrecompiled = true;
+		VirtualMachine vm = runByClass(CompiledCodeTest.class);
+		assertEquals("sum = 49500", getLine());
+		assertEquals("average = 24.75", getLine());
+		assertEquals("zeroonetwomanymany", getLine());
+		assertEquals("found = -148", getLine());
+
+		if (HiddenClassDefiner.isAvailable()) {
+			String compiledMethods = vm.getCompiledMethods();
+			assertTrue(compiledMethods, compiledMethods.indexOf("CompiledCodeTest#main([Ljava/lang/String;)V") != -1);
+			assertTrue(compiledMethods, compiledMethods.indexOf("CompiledCodeTest#sum([I)J") != -1);
+		}
+	}
+
 	public void testInstance() {
 		runByClass(InstanceTest.class);
 		assertEquals("public_method", getLine());
@@ -398,6 +591,28 @@ public class VirtualMachineTest extends TestCase {
 		assertEquals("The null is not a Object.", getLine());
 	}
 
+	public void testSubtype() {
+		runByClass(SubtypeTest.class, new Class[] { Interface.class, SubInterface.class, Implementation.class, ChildImplementation.class, ParentClass.class, ChildClass.class, AbstractClass.class, ConcreteClass.class });
+		assertEquals("true,false,true,false,false,false", getLine());
+		assertEquals("true,true,true,true,false,false", getLine());
+		assertEquals("false,false,false,false,true,false", getLine());
+		assertEquals("false,false,false,false,false,false", getLine());
+		assertEquals("false,false,false,false,false,true", getLine());
+		assertEquals("casted", getLine());
+		assertEquals("result", getLine());
+		assertEquals("not casted", getLine());
+		assertEquals("concrete", getLine());
+	}
+
+	public void testClassConstant() {
+		runByClass(ClassConstantTest.class);
+		assertEquals("java.lang.String", getLine());
+		assertEquals("[I", getLine());
+		assertEquals("[[Ljava.lang.String;", getLine());
+		assertEquals("[Ljava.util.Hashtable;", getLine());
+		assertEquals("true,true,false", getLine());
+	}
+
 	public void testParentException() {
 		runByClass(ParentExceptionTest.class);
 		assertEquals("catchubNʉ", getLine());
@@ -445,6 +660,13 @@ public class VirtualMachineTest extends TestCase {
 		assertNull(getLine());
 	}
 
+	public void testInheritedStaticFields() {
+		runByClass(InheritedStaticFieldsTest.class, new Class[] { StaticCounter.class, StaticCounterChild.class });
+
+		assertEquals("10", getLine());
+		assertEquals("4294967341", getLine());
+	}
+
 	public void testArray() {
 		runByClass(ArrayTest.class);
 		assertEquals("", getLine());
@@ -591,16 +813,26 @@ public class VirtualMachineTest extends TestCase {
 	}
 
 	private List lines = new ArrayList();
+	// Compile the methods synchronously after this number of invocations if not zero
+	private int compileThreshold;
+	// Profile the methods after this number of invocations and backward branches if not zero
+	private int profileThreshold;
+	// Compile the method of a loop after this number of iterations if not zero
+	private int osrThreshold;
+	// Load the code compiled by AheadOfTimeCompiler if true
+	private boolean isPrecompiled;
+	// Rewrite the return instructions of the int values of this class into return-object, which Verifier rejects when the class is linked, if not null
+	private String returnObjectClassName;
 
-	private void runByClass(Class mainClass) {
-		runByClass(mainClass, new Class[0]);
+	private VirtualMachine runByClass(Class mainClass) {
+		return runByClass(mainClass, new Class[0]);
 	}
 
-	private void runByClass(Class mainClass, Class[] relatedClasses) {
-		runByClass(mainClass, relatedClasses, new String[0]);
+	private VirtualMachine runByClass(Class mainClass, Class[] relatedClasses) {
+		return runByClass(mainClass, relatedClasses, new String[0]);
 	}
 
-	private void runByClass(Class mainClass, Class[] relatedClasses, String[] relatedClassNames) {
+	private VirtualMachine runByClass(Class mainClass, Class[] relatedClasses, String[] relatedClassNames) {
 		String[] files = new String[1 + relatedClasses.length + relatedClassNames.length];
 		files[0] = toClassFilePath(mainClass);
 		for (int i = 0; i < relatedClasses.length; i++) {
@@ -610,7 +842,7 @@ public class VirtualMachineTest extends TestCase {
 			files[1 + relatedClasses.length + i] = toClassFilePath(relatedClassNames[i]);
 		}
 		byte[] dexFileContent = compile(getClassFilesRootDirectory(), files);
-		run(dexFileContent, mainClass.getName(), false);
+		return run(dexFileContent, mainClass.getName(), false);
 	}
 
 	private File getClassFilesRootDirectory() {
@@ -692,7 +924,28 @@ public class VirtualMachineTest extends TestCase {
 				System.setErr(newOutAndErr);
 			}
 		};
-		vm.load(dexFileContent);
+		if (compileThreshold != 0) {
+			vm.setCompileThreshold(compileThreshold);
+			vm.setBackgroundCompilation(false);
+		}
+		if (profileThreshold != 0) {
+			vm.setProfileThreshold(profileThreshold);
+		}
+		if (osrThreshold != 0) {
+			vm.setOsrThreshold(osrThreshold);
+		}
+		if (isPrecompiled) {
+			try {
+				vm.load(dexFileContent, AheadOfTimeCompiler.compile(dexFileContent));
+			} catch (IOException e) {
+				throw new RuntimeException(e.toString());
+			}
+		} else {
+			vm.load(dexFileContent);
+		}
+		if (returnObjectClassName != null) {
+			rewriteReturnsIntoReturnObjects(vm.systemClassLoader.findLoadedClass(returnObjectClassName.replace('.', '/')));
+		}
 		if (runInNewThread) {
 			new java.lang.Thread() {
 				public void run() {
@@ -706,6 +959,22 @@ public class VirtualMachineTest extends TestCase {
 		return vm;
 	}
 
+	// The classes are not linked yet, so Verifier sees the rewritten instructions
+	private static void rewriteReturnsIntoReturnObjects(final Clazz clazz) {
+		int rewrittenCount = 0;
+		for (int i = 0; i < clazz.directMethods.length; i++) {
+			int[] opcodes = clazz.directMethods[i].opcodes;
+			for (int j = 0; opcodes != null && j < opcodes.length; j++) {
+				if (opcodes[j] == 0x0F) {
+					// return vAA into return-object vAA
+					opcodes[j] = 0x11;
+					rewrittenCount++;
+				}
+			}
+		}
+		assertTrue(0 < rewrittenCount);
+	}
+
 	private String getLine() {
 		if (lines.isEmpty()) {
 			return null;
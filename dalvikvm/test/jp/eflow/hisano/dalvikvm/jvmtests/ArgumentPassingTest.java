@@ -0,0 +1,56 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm.jvmtests;
+
+public class ArgumentPassingTest {
+	private final String name;
+
+	public static void main(String[] args) {
+		ArgumentPassingTest test = new ArgumentPassingTest("test");
+		System.out.println(test.describe(1, 2L, "three", 4.5, 'f', 6.5f, (byte)7));
+		System.out.println(join("a", 1, "b", 2L, "c", 3.0));
+		System.out.println(test.countDown(5));
+	}
+
+	private ArgumentPassingTest(String name) {
+		this.name = name;
+	}
+
+	// The invoke-virtual/range instruction passes the wide, object and narrow arguments together
+	private String describe(int first, long second, String third, double fourth, char fifth, float sixth, byte seventh) {
+		return name + ":" + first + "," + second + "," + third + "," + fourth + "," + fifth + "," + sixth + "," + seventh;
+	}
+
+	private static String join(String first, int second, String third, long fourth, String fifth, double sixth) {
+		return first + second + third + fourth + fifth + sixth;
+	}
+
+	// The receiver of the synchronized method is the monitor
+	private synchronized int countDown(int count) {
+		if (count == 0) {
+			return 0;
+		}
+		return count + countDown(count - 1);
+	}
+}
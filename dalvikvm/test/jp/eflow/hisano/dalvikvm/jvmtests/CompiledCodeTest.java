@@ -0,0 +1,98 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm.jvmtests;
+
+public class CompiledCodeTest {
+	public static void main(String[] args) {
+		int[] values = new int[100];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = i;
+		}
+
+		long total = 0;
+		for (int i = 0; i < 10; i++) {
+			total += sum(values);
+		}
+		System.out.println("sum = " + total);
+
+		double average = 0;
+		for (int i = 0; i < 10; i++) {
+			average = average(values);
+		}
+		System.out.println("average = " + average);
+
+		String names = "";
+		for (int i = 0; i < 5; i++) {
+			names += name(i);
+		}
+		System.out.println(names);
+
+		int found = 0;
+		for (int i = 0; i < 4; i++) {
+			found += find(values, i * 50);
+		}
+		System.out.println("found = " + found);
+	}
+
+	static long sum(int[] values) {
+		long sum = 0;
+		for (int i = 0; i < values.length; i++) {
+			sum += values[i];
+		}
+		return sum;
+	}
+
+	static double average(int[] values) {
+		double sum = 0;
+		for (int i = 0; i < values.length; i++) {
+			sum += values[i] * 0.5;
+		}
+		return sum / values.length;
+	}
+
+	static String name(int value) {
+		switch (value) {
+			case 0:
+				return "zero";
+			case 1:
+				return "one";
+			case 2:
+				return "two";
+			default:
+				return "many";
+		}
+	}
+
+	static int find(int[] values, int count) {
+		int found = 0;
+		try {
+			for (int i = 0; i <= count; i++) {
+				found = values[i];
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			found = -found;
+		}
+		return found;
+	}
+}
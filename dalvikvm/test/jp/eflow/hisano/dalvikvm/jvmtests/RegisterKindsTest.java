@@ -0,0 +1,59 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm.jvmtests;
+
+public class RegisterKindsTest {
+	public static void main(String[] args) {
+		String result = "";
+		for (int i = 0; i < 6; i++) {
+			result += describe(i % 2 == 0 ? null : "object", i % 3);
+		}
+		System.out.println(result);
+
+		double total = 0;
+		for (int i = 0; i < 6; i++) {
+			total += scale(i, 4886718345L, 0.5, -i);
+		}
+		System.out.println("total = " + total);
+	}
+
+	// The null and the int 0 are compared in the same method
+	private static String describe(Object value, int count) {
+		Object other = null;
+		if (count != 0) {
+			other = value;
+		}
+		if (other != value) {
+			return "other";
+		} else if (value == null) {
+			return count == 0 ? "zero" : "null";
+		}
+		return "same";
+	}
+
+	// The long and double arguments are passed between the int arguments
+	private static double scale(int first, long value, double factor, int last) {
+		return first + value * factor + last;
+	}
+}
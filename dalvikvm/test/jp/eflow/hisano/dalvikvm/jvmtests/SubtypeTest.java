@@ -0,0 +1,49 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm.jvmtests;
+
+public class SubtypeTest {
+	public static void main(String[] args) {
+		Object[] objects = { new Implementation(), new ChildImplementation(), new ChildClass(), "string", new ConcreteClass() };
+		for (int i = 0; i < objects.length; i++) {
+			System.out.println(describe(objects[i]));
+		}
+		Interface casted = (Interface)objects[1];
+		System.out.println(casted.print("casted"));
+		try {
+			SubInterface failed = (SubInterface)objects[0];
+			System.out.println(failed.name());
+		} catch (ClassCastException e) {
+			System.out.println("not casted");
+		}
+		// The abstract classes are checked as the superclasses, not as the interfaces
+		AbstractClass abstractObject = (AbstractClass)objects[4];
+		System.out.println(abstractObject.name());
+	}
+
+	// The instance-of instructions check the superclasses including the abstract ones, and the interfaces including the inherited ones
+	private static String describe(Object object) {
+		return (object instanceof Interface) + "," + (object instanceof SubInterface) + "," + (object instanceof Implementation) + "," + (object instanceof ChildImplementation) + "," + (object instanceof ParentClass) + "," + (object instanceof AbstractClass);
+	}
+}
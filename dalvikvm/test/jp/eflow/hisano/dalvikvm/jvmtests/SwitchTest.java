@@ -0,0 +1,78 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm.jvmtests;
+
+public class SwitchTest {
+	public static void main(String[] args) {
+		int[] values = { Integer.MIN_VALUE, -1000, -3, -2, 0, 1, 2, 7, 1000, 65536, Integer.MAX_VALUE };
+		StringBuffer packed = new StringBuffer();
+		StringBuffer sparse = new StringBuffer();
+		for (int i = 0; i < values.length; i++) {
+			packed.append(packed(values[i]));
+			sparse.append(sparse(values[i]));
+		}
+		System.out.println(packed);
+		System.out.println(sparse);
+	}
+
+	// The packed keys start from a negative value
+	private static char packed(int value) {
+		switch (value) {
+			case -3:
+				return 'a';
+			case -2:
+				return 'b';
+			case -1:
+				return 'c';
+			case 0:
+				return 'd';
+			case 1:
+				return 'e';
+			default:
+				return '-';
+		}
+	}
+
+	// The sparse keys are found by the binary search
+	private static char sparse(int value) {
+		switch (value) {
+			case Integer.MIN_VALUE:
+				return 'A';
+			case -1000:
+				return 'B';
+			case -2:
+				return 'C';
+			case 2:
+				return 'D';
+			case 1000:
+				return 'E';
+			case 65536:
+				return 'F';
+			case Integer.MAX_VALUE:
+				return 'G';
+			default:
+				return '-';
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Developed by Koji Hisano <koji.hisano@eflow.jp>
+ *
+ * Copyright (C) 2009 eflow Inc. <http://www.eflow.jp/en/>
+ *
+ * This file is a part of Android Dalvik VM on Java.
+ * http://code.google.com/p/android-dalvik-vm-on-java/
+ *
+ * This project is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package jp.eflow.hisano.dalvikvm.jvmtests;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+public class TryCatchTest {
+	public static void main(String[] args) throws IOException {
+		byte[] bytes = new byte[4];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte)(i + 1);
+		}
+		System.out.println(readAll(new DataInputStream(new ByteArrayInputStream(bytes))));
+		System.out.println(nest(0) + "," + nest(1) + "," + nest(2) + "," + nest(3));
+		int caught = 0;
+		for (int i = 0; i < 1000; i++) {
+			try {
+				throwDeeply(i % 4);
+			} catch (IndexOutOfBoundsException e) {
+				caught++;
+			}
+		}
+		System.out.println(caught);
+	}
+
+	// The end of the stream is found by the exception
+	private static int readAll(DataInputStream in) throws IOException {
+		int sum = 0;
+		try {
+			while (true) {
+				sum += in.readByte();
+			}
+		} catch (EOFException e) {
+			return sum;
+		}
+	}
+
+	// The inner handlers are searched before the outer ones
+	private static String nest(int kind) {
+		try {
+			try {
+				fail(kind);
+				return "none";
+			} catch (ArithmeticException e) {
+				return "inner";
+			} finally {
+				if (kind == 3) {
+					throw new IllegalArgumentException();
+				}
+			}
+		} catch (IllegalArgumentException e) {
+			return "outer";
+		} catch (RuntimeException e) {
+			return "runtime";
+		}
+	}
+
+	private static void fail(int kind) {
+		switch (kind) {
+			case 1:
+				throw new ArithmeticException();
+			case 2:
+				throw new NullPointerException();
+			case 3:
+				throw new ArrayIndexOutOfBoundsException();
+		}
+	}
+
+	private static void throwDeeply(int depth) {
+		if (depth == 0) {
+			throw new ArrayIndexOutOfBoundsException();
+		}
+		throwDeeply(depth - 1);
+	}
+}
@@ -0,0 +1,65 @@
+package jp.eflow.hisano.dalvikvm.benchmark.array;
+
+// Executed on the VM by Main. The inner loops are bound by the aget and aput instructions of int[] and double[].
+// Verifier knows the array types of all of them when the class is linked, so this measures their typed forms
+public class ArrayKernelApp {
+	private static final int ROUNDS = 5;
+	private static final int SIEVE_SIZE = 4000000;
+	private static final int MATRIX_SIZE = 200;
+
+	public static void main(String[] args) {
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.currentTimeMillis();
+			int primeCount = sieve(SIEVE_SIZE);
+			long sieveTime = System.currentTimeMillis() - start;
+
+			start = System.currentTimeMillis();
+			double trace = multiply(MATRIX_SIZE);
+			long multiplyTime = System.currentTimeMillis() - start;
+
+			System.out.println("Sieve: " + sieveTime + " ms (" + primeCount + " primes), Matrix multiply: " + multiplyTime + " ms (trace = " + trace + ")");
+		}
+	}
+
+	private static int sieve(int size) {
+		int[] isComposite = new int[size];
+		int count = 0;
+		for (int i = 2; i < size; i++) {
+			if (isComposite[i] == 0) {
+				count++;
+				for (int j = i + i; j < size; j += i) {
+					isComposite[j] = 1;
+				}
+			}
+		}
+		return count;
+	}
+
+	private static double multiply(int size) {
+		double[][] a = new double[size][size];
+		double[][] b = new double[size][size];
+		double[][] c = new double[size][size];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				a[i][j] = i + j;
+				b[i][j] = i * j % 7;
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			double[] aRow = a[i];
+			double[] cRow = c[i];
+			for (int k = 0; k < size; k++) {
+				double aValue = aRow[k];
+				double[] bRow = b[k];
+				for (int j = 0; j < size; j++) {
+					cRow[j] += aValue * bRow[j];
+				}
+			}
+		}
+		double trace = 0;
+		for (int i = 0; i < size; i++) {
+			trace += c[i][i];
+		}
+		return trace;
+	}
+}
@@ -0,0 +1,13 @@
+package jp.eflow.hisano.dalvikvm.benchmark.array;
+
+import jp.eflow.hisano.dalvikvm.VirtualMachine;
+
+import org.apache.commons.io.IOUtils;
+
+public final class Main {
+	public static void main(String[] args) throws Exception {
+		VirtualMachine vm = new VirtualMachine();
+		vm.load(IOUtils.toByteArray(Main.class.getResourceAsStream("array_kernels.dex")));
+		vm.run("jp.eflow.hisano.dalvikvm.benchmark.array.ArrayKernelApp", new String[0]);
+	}
+}
@@ -0,0 +1,12 @@
+package jp.eflow.hisano.dalvikvm.benchmark.memory;
+
+import org.apache.commons.io.IOUtils;
+
+public final class Main {
+	public static void main(String[] args) throws Exception {
+		RetainedHeapVirtualMachine vm = new RetainedHeapVirtualMachine();
+		vm.load(IOUtils.toByteArray(Main.class.getResourceAsStream("retained_heap.dex")));
+		vm.run("jp.eflow.hisano.dalvikvm.benchmark.memory.RetainedHeapApp", new String[0]);
+		System.out.println("Peak retained heap: " + vm.getPeakRetainedHeap() / 1024 + " KB");
+	}
+}
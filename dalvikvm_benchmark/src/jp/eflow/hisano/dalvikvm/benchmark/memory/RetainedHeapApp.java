@@ -0,0 +1,29 @@
+package jp.eflow.hisano.dalvikvm.benchmark.memory;
+
+// Executed on the VM by Main. The large arrays are not used after they are summed, but the registers of this long running frame still refer to them
+public class RetainedHeapApp {
+	private static final int SIZE = 4 * 1024 * 1024;
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) {
+		long total = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			int[] table = new int[SIZE];
+			for (int i = 0; i < table.length; i += 1024) {
+				table[i] = i + round;
+			}
+			total += sum(table);
+			// RetainedHeapVirtualMachine measures the heap here
+			System.gc();
+		}
+		System.out.println("total = " + total);
+	}
+
+	private static long sum(int[] table) {
+		long sum = 0;
+		for (int i = 0; i < table.length; i += 1024) {
+			sum += table[i];
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,34 @@
+package jp.eflow.hisano.dalvikvm.benchmark.memory;
+
+import jp.eflow.hisano.dalvikvm.*;
+
+public class RetainedHeapVirtualMachine extends VirtualMachine {
+	private final long initialHeap = getUsedHeap();
+	private long peakRetainedHeap;
+
+	protected void error(Throwable e) {
+		e.printStackTrace();
+	}
+
+	protected boolean handleClassMethod(Frame frame, String absoluteClassName, String methodName, String methodDescriptor) throws Exception {
+		if ("java/lang/System".equals(absoluteClassName) && "gc".equals(methodName) && "()V".equals(methodDescriptor)) {
+			peakRetainedHeap = Math.max(peakRetainedHeap, getUsedHeap() - initialHeap);
+			return true;
+		} else {
+			return super.handleClassMethod(frame, absoluteClassName, methodName, methodDescriptor);
+		}
+	}
+
+	// The heap reachable from the guest, and from this VM
+	long getPeakRetainedHeap() {
+		return peakRetainedHeap;
+	}
+
+	private static long getUsedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}